@@ -0,0 +1,59 @@
+package com.relojcontrol.reloj_control.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class ImportacionConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ImportacionConfig.class);
+
+    /**
+     * Ejecutor acotado para las importaciones en segundo plano. Tiene hilos y cola propios para
+     * que varias cargas simultáneas no consuman los hilos que atienden las peticiones web.
+     * Cuando la cola se llena, las nuevas importaciones se rechazan.
+     */
+    @Bean(name = "importacionExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor importacionExecutor(
+            @Value("${importacion.jobs.hilos:2}") int hilos,
+            @Value("${importacion.jobs.cola:10}") int capacidadCola) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(hilos);
+        executor.setMaxPoolSize(hilos);
+        executor.setQueueCapacity(capacidadCola);
+        executor.setThreadNamePrefix("importacion-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Hilos para las particiones de una importación en paralelo. Cada partición ocupa una conexión
+     * mientras guarda un lote, así que el paralelismo se limita al pool de Hikari dejando una
+     * conexión libre para las peticiones web.
+     *
+     * @param hilos Paralelismo deseado; 0 usa la cantidad de núcleos
+     */
+    @Bean(name = "importacionParticionesExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor importacionParticionesExecutor(
+            @Value("${importacion.paralelo.hilos:0}") int hilos,
+            DataSource dataSource) {
+        int paralelismo = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        if (dataSource instanceof HikariDataSource hikari) {
+            paralelismo = Math.min(paralelismo, Math.max(1, hikari.getMaximumPoolSize() - 1));
+        }
+        logger.info("Importación en paralelo con {} particiones", paralelismo);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(paralelismo);
+        executor.setMaxPoolSize(paralelismo);
+        executor.setThreadNamePrefix("importacion-particion-");
+        executor.initialize();
+        return executor;
+    }
+}
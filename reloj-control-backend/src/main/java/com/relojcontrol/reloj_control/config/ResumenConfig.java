@@ -0,0 +1,48 @@
+package com.relojcontrol.reloj_control.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+@Configuration
+public class ResumenConfig {
+    private static final Logger logger = LoggerFactory.getLogger(ResumenConfig.class);
+
+    /**
+     * Pool propio para calcular los resúmenes de varios empleados en paralelo, separado del pool común
+     * para no competir con otros usos de streams paralelos. El cálculo no usa la base de datos, así
+     * que no se limita por el pool de conexiones.
+     *
+     * @param hilos Paralelismo deseado; 0 usa la cantidad de núcleos y 1 calcula en el hilo que llama
+     */
+    @Bean(name = "resumenForkJoinPool", destroyMethod = "shutdown")
+    public ForkJoinPool resumenForkJoinPool(@Value("${resumen.paralelo.hilos:0}") int hilos) {
+        int paralelismo = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        logger.info("Cálculo de resúmenes con paralelismo {}", paralelismo);
+        return new ForkJoinPool(paralelismo, pool -> {
+            ForkJoinWorkerThread hilo = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            hilo.setName("resumen-" + hilo.getPoolIndex());
+            return hilo;
+        }, null, false);
+    }
+
+    /**
+     * Un hilo para reconstruir los resúmenes cuando cambian los parámetros, horarios o feriados. Las
+     * reconstrucciones se hacen de a una y en orden, sin ocupar el hilo de la petición que hizo el cambio.
+     */
+    @Bean(name = "resumenReconstruccionExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor resumenReconstruccionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("resumen-reconstruccion-");
+        executor.initialize();
+        return executor;
+    }
+}
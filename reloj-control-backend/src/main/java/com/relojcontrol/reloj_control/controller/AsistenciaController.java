@@ -1,6 +1,11 @@
 package com.relojcontrol.reloj_control.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.relojcontrol.reloj_control.dto.EmpleadoAtrasosDTO;
+import com.relojcontrol.reloj_control.dto.EstadisticasCacheDTO;
+import com.relojcontrol.reloj_control.dto.ParticionAsistenciaDTO;
+import com.relojcontrol.reloj_control.dto.ResumenLoteDTO;
 import com.relojcontrol.reloj_control.model.Empleado;
 import com.relojcontrol.reloj_control.model.Asistencia;
 import com.relojcontrol.reloj_control.repository.AsistenciaRepository;
@@ -8,6 +13,9 @@ import com.relojcontrol.reloj_control.repository.EmpleadoRepository;
 import com.relojcontrol.reloj_control.repository.UsuarioRepository;
 import com.relojcontrol.reloj_control.dto.ResumenAsistenciaDTO;
 import com.relojcontrol.reloj_control.service.AsistenciaService;
+import com.relojcontrol.reloj_control.service.IParticionAsistenciaService;
+import com.relojcontrol.reloj_control.service.IResumenDiarioService;
+import com.relojcontrol.reloj_control.service.ResumenCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,13 +23,19 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -35,20 +49,33 @@ import java.util.stream.Collectors;
 @Tag(name = "Asistencias", description = "API para gestión de asistencias")
 public class AsistenciaController {
     private static final Logger logger = LoggerFactory.getLogger(AsistenciaController.class);
+    private static final int MAX_RUTS_LOTE = 500;
 
     private final AsistenciaRepository asRepo;
     private final EmpleadoRepository eRepo;
     private final AsistenciaService asistenciaService;
     private final UsuarioRepository uRepo;
+    private final IResumenDiarioService resumenDiarioService;
+    private final ResumenCache resumenCache;
+    private final IParticionAsistenciaService particionService;
+    private final ObjectMapper objectMapper;
 
     public AsistenciaController(AsistenciaRepository asRepo,
                                 EmpleadoRepository eRepo,
                                 AsistenciaService asistenciaService,
-                                UsuarioRepository uRepo) {
+                                UsuarioRepository uRepo,
+                                IResumenDiarioService resumenDiarioService,
+                                ResumenCache resumenCache,
+                                IParticionAsistenciaService particionService,
+                                ObjectMapper objectMapper) {
         this.asRepo = asRepo;
         this.eRepo = eRepo;
         this.asistenciaService = asistenciaService;
         this.uRepo = uRepo;
+        this.resumenDiarioService = resumenDiarioService;
+        this.resumenCache = resumenCache;
+        this.particionService = particionService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -96,16 +123,18 @@ public class AsistenciaController {
     public ResponseEntity<?> despuesdeHorario(@RequestParam(required = false) LocalDate inicio,
                                               @RequestParam(required = false) LocalDate fin,
                                               @RequestParam(required = false) LocalTime horario) {
+        if (inicio == null || fin == null || horario == null) {
+            return ResponseEntity.badRequest().body("Las fechas de inicio y fin y el horario son requeridos");
+        }
         try {
+            // La consulta ya trae solo entradas oficiales
             List<Asistencia> asistencias = asRepo.findAsistenciasEnRangoFechasYDespuesDeHoraLimiteNativa(inicio, fin, horario);
             HashMap<Empleado, Integer> empleados = new HashMap<>();
             asistencias.forEach(asistencia -> {
-                if(asistencia.getTipo().equals("ENTRADA") && asistencia.getEsOficial()){
-                    if (empleados.containsKey(asistencia.getEmpleado())){
-                        empleados.put(asistencia.getEmpleado(), empleados.get(asistencia.getEmpleado())+1);
-                    } else {
-                        empleados.put(asistencia.getEmpleado(), 1);
-                    }
+                if (empleados.containsKey(asistencia.getEmpleado())){
+                    empleados.put(asistencia.getEmpleado(), empleados.get(asistencia.getEmpleado())+1);
+                } else {
+                    empleados.put(asistencia.getEmpleado(), 1);
                 }
             });
             List<EmpleadoAtrasosDTO> empleadoAtrasos =empleados.keySet().stream().map(empleado -> new EmpleadoAtrasosDTO(empleado, empleados.get(empleado))).toList();
@@ -181,18 +210,10 @@ public class AsistenciaController {
                 }
             }
 
-            List<ResumenAsistenciaDTO> resumen = asistenciaService.resumenPorRutParcialYRangoFechas(rut, inicio, fin);
+            List<ResumenAsistenciaDTO> resumen = asistenciaService.resumenPorRutParcialYRangoFechas(rut == null ? "" : rut, inicio, fin);
 
-            // Ordenar resumen por fecha y luego por nombre de empleado
+            // El resumen ya viene ordenado por fecha y luego por nombre de empleado desde la base
             if (!resumen.isEmpty()) {
-                resumen.sort((a, b) -> {
-                    int fechaComp = a.getFecha().compareTo(b.getFecha());
-                    if (fechaComp == 0) {
-                        return a.getNombre().compareTo(b.getNombre());
-                    }
-                    return fechaComp;
-                });
-
                 logger.info("Resumen generado exitosamente con {} registros", resumen.size());
                 return ResponseEntity.ok(resumen);
             } else {
@@ -215,6 +236,213 @@ public class AsistenciaController {
         }
     }
 
+    /**
+     * Obtiene el resumen de asistencias por páginas, ordenado por fecha y nombre.
+     *
+     * @param inicio Fecha inicio (formato: yyyy-MM-dd)
+     * @param fin    Fecha fin (formato: yyyy-MM-dd)
+     * @param rut    RUT del empleado (parcial o completo)
+     * @param cursor Cursor devuelto por la página anterior; sin él se obtiene la primera
+     * @param tamano Cantidad de registros por página (máximo 1000)
+     * @return Página de resúmenes y cursor de la siguiente
+     */
+    @Operation(summary = "Obtener resumen de asistencias paginado",
+            description = "Obtiene el resumen de asistencias por páginas, usando el cursor de la página anterior")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página obtenida exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Parámetros inválidos")
+    })
+    @PreAuthorize(
+            "hasRole('ADMIN') or #rut == authentication.principal.username"
+    )
+    @GetMapping("/resumen/pagina")
+    public ResponseEntity<?> obtenerResumenPaginado(
+            @RequestParam LocalDate inicio,
+            @RequestParam(required = false) LocalDate fin,
+            @RequestParam(required = false) String rut,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int tamano) {
+        try {
+            if (tamano < 1 || tamano > 1000) {
+                return ResponseEntity.badRequest().body("El tamaño de página debe estar entre 1 y 1000");
+            }
+            return ResponseEntity.ok(asistenciaService.resumenPaginado(rut, inicio, fin != null ? fin : inicio, cursor, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al generar resumen paginado", e);
+            return ResponseEntity.badRequest().body("Error al generar resumen: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene el resumen de asistencias como un arreglo JSON que se escribe a medida que se lee,
+     * para rangos grandes que no conviene armar completos en memoria.
+     *
+     * @param inicio Fecha inicio (formato: yyyy-MM-dd)
+     * @param fin    Fecha fin (formato: yyyy-MM-dd)
+     * @param rut    RUT del empleado (parcial o completo)
+     */
+    @Operation(summary = "Obtener resumen de asistencias en streaming",
+            description = "Escribe el resumen de asistencias como un arreglo JSON a medida que se lee, ordenado por fecha y nombre")
+    @PreAuthorize(
+            "hasRole('ADMIN') or #rut == authentication.principal.username"
+    )
+    @GetMapping("/resumen/stream")
+    public ResponseEntity<StreamingResponseBody> obtenerResumenStream(
+            @RequestParam LocalDate inicio,
+            @RequestParam(required = false) LocalDate fin,
+            @RequestParam(required = false) String rut) {
+        LocalDate hasta = fin != null ? fin : inicio;
+        StreamingResponseBody cuerpo = salida -> {
+            // Sin cierre automático: si el recorrido falla, el arreglo queda abierto y el cliente no
+            // confunde una respuesta cortada con un resumen completo
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(salida)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+                json.writeStartArray();
+                asistenciaService.recorrerResumen(rut, inicio, hasta, fila -> {
+                    try {
+                        json.writeObject(fila);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            } catch (UncheckedIOException e) {
+                // El cliente cerró la conexión; la transacción de lectura ya se cerró al salir del recorrido
+                logger.warn("Se interrumpió el envío del resumen: {}", e.getMessage());
+            } catch (RuntimeException e) {
+                logger.error("Error al generar el resumen en streaming entre {} y {}", inicio, hasta, e);
+                throw e;
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(cuerpo);
+    }
+
+    /**
+     * Vuelve a calcular el resumen diario guardado de todos los empleados en un rango de fechas.
+     * Se usa tras cambiar los parámetros de la jornada o si un resumen quedó desactualizado.
+     * La reconstrucción se hace en segundo plano, de a una y en orden con las que siguen a un cambio
+     * de reglas; su resultado y el tiempo de cada fase quedan en el registro.
+     *
+     * @param inicio Fecha inicio (formato: yyyy-MM-dd)
+     * @param fin    Fecha fin (formato: yyyy-MM-dd)
+     * @return El rango programado
+     */
+    @Operation(summary = "Reconstruir resumen diario",
+            description = "Programa el recálculo del resumen diario guardado de todos los empleados en un rango de fechas")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Reconstrucción programada"),
+            @ApiResponse(responseCode = "400", description = "Rango de fechas inválido")
+    })
+    @PreAuthorize(
+            "hasRole('ADMIN')"
+    )
+    @PostMapping("/resumen/reconstruir")
+    public ResponseEntity<?> reconstruirResumen(
+            @RequestParam LocalDate inicio,
+            @RequestParam(required = false) LocalDate fin) {
+        try {
+            LocalDate hasta = fin != null ? fin : inicio;
+            resumenDiarioService.encolarReconstruccion(inicio, hasta);
+            logger.info("Reconstrucción del resumen diario entre {} y {} programada", inicio, hasta);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("inicio", inicio, "fin", hasta));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Resúmenes de una lista de empleados (por ejemplo, el equipo de un supervisor) en una sola petición,
+     * agrupados por empleado, en lugar de pedir el resumen de cada RUT por separado.
+     *
+     * @param pedido RUT completos (hasta {@value #MAX_RUTS_LOTE}) y rango de fechas; sin fin se usa el inicio
+     * @return Un elemento por empleado encontrado, en el orden pedido, con sus resúmenes ordenados por fecha
+     */
+    @Operation(summary = "Obtener resumen de varios empleados",
+            description = "Obtiene en una sola consulta los resúmenes de una lista de RUT, agrupados por empleado")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resúmenes obtenidos exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Pedido inválido")
+    })
+    @PreAuthorize(
+            "hasRole('ADMIN')"
+    )
+    @PostMapping("/resumen/lote")
+    public ResponseEntity<?> obtenerResumenLote(@RequestBody ResumenLoteDTO pedido) {
+        if (pedido.getInicio() == null) {
+            return ResponseEntity.badRequest().body("La fecha de inicio es requerida");
+        }
+        LocalDate hasta = pedido.getFin() != null ? pedido.getFin() : pedido.getInicio();
+        if (hasta.isBefore(pedido.getInicio())) {
+            return ResponseEntity.badRequest().body("La fecha de inicio no puede ser posterior a la fecha final");
+        }
+        if (pedido.getRuts() == null || pedido.getRuts().isEmpty()) {
+            return ResponseEntity.badRequest().body("Debe indicar al menos un RUT");
+        }
+        Set<String> ruts = pedido.getRuts().stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(rut -> !rut.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (ruts.size() > MAX_RUTS_LOTE) {
+            return ResponseEntity.badRequest().body("Se pueden pedir hasta " + MAX_RUTS_LOTE + " RUT por petición");
+        }
+        logger.info("Obteniendo resumen de {} empleados entre {} y {}", ruts.size(), pedido.getInicio(), hasta);
+        return ResponseEntity.ok(asistenciaService.resumenPorRuts(ruts, pedido.getInicio(), hasta));
+    }
+
+    /**
+     * Aciertos, fallos, expulsiones e invalidaciones del caché de /resumen desde que inició la aplicación.
+     */
+    @Operation(summary = "Estadísticas del caché de resúmenes",
+            description = "Tasa de aciertos, expulsiones por tamaño e invalidaciones por cambios en los datos")
+    @PreAuthorize(
+            "hasRole('ADMIN')"
+    )
+    @GetMapping("/resumen/cache")
+    public EstadisticasCacheDTO estadisticasCacheResumen() {
+        return resumenCache.estadisticas();
+    }
+
+    /**
+     * Particiones mensuales de la tabla de asistencias, de la más antigua a la más reciente.
+     */
+    @Operation(summary = "Listar particiones mensuales",
+            description = "Particiones conectadas de la tabla de asistencias con sus filas estimadas")
+    @PreAuthorize(
+            "hasRole('ADMIN')"
+    )
+    @GetMapping("/particiones")
+    public List<ParticionAsistenciaDTO> listarParticiones() {
+        return particionService.listar();
+    }
+
+    /**
+     * Desconecta la partición de un mes cerrado para archivarla. Queda como una tabla independiente
+     * (asistencias_aaaa_mm) que puede respaldarse y eliminarse; los resúmenes diarios ya guardados se conservan.
+     *
+     * @param mes Mes en formato aaaa-mm, anterior al actual
+     */
+    @Operation(summary = "Archivar un mes de marcas",
+            description = "Desconecta la partición del mes sin bloquear el resto de la tabla")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Partición desconectada"),
+            @ApiResponse(responseCode = "400", description = "Mes actual o futuro, o sin partición conectada")
+    })
+    @PreAuthorize(
+            "hasRole('ADMIN')"
+    )
+    @PostMapping("/particiones/{mes}/desconectar")
+    public ResponseEntity<?> desconectarParticion(@PathVariable YearMonth mes) {
+        try {
+            particionService.desconectar(mes);
+            return ResponseEntity.ok("Partición de " + mes + " desconectada");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     /**
      * Actualiza el estado de una asistencia.
      *
@@ -304,10 +532,10 @@ public class AsistenciaController {
             // Buscar por RUT exacto o parcial
             if (rut.contains("-")) {
                 // RUT completo
-                marcas = asRepo.findAllByEmpleadoRutAndFechaBetween(rut, desde, hasta);
+                marcas = asRepo.findAllByEmpleadoRutEnRango(rut, desde, hasta);
             } else {
                 // RUT parcial
-                marcas = asRepo.findAllByRutParcialAndFechaBetween(rut, desde, hasta);
+                marcas = asRepo.findAllByRutParcialEnRango(rut, desde, hasta);
             }
 
             // Ordenar marcas por fecha y hora
@@ -2,17 +2,34 @@ package com.relojcontrol.reloj_control.controller;
 
 import com.relojcontrol.reloj_control.model.Empleado;
 import com.relojcontrol.reloj_control.repository.EmpleadoRepository;
+import com.relojcontrol.reloj_control.service.IHorarioService;
+import com.relojcontrol.reloj_control.service.ReglasResumenModificadasEvent;
+import com.relojcontrol.reloj_control.service.ResumenCache;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/empleados")
 public class EmpleadoController {
     private final EmpleadoRepository repo;
-    public EmpleadoController(EmpleadoRepository repo) { this.repo = repo; }
+    private final IHorarioService horarioService;
+    private final ResumenCache resumenCache;
+    private final ApplicationEventPublisher eventos;
+
+    public EmpleadoController(EmpleadoRepository repo, IHorarioService horarioService,
+                              ResumenCache resumenCache, ApplicationEventPublisher eventos) {
+        this.repo = repo;
+        this.horarioService = horarioService;
+        this.resumenCache = resumenCache;
+        this.eventos = eventos;
+    }
 
     @GetMapping
     @PreAuthorize(
@@ -24,7 +41,12 @@ public class EmpleadoController {
     @PreAuthorize(
             "hasRole('ADMIN')"
     )
-    public Empleado crear(@RequestBody Empleado e) { return repo.save(e); }
+    public Empleado crear(@RequestBody Empleado e) {
+        Empleado guardado = repo.save(e);
+        // El horario de cada empleado se resuelve por su unidad en la copia compilada
+        horarioService.recargar();
+        return guardado;
+    }
 
     @GetMapping("/{id}")
     @PreAuthorize(
@@ -43,11 +65,21 @@ public class EmpleadoController {
     public ResponseEntity<Empleado> actualizar(@PathVariable Integer id,
                                                @RequestBody Empleado cambios) {
         return repo.findById(id).map(e -> {
+            String rutAnterior = e.getRut();
+            String unidadAnterior = e.getUnidad();
             e.setNombreCompleto(cambios.getNombreCompleto());
             e.setRut(cambios.getRut());
             e.setUnidad(cambios.getUnidad());
             e.setCargo(cambios.getCargo());
-            return ResponseEntity.ok(repo.save(e));
+            Empleado guardado = repo.save(e);
+            horarioService.recargar();
+            // El caché guarda el RUT y el nombre en cada fila, bajo el RUT que se consultó
+            resumenCache.invalidar(List.of(rutAnterior, guardado.getRut()), LocalDate.MIN, LocalDate.MAX);
+            if (!Objects.equals(unidadAnterior, guardado.getUnidad())) {
+                // Con otra unidad puede regir otro horario: su período abierto se recalcula con la copia recargada
+                eventos.publishEvent(ReglasResumenModificadasEvent.periodoAbierto("unidad", guardado.getIdEmpleado()));
+            }
+            return ResponseEntity.ok(guardado);
         }).orElse(ResponseEntity.notFound().build());
     }
 
@@ -56,7 +88,10 @@ public class EmpleadoController {
             "hasRole('ADMIN')"
     )
     public ResponseEntity<Void> borrar(@PathVariable Integer id) {
+        Optional<String> rut = repo.findById(id).map(Empleado::getRut);
         repo.deleteById(id);
+        horarioService.recargar();
+        rut.ifPresent(r -> resumenCache.invalidar(List.of(r), LocalDate.MIN, LocalDate.MAX));
         return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,114 @@
+package com.relojcontrol.reloj_control.controller;
+
+import com.relojcontrol.reloj_control.exception.ConflictException;
+import com.relojcontrol.reloj_control.model.Horario;
+import com.relojcontrol.reloj_control.service.IHorarioService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/api/horarios")
+@CrossOrigin(origins = "*")
+@Tag(name = "Horarios", description = "API para gestión de horarios de trabajo")
+public class HorarioController {
+
+    private final IHorarioService horarioService;
+
+    public HorarioController(IHorarioService horarioService) {
+        this.horarioService = horarioService;
+    }
+
+    @GetMapping
+    @PreAuthorize(
+            "hasRole('ADMIN')"
+    )
+    public List<Horario> listar() {
+        return horarioService.listar();
+    }
+
+    @Operation(summary = "Crear horario",
+            description = "Crea un horario con un ciclo de días desde inicioCiclo (7 para uno semanal, el largo de la rotación para turnos rotativos), " +
+                    "asignado a las unidades y empleados indicados. Los resúmenes ya calculados se corrigen con /api/asistencias/resumen/reconstruir.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Horario creado"),
+            @ApiResponse(responseCode = "400", description = "Horario inválido"),
+            @ApiResponse(responseCode = "409", description = "El nombre, una unidad o un empleado ya tiene otro horario")
+    })
+    @PostMapping
+    @PreAuthorize(
+            "hasRole('ADMIN')"
+    )
+    public ResponseEntity<?> crear(@RequestBody Horario horario) {
+        return responder(() -> horarioService.crear(horario));
+    }
+
+    @Operation(summary = "Actualizar horario")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Horario actualizado"),
+            @ApiResponse(responseCode = "400", description = "Horario inválido"),
+            @ApiResponse(responseCode = "404", description = "Horario no encontrado"),
+            @ApiResponse(responseCode = "409", description = "El nombre, una unidad o un empleado ya tiene otro horario")
+    })
+    @PutMapping("/{id}")
+    @PreAuthorize(
+            "hasRole('ADMIN')"
+    )
+    public ResponseEntity<?> actualizar(@PathVariable Long id, @RequestBody Horario cambios) {
+        return responder(() -> horarioService.actualizar(id, cambios));
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize(
+            "hasRole('ADMIN')"
+    )
+    public ResponseEntity<?> eliminar(@PathVariable Long id) {
+        return responder(() -> {
+            horarioService.eliminar(id);
+            return null;
+        });
+    }
+
+    @Operation(summary = "Asignar horario a un empleado",
+            description = "La asignación directa tiene prioridad sobre el horario de la unidad del empleado.")
+    @PutMapping("/{id}/empleados/{idEmpleado}")
+    @PreAuthorize(
+            "hasRole('ADMIN')"
+    )
+    public ResponseEntity<?> asignarEmpleado(@PathVariable Long id, @PathVariable Long idEmpleado) {
+        return responder(() -> horarioService.asignarEmpleado(id, idEmpleado));
+    }
+
+    @Operation(summary = "Quitar el horario asignado a un empleado",
+            description = "El empleado vuelve a usar el horario de su unidad o el predeterminado.")
+    @DeleteMapping("/empleados/{idEmpleado}")
+    @PreAuthorize(
+            "hasRole('ADMIN')"
+    )
+    public ResponseEntity<?> quitarEmpleado(@PathVariable Long idEmpleado) {
+        return responder(() -> {
+            horarioService.quitarEmpleado(idEmpleado);
+            return null;
+        });
+    }
+
+    private static ResponseEntity<?> responder(Supplier<Object> accion) {
+        try {
+            Object resultado = accion.get();
+            return resultado != null ? ResponseEntity.ok(resultado) : ResponseEntity.noContent().build();
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (ConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+}
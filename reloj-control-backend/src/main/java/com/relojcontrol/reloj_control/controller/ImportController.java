@@ -1,37 +1,54 @@
 package com.relojcontrol.reloj_control.controller;
 
-import com.relojcontrol.reloj_control.service.FileImportService;            // <— import para tu servicio de importación
-import com.relojcontrol.reloj_control.service.RegistroActividadService;    // <— import para tu servicio de logs
-import jakarta.servlet.http.HttpServletRequest;                            // <— import para HttpServletRequest
+import com.relojcontrol.reloj_control.dto.ImportacionJobDTO;
+import com.relojcontrol.reloj_control.exception.ConflictException;
+import com.relojcontrol.reloj_control.model.enums.ModoImportacionEnum;
+import com.relojcontrol.reloj_control.service.IImportacionJobService;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.security.Principal;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api")
 public class ImportController {
 
-    private final FileImportService importService;
-    private final RegistroActividadService logService;
-    private final HttpServletRequest request;
+    private final IImportacionJobService jobService;
 
-    public ImportController(FileImportService importService,
-                            RegistroActividadService logService,
-                            HttpServletRequest request) {
-        this.importService = importService;
-        this.logService    = logService;
-        this.request       = request;
+    public ImportController(IImportacionJobService jobService) {
+        this.jobService = jobService;
     }
 
+    /**
+     * Encola la importación del archivo y responde de inmediato con el id del trabajo.
+     * El avance se consulta en /api/importar/jobs/{id}.
+     * Con modo=COPY el archivo se carga con COPY y una fusión en SQL, para cargas históricas grandes.
+     */
     @PostMapping("/importar")
     @PreAuthorize(
             "hasRole('ADMIN')"
     )
-    public ResponseEntity<?> importar(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> importar(@RequestParam("file") MultipartFile file,
+                                      @RequestParam(value = "modo", defaultValue = "LOTES") ModoImportacionEnum modo,
+                                      Principal principal) {
         try {
-            importService.importarDat(file);
-            return ResponseEntity.ok("Importación exitosa");
+            ImportacionJobDTO job = jobService.encolar(file, principal != null ? principal.getName() : null, modo);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (TaskRejectedException e) {
+            return ResponseEntity
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Hay demasiadas importaciones en curso, intente nuevamente en unos minutos");
+        } catch (ConflictException e) {
+            return ResponseEntity
+                    .status(HttpStatus.CONFLICT)
+                    .body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity
                     .badRequest()
@@ -39,5 +56,53 @@ public class ImportController {
         }
     }
 
-}
+    /**
+     * Encola la importación de un archivo enviado como cuerpo de la petición (sin multipart), como /importar.
+     * Acepta .dat plano o comprimido con gzip o zip (que se importa en modo FLUJO) y no tiene el límite de
+     * tamaño de las subidas multipart. Responde al terminar de recibir el archivo, con el id del trabajo.
+     */
+    @PostMapping(value = "/importar/stream", consumes = MediaType.ALL_VALUE)
+    @PreAuthorize(
+            "hasRole('ADMIN')"
+    )
+    public ResponseEntity<?> importarFlujo(InputStream cuerpo,
+                                           @RequestParam(value = "nombre", defaultValue = "marcas.dat") String nombre,
+                                           @RequestParam(value = "modo", defaultValue = "LOTES") ModoImportacionEnum modo,
+                                           Principal principal) {
+        try {
+            ImportacionJobDTO job = jobService.encolarFlujo(cuerpo, nombre, principal != null ? principal.getName() : null, modo);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (TaskRejectedException e) {
+            return ResponseEntity
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Hay demasiadas importaciones en curso, intente nuevamente en unos minutos");
+        } catch (ConflictException e) {
+            return ResponseEntity
+                    .status(HttpStatus.CONFLICT)
+                    .body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity
+                    .badRequest()
+                    .body("Error al importar: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/importar/jobs/{id}")
+    @PreAuthorize(
+            "hasRole('ADMIN')"
+    )
+    public ResponseEntity<ImportacionJobDTO> obtenerJob(@PathVariable("id") Long id) {
+        return jobService.obtener(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
 
+    @GetMapping("/importar/jobs")
+    @PreAuthorize(
+            "hasRole('ADMIN')"
+    )
+    public List<ImportacionJobDTO> listarJobs() {
+        return jobService.listarRecientes();
+    }
+
+}
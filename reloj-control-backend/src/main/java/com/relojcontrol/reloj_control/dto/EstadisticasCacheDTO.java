@@ -0,0 +1,13 @@
+package com.relojcontrol.reloj_control.dto;
+
+/**
+ * Contadores del caché de resúmenes desde que inició la aplicación.
+ *
+ * @param fallos         Consultas que no estaban en el caché, incluidas las compartidas
+ * @param compartidas    Fallos que esperaron el resultado de la misma consulta ya en curso
+ * @param expulsiones    Entradas quitadas para no superar filasMaximas
+ * @param invalidaciones Entradas quitadas porque cambiaron los datos que cubren
+ */
+public record EstadisticasCacheDTO(long aciertos, long fallos, long compartidas, double tasaAciertos, long expulsiones,
+                                   long invalidaciones, int entradas, long filas, long filasMaximas) {
+}
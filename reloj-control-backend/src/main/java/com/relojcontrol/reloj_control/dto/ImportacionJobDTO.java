@@ -0,0 +1,75 @@
+package com.relojcontrol.reloj_control.dto;
+
+import com.relojcontrol.reloj_control.model.ImportacionJob;
+import com.relojcontrol.reloj_control.model.enums.EstadoImportacionEnum;
+import com.relojcontrol.reloj_control.model.enums.ModoImportacionEnum;
+
+import java.time.LocalDateTime;
+
+public class ImportacionJobDTO {
+
+    private Long idJob;
+    private String nombreArchivo;
+    private String runUsuario;
+    private EstadoImportacionEnum estado;
+    private ModoImportacionEnum modo;
+    private long desplazamientoInicial;
+    private long lineasLeidas;
+    private long marcasInsertadas;
+    private long duplicadas;
+    private long errores;
+    private long empleadosCreados;
+    private double filasPorSegundo;
+    private String mensajeError;
+    private LocalDateTime fechaCreacion;
+    private LocalDateTime fechaInicio;
+    private LocalDateTime fechaTermino;
+
+    public ImportacionJobDTO(ImportacionJob job) {
+        this.idJob = job.getIdJob();
+        this.nombreArchivo = job.getNombreArchivo();
+        this.runUsuario = job.getRunUsuario();
+        this.estado = job.getEstado();
+        this.modo = job.getModo();
+        this.desplazamientoInicial = job.getDesplazamientoInicial();
+        this.lineasLeidas = job.getLineasLeidas();
+        this.marcasInsertadas = job.getMarcasInsertadas();
+        this.duplicadas = job.getDuplicadas();
+        this.errores = job.getErrores();
+        this.empleadosCreados = job.getEmpleadosCreados();
+        this.filasPorSegundo = job.getFilasPorSegundo();
+        this.mensajeError = job.getMensajeError();
+        this.fechaCreacion = job.getFechaCreacion();
+        this.fechaInicio = job.getFechaInicio();
+        this.fechaTermino = job.getFechaTermino();
+    }
+
+    /**
+     * Reemplaza los contadores guardados por los de la importación en curso.
+     */
+    public void actualizarProgreso(ResultadoImportacionDTO progreso) {
+        this.lineasLeidas = progreso.getLineasLeidas();
+        this.marcasInsertadas = progreso.getMarcasInsertadas();
+        this.duplicadas = progreso.getDuplicadas();
+        this.errores = progreso.getErrores();
+        this.empleadosCreados = progreso.getEmpleadosCreados();
+        this.filasPorSegundo = progreso.getFilasPorSegundo();
+    }
+
+    public Long getIdJob() { return idJob; }
+    public String getNombreArchivo() { return nombreArchivo; }
+    public String getRunUsuario() { return runUsuario; }
+    public EstadoImportacionEnum getEstado() { return estado; }
+    public ModoImportacionEnum getModo() { return modo; }
+    public long getDesplazamientoInicial() { return desplazamientoInicial; }
+    public long getLineasLeidas() { return lineasLeidas; }
+    public long getMarcasInsertadas() { return marcasInsertadas; }
+    public long getDuplicadas() { return duplicadas; }
+    public long getErrores() { return errores; }
+    public long getEmpleadosCreados() { return empleadosCreados; }
+    public double getFilasPorSegundo() { return filasPorSegundo; }
+    public String getMensajeError() { return mensajeError; }
+    public LocalDateTime getFechaCreacion() { return fechaCreacion; }
+    public LocalDateTime getFechaInicio() { return fechaInicio; }
+    public LocalDateTime getFechaTermino() { return fechaTermino; }
+}
@@ -0,0 +1,9 @@
+package com.relojcontrol.reloj_control.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista mínima de una marca ya almacenada, usada al importar para deduplicar y clasificar.
+ */
+public record MarcaRegistradaDTO(Long idEmpleado, LocalDateTime fechaHora) {
+}
@@ -0,0 +1,10 @@
+package com.relojcontrol.reloj_control.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista mínima de una marca con lo necesario para calcular el resumen diario, sin cargar la entidad ni su empleado.
+ */
+public record MarcaResumenDTO(Long id, Long idEmpleado, LocalDateTime fechaHora, String tipo, String estado,
+                              Boolean esOficial, String observaciones) {
+}
@@ -0,0 +1,36 @@
+package com.relojcontrol.reloj_control.dto;
+
+import java.util.List;
+
+/**
+ * Una página del resumen de asistencia, ordenada por fecha y nombre.
+ * Para pedir la siguiente se envía {@code siguienteCursor}; si es null no hay más páginas.
+ */
+public class PaginaResumenDTO {
+    private List<ResumenAsistenciaDTO> data;
+    private String siguienteCursor;
+
+    public PaginaResumenDTO() {
+    }
+
+    public PaginaResumenDTO(List<ResumenAsistenciaDTO> data, String siguienteCursor) {
+        this.data = data;
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    public List<ResumenAsistenciaDTO> getData() {
+        return data;
+    }
+
+    public void setData(List<ResumenAsistenciaDTO> data) {
+        this.data = data;
+    }
+
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    public void setSiguienteCursor(String siguienteCursor) {
+        this.siguienteCursor = siguienteCursor;
+    }
+}
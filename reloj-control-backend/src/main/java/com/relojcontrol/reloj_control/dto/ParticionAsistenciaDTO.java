@@ -0,0 +1,11 @@
+package com.relojcontrol.reloj_control.dto;
+
+import java.time.YearMonth;
+
+/**
+ * Partición mensual de asistencias.
+ *
+ * @param filasEstimadas Filas según las estadísticas de PostgreSQL; 0 si la partición aún no se analiza
+ */
+public record ParticionAsistenciaDTO(String nombre, YearMonth mes, long filasEstimadas) {
+}
@@ -0,0 +1,98 @@
+package com.relojcontrol.reloj_control.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Resultado de recalcular el resumen diario de un rango, con el tiempo de cada fase.
+ */
+public class ReconstruccionResumenDTO {
+    private LocalDate inicio;
+    private LocalDate fin;
+    private long registros;
+    // Empleado-días que no se pudieron calcular y quedaron sin resumen; el detalle está en el registro
+    private long diasConError;
+    private int paralelismo;
+    private long msConsulta;
+    private long msCalculo;
+    private long msEscritura;
+
+    public ReconstruccionResumenDTO() {
+    }
+
+    public ReconstruccionResumenDTO(LocalDate inicio, LocalDate fin, int paralelismo) {
+        this.inicio = inicio;
+        this.fin = fin;
+        this.paralelismo = paralelismo;
+    }
+
+    public LocalDate getInicio() {
+        return inicio;
+    }
+
+    public void setInicio(LocalDate inicio) {
+        this.inicio = inicio;
+    }
+
+    public LocalDate getFin() {
+        return fin;
+    }
+
+    public void setFin(LocalDate fin) {
+        this.fin = fin;
+    }
+
+    public long getRegistros() {
+        return registros;
+    }
+
+    public void setRegistros(long registros) {
+        this.registros = registros;
+    }
+
+    public long getDiasConError() {
+        return diasConError;
+    }
+
+    public void setDiasConError(long diasConError) {
+        this.diasConError = diasConError;
+    }
+
+    public int getParalelismo() {
+        return paralelismo;
+    }
+
+    public void setParalelismo(int paralelismo) {
+        this.paralelismo = paralelismo;
+    }
+
+    public long getMsConsulta() {
+        return msConsulta;
+    }
+
+    public void setMsConsulta(long msConsulta) {
+        this.msConsulta = msConsulta;
+    }
+
+    public long getMsCalculo() {
+        return msCalculo;
+    }
+
+    public void setMsCalculo(long msCalculo) {
+        this.msCalculo = msCalculo;
+    }
+
+    public long getMsEscritura() {
+        return msEscritura;
+    }
+
+    public void setMsEscritura(long msEscritura) {
+        this.msEscritura = msEscritura;
+    }
+
+    /**
+     * Tiempos por fase en el formato de la cabecera HTTP Server-Timing.
+     */
+    public String serverTiming() {
+        return "consulta;dur=" + msConsulta + ", calculo;dur=" + msCalculo + ", escritura;dur=" + msEscritura;
+    }
+}
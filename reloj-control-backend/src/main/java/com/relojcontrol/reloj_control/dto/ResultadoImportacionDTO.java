@@ -0,0 +1,89 @@
+package com.relojcontrol.reloj_control.dto;
+
+/**
+ * Estadísticas de una importación de marcas desde un archivo del reloj.
+ */
+public class ResultadoImportacionDTO {
+    private long lineasLeidas;
+    private long marcasInsertadas;
+    private long duplicadas;
+    private long errores;
+    private long empleadosCreados;
+    private long duracionMs;
+
+    public ResultadoImportacionDTO() {
+    }
+
+    /**
+     * Suma las estadísticas de otro resultado (por ejemplo, de un lote) a este.
+     */
+    public void acumular(ResultadoImportacionDTO otro) {
+        this.lineasLeidas += otro.lineasLeidas;
+        this.marcasInsertadas += otro.marcasInsertadas;
+        this.duplicadas += otro.duplicadas;
+        this.errores += otro.errores;
+        this.empleadosCreados += otro.empleadosCreados;
+    }
+
+    public long getLineasLeidas() {
+        return lineasLeidas;
+    }
+
+    public void setLineasLeidas(long lineasLeidas) {
+        this.lineasLeidas = lineasLeidas;
+    }
+
+    public long getMarcasInsertadas() {
+        return marcasInsertadas;
+    }
+
+    public void setMarcasInsertadas(long marcasInsertadas) {
+        this.marcasInsertadas = marcasInsertadas;
+    }
+
+    public long getDuplicadas() {
+        return duplicadas;
+    }
+
+    public void setDuplicadas(long duplicadas) {
+        this.duplicadas = duplicadas;
+    }
+
+    public long getErrores() {
+        return errores;
+    }
+
+    public void setErrores(long errores) {
+        this.errores = errores;
+    }
+
+    public long getEmpleadosCreados() {
+        return empleadosCreados;
+    }
+
+    public void setEmpleadosCreados(long empleadosCreados) {
+        this.empleadosCreados = empleadosCreados;
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public void setDuracionMs(long duracionMs) {
+        this.duracionMs = duracionMs;
+    }
+
+    // Líneas procesadas por segundo durante toda la importación
+    public double getFilasPorSegundo() {
+        if (duracionMs <= 0) {
+            return lineasLeidas;
+        }
+        return lineasLeidas * 1000.0 / duracionMs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d líneas leídas, %d marcas insertadas, %d duplicadas, %d errores, %d empleados creados en %d ms (%.0f filas/s)",
+                lineasLeidas, marcasInsertadas, duplicadas, errores, empleadosCreados, duracionMs, getFilasPorSegundo());
+    }
+}
@@ -0,0 +1,45 @@
+package com.relojcontrol.reloj_control.dto;
+
+import java.util.List;
+
+/**
+ * Resúmenes de un empleado en un rango de fechas, ordenados por fecha.
+ */
+public class ResumenEmpleadoDTO {
+    private String rut;
+    private String nombre;
+    private List<ResumenAsistenciaDTO> resumenes;
+
+    public ResumenEmpleadoDTO() {
+    }
+
+    public ResumenEmpleadoDTO(String rut, String nombre, List<ResumenAsistenciaDTO> resumenes) {
+        this.rut = rut;
+        this.nombre = nombre;
+        this.resumenes = resumenes;
+    }
+
+    public String getRut() {
+        return rut;
+    }
+
+    public void setRut(String rut) {
+        this.rut = rut;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public List<ResumenAsistenciaDTO> getResumenes() {
+        return resumenes;
+    }
+
+    public void setResumenes(List<ResumenAsistenciaDTO> resumenes) {
+        this.resumenes = resumenes;
+    }
+}
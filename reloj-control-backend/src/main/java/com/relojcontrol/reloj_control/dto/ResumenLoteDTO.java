@@ -0,0 +1,40 @@
+package com.relojcontrol.reloj_control.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Pedido de resúmenes de varios empleados a la vez, por RUT completo.
+ */
+public class ResumenLoteDTO {
+    private List<String> ruts;
+    private LocalDate inicio;
+    private LocalDate fin;
+
+    public ResumenLoteDTO() {
+    }
+
+    public List<String> getRuts() {
+        return ruts;
+    }
+
+    public void setRuts(List<String> ruts) {
+        this.ruts = ruts;
+    }
+
+    public LocalDate getInicio() {
+        return inicio;
+    }
+
+    public void setInicio(LocalDate inicio) {
+        this.inicio = inicio;
+    }
+
+    public LocalDate getFin() {
+        return fin;
+    }
+
+    public void setFin(LocalDate fin) {
+        this.fin = fin;
+    }
+}
@@ -4,7 +4,11 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "asistencias")
+@Table(name = "asistencias", uniqueConstraints = {
+        // Evita duplicar una marca del reloj al reimportar; incluye el tipo porque las
+        // justificaciones generan ENTRADA y SALIDA con la misma fecha/hora
+        @UniqueConstraint(name = "uk_asistencias_empleado_fecha_tipo", columnNames = {"empleado_id", "fecha_hora", "tipo"})
+})
 public class Asistencia {
 
     @Id
@@ -24,6 +28,7 @@ public class Asistencia {
     @Column
     private String estado = "AUTORIZADO"; // "AUTORIZADO", "RECHAZADO", "PENDIENTE"
 
+    // A lo más una oficial por empleado, día y tipo: índice único parcial de cada partición mensual (migraciones V4 y V5)
     @Column(name = "es_oficial")
     private Boolean esOficial;
 
@@ -0,0 +1,77 @@
+package com.relojcontrol.reloj_control.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Horario de trabajo: un ciclo de días que se repite desde {@code inicioCiclo}. Un horario semanal tiene
+ * 7 días y empieza un lunes; un turno rotativo tiene el largo de su rotación (por ejemplo 14 o 28 días).
+ * <p>
+ * Se asigna a empleados o a unidades; la asignación directa a un empleado tiene prioridad sobre la de
+ * su unidad, y quien no tiene ninguna usa el horario predeterminado de los parámetros del sistema.
+ */
+@Entity
+@Table(name = "horario")
+public class Horario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id_horario")
+    private Long idHorario;
+
+    @Column(nullable = false, unique = true)
+    private String nombre;
+
+    @Column(name = "inicio_ciclo", nullable = false)
+    private LocalDate inicioCiclo;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "horario_dia", joinColumns = @JoinColumn(name = "id_horario"))
+    @OrderColumn(name = "dia_ciclo")
+    private List<TurnoDia> dias = new ArrayList<>();
+
+    // Tramo nocturno, pagado al 50%; si el inicio es posterior al fin cruza la medianoche
+    @Column(name = "inicio_tramo_nocturno", nullable = false)
+    private LocalTime inicioTramoNocturno = LocalTime.of(21, 0);
+
+    @Column(name = "fin_tramo_nocturno", nullable = false)
+    private LocalTime finTramoNocturno = LocalTime.of(6, 0);
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "horario_unidad", joinColumns = @JoinColumn(name = "id_horario"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_horario_unidad", columnNames = "unidad"))
+    @Column(name = "unidad", nullable = false)
+    private Set<String> unidades = new HashSet<>();
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "horario_empleado", joinColumns = @JoinColumn(name = "id_horario"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_horario_empleado", columnNames = "id_empleado"))
+    @Column(name = "id_empleado", nullable = false)
+    private Set<Long> empleados = new HashSet<>();
+
+    public Horario() {
+    }
+
+    // Getters y setters
+    public Long getIdHorario() { return idHorario; }
+    public String getNombre() { return nombre; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+    public LocalDate getInicioCiclo() { return inicioCiclo; }
+    public void setInicioCiclo(LocalDate inicioCiclo) { this.inicioCiclo = inicioCiclo; }
+    public List<TurnoDia> getDias() { return dias; }
+    public void setDias(List<TurnoDia> dias) { this.dias = dias; }
+    public LocalTime getInicioTramoNocturno() { return inicioTramoNocturno; }
+    public void setInicioTramoNocturno(LocalTime inicioTramoNocturno) { this.inicioTramoNocturno = inicioTramoNocturno; }
+    public LocalTime getFinTramoNocturno() { return finTramoNocturno; }
+    public void setFinTramoNocturno(LocalTime finTramoNocturno) { this.finTramoNocturno = finTramoNocturno; }
+    public Set<String> getUnidades() { return unidades; }
+    public void setUnidades(Set<String> unidades) { this.unidades = unidades; }
+    public Set<Long> getEmpleados() { return empleados; }
+    public void setEmpleados(Set<Long> empleados) { this.empleados = empleados; }
+}
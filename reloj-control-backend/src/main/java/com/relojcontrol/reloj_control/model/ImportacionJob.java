@@ -0,0 +1,116 @@
+package com.relojcontrol.reloj_control.model;
+
+import com.relojcontrol.reloj_control.model.enums.EstadoImportacionEnum;
+import com.relojcontrol.reloj_control.model.enums.ModoImportacionEnum;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Importación de un archivo de marcas ejecutada en segundo plano.
+ * Se conserva al terminar (bien o con error) para poder revisarla después.
+ */
+@Entity
+@Table(name = "importacion_job")
+public class ImportacionJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id_job")
+    private Long idJob;
+
+    @Column(name = "nombre_archivo")
+    private String nombreArchivo;
+
+    @Column(name = "run_usuario", length = 20)
+    private String runUsuario;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoImportacionEnum estado;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private ModoImportacionEnum modo;
+
+    // Huella del comienzo del archivo, para registrar su punto de control al terminar
+    @Column(name = "huella_archivo", length = 64)
+    private String huellaArchivo;
+
+    // Byte desde el que se importó; mayor que 0 cuando el archivo ya se había importado en parte
+    @Column(name = "desplazamiento_inicial")
+    private long desplazamientoInicial;
+
+    @Column(name = "lineas_leidas")
+    private long lineasLeidas;
+
+    @Column(name = "marcas_insertadas")
+    private long marcasInsertadas;
+
+    private long duplicadas;
+
+    private long errores;
+
+    @Column(name = "empleados_creados")
+    private long empleadosCreados;
+
+    @Column(name = "filas_por_segundo")
+    private double filasPorSegundo;
+
+    @Column(name = "mensaje_error", length = 1000)
+    private String mensajeError;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_inicio")
+    private LocalDateTime fechaInicio;
+
+    @Column(name = "fecha_termino")
+    private LocalDateTime fechaTermino;
+
+    public ImportacionJob() {
+    }
+
+    public ImportacionJob(String nombreArchivo, String runUsuario, ModoImportacionEnum modo) {
+        this.nombreArchivo = nombreArchivo;
+        this.runUsuario = runUsuario;
+        this.modo = modo;
+        this.estado = EstadoImportacionEnum.EN_COLA;
+        this.fechaCreacion = LocalDateTime.now();
+    }
+
+    // Getters y setters
+    public Long getIdJob() { return idJob; }
+    public String getNombreArchivo() { return nombreArchivo; }
+    public void setNombreArchivo(String nombreArchivo) { this.nombreArchivo = nombreArchivo; }
+    public String getRunUsuario() { return runUsuario; }
+    public void setRunUsuario(String runUsuario) { this.runUsuario = runUsuario; }
+    public EstadoImportacionEnum getEstado() { return estado; }
+    public void setEstado(EstadoImportacionEnum estado) { this.estado = estado; }
+    public ModoImportacionEnum getModo() { return modo; }
+    public void setModo(ModoImportacionEnum modo) { this.modo = modo; }
+    public String getHuellaArchivo() { return huellaArchivo; }
+    public void setHuellaArchivo(String huellaArchivo) { this.huellaArchivo = huellaArchivo; }
+    public long getDesplazamientoInicial() { return desplazamientoInicial; }
+    public void setDesplazamientoInicial(long desplazamientoInicial) { this.desplazamientoInicial = desplazamientoInicial; }
+    public long getLineasLeidas() { return lineasLeidas; }
+    public void setLineasLeidas(long lineasLeidas) { this.lineasLeidas = lineasLeidas; }
+    public long getMarcasInsertadas() { return marcasInsertadas; }
+    public void setMarcasInsertadas(long marcasInsertadas) { this.marcasInsertadas = marcasInsertadas; }
+    public long getDuplicadas() { return duplicadas; }
+    public void setDuplicadas(long duplicadas) { this.duplicadas = duplicadas; }
+    public long getErrores() { return errores; }
+    public void setErrores(long errores) { this.errores = errores; }
+    public long getEmpleadosCreados() { return empleadosCreados; }
+    public void setEmpleadosCreados(long empleadosCreados) { this.empleadosCreados = empleadosCreados; }
+    public double getFilasPorSegundo() { return filasPorSegundo; }
+    public void setFilasPorSegundo(double filasPorSegundo) { this.filasPorSegundo = filasPorSegundo; }
+    public String getMensajeError() { return mensajeError; }
+    public void setMensajeError(String mensajeError) { this.mensajeError = mensajeError; }
+    public LocalDateTime getFechaCreacion() { return fechaCreacion; }
+    public void setFechaCreacion(LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+    public LocalDateTime getFechaInicio() { return fechaInicio; }
+    public void setFechaInicio(LocalDateTime fechaInicio) { this.fechaInicio = fechaInicio; }
+    public LocalDateTime getFechaTermino() { return fechaTermino; }
+    public void setFechaTermino(LocalDateTime fechaTermino) { this.fechaTermino = fechaTermino; }
+}
@@ -0,0 +1,67 @@
+package com.relojcontrol.reloj_control.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Hasta dónde se importó un archivo del reloj que va creciendo (el reloj agrega marcas al final
+ * del mismo .dat durante el mes). El archivo se reconoce por la huella de sus primeros bytes.
+ */
+@Entity
+@Table(name = "importacion_punto_control")
+public class PuntoControlImportacion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id_punto_control")
+    private Long idPuntoControl;
+
+    // SHA-256 en hexadecimal de los primeros bytes del archivo
+    @Column(name = "huella_prefijo", nullable = false, unique = true, length = 64)
+    private String huellaPrefijo;
+
+    @Column(name = "nombre_archivo")
+    private String nombreArchivo;
+
+    // Byte siguiente al último salto de línea importado; la próxima importación parte aquí
+    @Column(nullable = false)
+    private long desplazamiento;
+
+    // SHA-256 de los bytes inmediatamente anteriores al desplazamiento, para confirmar que el archivo solo creció
+    @Column(name = "huella_cola", nullable = false, length = 64)
+    private String huellaCola;
+
+    // Tamaño total del archivo importado, para reconocer una copia idéntica
+    @Column(nullable = false)
+    private long tamano;
+
+    @Column(name = "ultima_marca")
+    private LocalDateTime ultimaMarca;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    public PuntoControlImportacion() {
+    }
+
+    public PuntoControlImportacion(String huellaPrefijo) {
+        this.huellaPrefijo = huellaPrefijo;
+    }
+
+    // Getters y setters
+    public Long getIdPuntoControl() { return idPuntoControl; }
+    public String getHuellaPrefijo() { return huellaPrefijo; }
+    public void setHuellaPrefijo(String huellaPrefijo) { this.huellaPrefijo = huellaPrefijo; }
+    public String getNombreArchivo() { return nombreArchivo; }
+    public void setNombreArchivo(String nombreArchivo) { this.nombreArchivo = nombreArchivo; }
+    public long getDesplazamiento() { return desplazamiento; }
+    public void setDesplazamiento(long desplazamiento) { this.desplazamiento = desplazamiento; }
+    public String getHuellaCola() { return huellaCola; }
+    public void setHuellaCola(String huellaCola) { this.huellaCola = huellaCola; }
+    public long getTamano() { return tamano; }
+    public void setTamano(long tamano) { this.tamano = tamano; }
+    public LocalDateTime getUltimaMarca() { return ultimaMarca; }
+    public void setUltimaMarca(LocalDateTime ultimaMarca) { this.ultimaMarca = ultimaMarca; }
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+}
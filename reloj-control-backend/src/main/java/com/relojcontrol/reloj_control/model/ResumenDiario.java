@@ -0,0 +1,90 @@
+package com.relojcontrol.reloj_control.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Resumen ya calculado de la asistencia de un empleado en un día: entrada y salida oficiales,
+ * salida esperada y minutos extra. Se mantiene al escribir las marcas, para que los resúmenes
+ * se lean sin recalcularlos.
+ */
+@Entity
+@Table(name = "resumen_diario",
+        uniqueConstraints = @UniqueConstraint(name = "uk_resumen_diario_empleado_fecha", columnNames = {"empleado_id", "fecha"}),
+        indexes = @Index(name = "idx_resumen_diario_fecha", columnList = "fecha"))
+public class ResumenDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id_resumen")
+    private Long idResumen;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "empleado_id", nullable = false)
+    private Empleado empleado;
+
+    @Column(nullable = false)
+    private LocalDate fecha;
+
+    // Marca de salida, o la de entrada si no hay salida; es la que se edita desde el resumen
+    @Column(name = "id_asistencia")
+    private Long idAsistencia;
+
+    @Column
+    private String estado;
+
+    @Column
+    private LocalTime entrada;
+
+    @Column
+    private LocalTime salida;
+
+    @Column(name = "salida_esperada")
+    private LocalTime salidaEsperada;
+
+    @Column(name = "minutos_extra_25", nullable = false)
+    private int minutosExtra25;
+
+    @Column(name = "minutos_extra_50", nullable = false)
+    private int minutosExtra50;
+
+    @Column(name = "es_dia_especial", nullable = false)
+    private boolean esDiaEspecial;
+
+    @Column(length = 1000)
+    private String observaciones;
+
+    public ResumenDiario() {
+    }
+
+    public ResumenDiario(Empleado empleado, LocalDate fecha) {
+        this.empleado = empleado;
+        this.fecha = fecha;
+    }
+
+    // Getters y setters
+    public Long getIdResumen() { return idResumen; }
+    public Empleado getEmpleado() { return empleado; }
+    public void setEmpleado(Empleado empleado) { this.empleado = empleado; }
+    public LocalDate getFecha() { return fecha; }
+    public void setFecha(LocalDate fecha) { this.fecha = fecha; }
+    public Long getIdAsistencia() { return idAsistencia; }
+    public void setIdAsistencia(Long idAsistencia) { this.idAsistencia = idAsistencia; }
+    public String getEstado() { return estado; }
+    public void setEstado(String estado) { this.estado = estado; }
+    public LocalTime getEntrada() { return entrada; }
+    public void setEntrada(LocalTime entrada) { this.entrada = entrada; }
+    public LocalTime getSalida() { return salida; }
+    public void setSalida(LocalTime salida) { this.salida = salida; }
+    public LocalTime getSalidaEsperada() { return salidaEsperada; }
+    public void setSalidaEsperada(LocalTime salidaEsperada) { this.salidaEsperada = salidaEsperada; }
+    public int getMinutosExtra25() { return minutosExtra25; }
+    public void setMinutosExtra25(int minutosExtra25) { this.minutosExtra25 = minutosExtra25; }
+    public int getMinutosExtra50() { return minutosExtra50; }
+    public void setMinutosExtra50(int minutosExtra50) { this.minutosExtra50 = minutosExtra50; }
+    public boolean isEsDiaEspecial() { return esDiaEspecial; }
+    public void setEsDiaEspecial(boolean esDiaEspecial) { this.esDiaEspecial = esDiaEspecial; }
+    public String getObservaciones() { return observaciones; }
+    public void setObservaciones(String observaciones) { this.observaciones = observaciones; }
+}
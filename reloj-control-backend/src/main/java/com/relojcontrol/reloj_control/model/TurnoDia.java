@@ -0,0 +1,36 @@
+package com.relojcontrol.reloj_control.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.time.LocalTime;
+
+/**
+ * Un día del ciclo de un {@link Horario}: hora de entrada esperada y largo de la jornada.
+ * Sin minutos de jornada el día es libre.
+ */
+@Embeddable
+public class TurnoDia {
+
+    @Column(name = "hora_inicio")
+    private LocalTime horaInicio;
+
+    @Column(name = "minutos_jornada", nullable = false)
+    private int minutosJornada;
+
+    public TurnoDia() {
+    }
+
+    public TurnoDia(LocalTime horaInicio, int minutosJornada) {
+        this.horaInicio = horaInicio;
+        this.minutosJornada = minutosJornada;
+    }
+
+    public boolean esLibre() { return minutosJornada == 0; }
+
+    // Getters y setters
+    public LocalTime getHoraInicio() { return horaInicio; }
+    public void setHoraInicio(LocalTime horaInicio) { this.horaInicio = horaInicio; }
+    public int getMinutosJornada() { return minutosJornada; }
+    public void setMinutosJornada(int minutosJornada) { this.minutosJornada = minutosJornada; }
+}
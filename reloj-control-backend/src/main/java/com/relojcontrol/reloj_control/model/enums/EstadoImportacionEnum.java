@@ -0,0 +1,8 @@
+package com.relojcontrol.reloj_control.model.enums;
+
+public enum EstadoImportacionEnum {
+    EN_COLA,
+    EN_PROCESO,
+    COMPLETADO,
+    FALLIDO
+}
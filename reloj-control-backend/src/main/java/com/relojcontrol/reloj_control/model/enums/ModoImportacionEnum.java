@@ -0,0 +1,16 @@
+package com.relojcontrol.reloj_control.model.enums;
+
+/**
+ * Forma de cargar un archivo de marcas.
+ * LOTES clasifica en memoria y guarda por transacciones de tamaño fijo;
+ * PARALELO hace lo mismo repartiendo los empleados entre varios hilos;
+ * FLUJO procesa el archivo lote a lote a medida que se lee, sin cargarlo completo en memoria;
+ * COPY vuelca el archivo con COPY a una tabla de paso y lo fusiona con una sola sentencia,
+ * pensado para cargas históricas grandes.
+ */
+public enum ModoImportacionEnum {
+    LOTES,
+    PARALELO,
+    FLUJO,
+    COPY
+}
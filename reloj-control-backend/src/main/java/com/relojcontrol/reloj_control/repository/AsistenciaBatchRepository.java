@@ -0,0 +1,411 @@
+package com.relojcontrol.reloj_control.repository;
+
+import com.relojcontrol.reloj_control.model.Asistencia;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.generator.Generator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Escritura masiva de asistencias mediante inserciones JDBC por lotes.
+ * Se usa en la importación de archivos, donde guardar fila a fila con JPA es demasiado lento, y para
+ * registrar marcas oficiales en una sola sentencia.
+ */
+@Repository
+public class AsistenciaBatchRepository {
+
+    private static final int TAMANO_BATCH_JDBC = 500;
+    private static final int TAMANO_FETCH = 10_000;
+    private static final int TAMANO_BUFFER_COPY = 1 << 16;
+
+    @FunctionalInterface
+    public interface MarcaHandler {
+        void aceptar(long idEmpleado, LocalDateTime fechaHora);
+    }
+
+    @FunctionalInterface
+    public interface ConteoDiaHandler {
+        void aceptar(long idEmpleado, LocalDate fecha, int cantidad);
+    }
+
+    /**
+     * Escribe filas en formato de texto de COPY: columnas separadas por tabulador, una fila por línea.
+     */
+    @FunctionalInterface
+    public interface EscritorCopy {
+        void escribir(Writer salida) throws IOException;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sqlInsert;
+    private final String sqlRegistrarOficial;
+    private final String sqlRegistrarMarca;
+    private final String nombreSecuencia;
+
+    public AsistenciaBatchRepository(JdbcTemplate jdbcTemplate, EntityManagerFactory emf) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Se usa la misma secuencia que Hibernate para que los ids no choquen con los de JPA
+        this.nombreSecuencia = nombreSecuencia(emf);
+        this.sqlInsert = "INSERT INTO asistencias (id, empleado_id, fecha_hora, tipo, estado, es_oficial, observaciones) " +
+                "VALUES (nextval('" + nombreSecuencia + "'), ?, ?, ?, ?, ?, ?) " +
+                // La restricción única es la última defensa ante duplicados que el índice en memoria no vio
+                "ON CONFLICT DO NOTHING";
+        // El COUNT sobre degradadas obliga a terminar el UPDATE antes del INSERT; si no, el índice único
+        // parcial de oficiales vería todavía a la anterior. La marca que ya existe con la misma hora y tipo
+        // no se degrada: el ON CONFLICT la vuelve oficial.
+        this.sqlRegistrarOficial = "WITH degradadas AS (" +
+                "  UPDATE asistencias SET es_oficial = FALSE " +
+                "  WHERE empleado_id = ? AND tipo = ? AND fecha_hora >= ? AND fecha_hora < ? " +
+                "    AND fecha_hora <> ? AND es_oficial " +
+                "  RETURNING id" +
+                ") " +
+                "INSERT INTO asistencias (id, empleado_id, fecha_hora, tipo, estado, es_oficial, observaciones) " +
+                "SELECT nextval('" + nombreSecuencia + "'), CAST(? AS bigint), CAST(? AS timestamp), CAST(? AS varchar), " +
+                "       'AUTORIZADO', TRUE, CAST(? AS varchar) " +
+                "FROM (SELECT COUNT(*) FROM degradadas) d " +
+                "ON CONFLICT (empleado_id, fecha_hora, tipo) DO UPDATE " +
+                "SET es_oficial = TRUE, observaciones = COALESCE(EXCLUDED.observaciones, asistencias.observaciones) " +
+                "RETURNING id";
+        this.sqlRegistrarMarca = "INSERT INTO asistencias (id, empleado_id, fecha_hora, tipo, estado, es_oficial, observaciones) " +
+                "VALUES (nextval('" + nombreSecuencia + "'), ?, ?, ?, 'AUTORIZADO', FALSE, NULL) " +
+                "RETURNING id";
+    }
+
+    /**
+     * Registra una marca como la oficial de su empleado, día y tipo en una sola sentencia: degrada la
+     * oficial anterior e inserta la nueva. Si ya hay una marca con la misma hora y tipo, pasa a ser la oficial.
+     * El índice único parcial de oficiales de cada partición impide que dos registros simultáneos dejen dos
+     * oficiales en el mismo día: el segundo falla con una violación de unicidad.
+     *
+     * @return Id de la marca oficial
+     */
+    public long registrarOficial(long idEmpleado, LocalDateTime fechaHora, String tipo, String observaciones) {
+        LocalDate dia = fechaHora.toLocalDate();
+        Timestamp marca = Timestamp.valueOf(fechaHora);
+        Long id = jdbcTemplate.queryForObject(sqlRegistrarOficial, Long.class,
+                idEmpleado, tipo, Timestamp.valueOf(dia.atStartOfDay()), Timestamp.valueOf(dia.plusDays(1).atStartOfDay()), marca,
+                idEmpleado, marca, tipo, observaciones);
+        return Objects.requireNonNull(id);
+    }
+
+    /**
+     * Registra una marca no oficial y, si su día aún no tiene una oficial de ese tipo, designa la más
+     * temprana, igual que {@link #designarOficiales} al importar.
+     *
+     * @return Id de la marca registrada
+     */
+    public long registrarMarca(long idEmpleado, LocalDateTime fechaHora, String tipo) {
+        Long id = jdbcTemplate.queryForObject(sqlRegistrarMarca, Long.class, idEmpleado, Timestamp.valueOf(fechaHora), tipo);
+        LocalDate dia = fechaHora.toLocalDate();
+        jdbcTemplate.update(
+                "UPDATE asistencias a SET es_oficial = TRUE FROM (" +
+                        "  SELECT id FROM asistencias " +
+                        "  WHERE empleado_id = ? AND tipo = ? AND fecha_hora >= ? AND fecha_hora < ? " +
+                        "  ORDER BY es_oficial IS TRUE DESC, fecha_hora LIMIT 1" +
+                        ") primera " +
+                        "WHERE a.id = primera.id AND a.es_oficial IS NOT TRUE",
+                idEmpleado, tipo, Timestamp.valueOf(dia.atStartOfDay()), Timestamp.valueOf(dia.plusDays(1).atStartOfDay()));
+        return Objects.requireNonNull(id);
+    }
+
+    /**
+     * Cuenta las marcas almacenadas en [desde, hasta), para dimensionar el índice de una importación.
+     */
+    public long contarMarcas(LocalDateTime desde, LocalDateTime hasta) {
+        Long total = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM asistencias WHERE fecha_hora >= ? AND fecha_hora < ?",
+                Long.class, Timestamp.valueOf(desde), Timestamp.valueOf(hasta));
+        return total == null ? 0 : total;
+    }
+
+    /**
+     * Recorre la cantidad de marcas por empleado y día en [desde, hasta) sin traer las marcas.
+     */
+    public void recorrerConteosPorDia(Collection<Long> idsEmpleado, LocalDateTime desde, LocalDateTime hasta,
+                                      ConteoDiaHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT empleado_id, CAST(fecha_hora AS DATE) AS fecha, COUNT(*) AS cantidad FROM asistencias " +
+                            "WHERE empleado_id = ANY(?) AND fecha_hora >= ? AND fecha_hora < ? " +
+                            "GROUP BY empleado_id, CAST(fecha_hora AS DATE)");
+            ps.setArray(1, con.createArrayOf("bigint", idsEmpleado.toArray()));
+            ps.setTimestamp(2, Timestamp.valueOf(desde));
+            ps.setTimestamp(3, Timestamp.valueOf(hasta));
+            return ps;
+        }, (RowCallbackHandler) rs -> handler.aceptar(
+                rs.getLong("empleado_id"), rs.getDate("fecha").toLocalDate(), rs.getInt("cantidad")));
+    }
+
+    /**
+     * Recorre en streaming las marcas (empleado, fecha/hora) en [desde, hasta) sin materializarlas.
+     * Debe llamarse dentro de una transacción para que el driver respete el fetch size.
+     */
+    public void recorrerMarcas(Collection<Long> idsEmpleado, LocalDateTime desde, LocalDateTime hasta,
+                               MarcaHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT empleado_id, fecha_hora FROM asistencias " +
+                            "WHERE empleado_id = ANY(?) AND fecha_hora >= ? AND fecha_hora < ?");
+            ps.setFetchSize(TAMANO_FETCH);
+            ps.setArray(1, con.createArrayOf("bigint", idsEmpleado.toArray()));
+            ps.setTimestamp(2, Timestamp.valueOf(desde));
+            ps.setTimestamp(3, Timestamp.valueOf(hasta));
+            return ps;
+        }, (RowCallbackHandler) rs -> handler.aceptar(
+                rs.getLong("empleado_id"), rs.getTimestamp("fecha_hora").toLocalDateTime()));
+    }
+
+    /**
+     * Busca con una sola consulta cuáles de los pares (empleado, fecha/hora) ya existen.
+     *
+     * @param idsEmpleado Ids de empleado, en paralelo con {@code fechasHora}
+     * @param fechasHora  Fechas/horas de las marcas a verificar
+     * @param handler     Recibe cada par que existe en la base
+     */
+    public void buscarExistentes(List<Long> idsEmpleado, List<LocalDateTime> fechasHora, MarcaHandler handler) {
+        if (idsEmpleado.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT a.empleado_id, a.fecha_hora FROM asistencias a " +
+                            "JOIN unnest(?, ?) AS v(empleado_id, fecha_hora) " +
+                            "ON a.empleado_id = v.empleado_id AND a.fecha_hora = v.fecha_hora");
+            ps.setArray(1, con.createArrayOf("bigint", idsEmpleado.toArray()));
+            ps.setArray(2, con.createArrayOf("timestamp", fechasHora.stream().map(Timestamp::valueOf).toArray()));
+            return ps;
+        }, (RowCallbackHandler) rs -> handler.aceptar(
+                rs.getLong("empleado_id"), rs.getTimestamp("fecha_hora").toLocalDateTime()));
+    }
+
+    /**
+     * Inserta las asistencias en lotes JDBC dentro de la transacción actual.
+     * Las que chocan con una marca existente se omiten.
+     *
+     * @param asistencias Asistencias nuevas (sin id)
+     * @return Cantidad de filas realmente insertadas
+     */
+    public int insertarLote(List<Asistencia> asistencias) {
+        if (asistencias.isEmpty()) {
+            return 0;
+        }
+        int[][] resultados = jdbcTemplate.batchUpdate(sqlInsert, asistencias, TAMANO_BATCH_JDBC, (ps, a) -> {
+            ps.setLong(1, a.getEmpleado().getIdEmpleado());
+            ps.setTimestamp(2, Timestamp.valueOf(a.getFechaHora()));
+            ps.setString(3, a.getTipo());
+            ps.setString(4, a.getEstado());
+            ps.setBoolean(5, Boolean.TRUE.equals(a.getEsOficial()));
+            ps.setString(6, a.getObservaciones());
+        });
+        int insertadas = 0;
+        for (int[] lote : resultados) {
+            for (int filas : lote) {
+                insertadas += Math.max(filas, 0);
+            }
+        }
+        return insertadas;
+    }
+
+    /**
+     * Crea una tabla de paso UNLOGGED (rut, fecha_hora) para una carga con COPY. Debe crearse, llenarse
+     * y eliminarse dentro de la misma transacción: si la carga falla, el rollback también la descarta.
+     *
+     * @return Nombre de la tabla creada
+     */
+    public String crearTablaPaso() {
+        String tabla = "importacion_paso_" + UUID.randomUUID().toString().replace("-", "");
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE " + tabla + " (rut TEXT NOT NULL, fecha_hora TIMESTAMP NOT NULL)");
+        return tabla;
+    }
+
+    /**
+     * Vuelca filas a la tabla de paso con COPY por la conexión de la transacción actual.
+     *
+     * @return Cantidad de filas copiadas
+     */
+    public long copiarATablaPaso(String tabla, EscritorCopy escritor) throws IOException {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        try {
+            PGCopyOutputStream copia = new PGCopyOutputStream(con.unwrap(PGConnection.class),
+                    "COPY " + tabla + " (rut, fecha_hora) FROM STDIN", TAMANO_BUFFER_COPY);
+            Writer salida = new BufferedWriter(new OutputStreamWriter(copia, StandardCharsets.UTF_8), TAMANO_BUFFER_COPY);
+            long filas;
+            try {
+                escritor.escribir(salida);
+                salida.flush();
+                filas = copia.endCopy();
+            } catch (IOException | RuntimeException e) {
+                // Se cancela para no dar por terminado un COPY a medias
+                if (copia.isActive()) {
+                    copia.cancelCopy();
+                }
+                throw e;
+            }
+            // Con las estadísticas de la tabla de paso el planificador elige bien los joins de la fusión
+            jdbcTemplate.execute("ANALYZE " + tabla);
+            return filas;
+        } catch (SQLException e) {
+            throw new IOException("Falló el COPY a " + tabla + ": " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+    }
+
+    /**
+     * RUTs de la tabla de paso que todavía no tienen empleado.
+     */
+    public List<String> rutsSinEmpleado(String tabla) {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT p.rut FROM " + tabla + " p " +
+                        "WHERE NOT EXISTS (SELECT 1 FROM empleado e WHERE e.rut = p.rut)", String.class);
+    }
+
+    /**
+     * Pasa las marcas de la tabla de paso a asistencias con una sola sentencia: resuelve los empleados
+     * por RUT, descarta las marcas repetidas en el archivo o ya guardadas y clasifica ENTRADA/SALIDA
+     * según cuántas marcas lleva el empleado ese día (las ya guardadas más las anteriores del archivo).
+     *
+     * @return Cantidad de asistencias insertadas
+     */
+    public int fusionarTablaPaso(String tabla) {
+        return jdbcTemplate.update(
+                "WITH marcas AS (" +
+                        "  SELECT DISTINCT e.id_empleado AS empleado_id, p.fecha_hora FROM " + tabla + " p " +
+                        "  JOIN empleado e ON e.rut = p.rut" +
+                        "), nuevas AS (" +
+                        "  SELECT m.empleado_id, m.fecha_hora FROM marcas m " +
+                        "  WHERE NOT EXISTS (SELECT 1 FROM asistencias a " +
+                        "                    WHERE a.empleado_id = m.empleado_id AND a.fecha_hora = m.fecha_hora)" +
+                        "), ventana AS (" +
+                        "  SELECT CAST(MIN(fecha_hora) AS DATE) AS desde, CAST(MAX(fecha_hora) AS DATE) + 1 AS hasta FROM " + tabla +
+                        "), previas AS (" +
+                        "  SELECT a.empleado_id, CAST(a.fecha_hora AS DATE) AS fecha, COUNT(*) AS cantidad " +
+                        "  FROM asistencias a " +
+                        // Como subconsultas y no como join, para que PostgreSQL descarte las particiones fuera de la ventana
+                        "  WHERE a.fecha_hora >= (SELECT desde FROM ventana) AND a.fecha_hora < (SELECT hasta FROM ventana) " +
+                        "    AND a.empleado_id IN (SELECT empleado_id FROM nuevas) " +
+                        "  GROUP BY a.empleado_id, CAST(a.fecha_hora AS DATE)" +
+                        ") " +
+                        "INSERT INTO asistencias (id, empleado_id, fecha_hora, tipo, estado, es_oficial, observaciones) " +
+                        "SELECT nextval('" + nombreSecuencia + "'), n.empleado_id, n.fecha_hora, " +
+                        "       CASE WHEN (COALESCE(pr.cantidad, 0) + ROW_NUMBER() OVER (" +
+                        "                   PARTITION BY n.empleado_id, CAST(n.fecha_hora AS DATE) ORDER BY n.fecha_hora) - 1) % 2 = 0 " +
+                        "            THEN 'ENTRADA' ELSE 'SALIDA' END, " +
+                        "       'AUTORIZADO', FALSE, NULL " +
+                        "FROM nuevas n " +
+                        "LEFT JOIN previas pr ON pr.empleado_id = n.empleado_id AND pr.fecha = CAST(n.fecha_hora AS DATE) " +
+                        "ON CONFLICT DO NOTHING");
+    }
+
+    /**
+     * Empleados con marcas en la tabla de paso, una vez creados los que faltaban.
+     */
+    public List<Long> idsEmpleadoTablaPaso(String tabla) {
+        return jdbcTemplate.queryForList(
+                "SELECT e.id_empleado FROM empleado e WHERE e.rut IN (SELECT DISTINCT rut FROM " + tabla + ")", Long.class);
+    }
+
+    /**
+     * Primer y último día con marcas en la tabla de paso.
+     *
+     * @return Un arreglo {desde, hasta}, o null si la tabla está vacía
+     */
+    public LocalDate[] diasTablaPaso(String tabla) {
+        return jdbcTemplate.queryForObject(
+                "SELECT CAST(MIN(fecha_hora) AS DATE) AS desde, CAST(MAX(fecha_hora) AS DATE) AS hasta FROM " + tabla,
+                (rs, fila) -> rs.getDate("desde") == null ? null
+                        : new LocalDate[]{rs.getDate("desde").toLocalDate(), rs.getDate("hasta").toLocalDate()});
+    }
+
+    /**
+     * Meses con marcas en la tabla de paso.
+     */
+    public List<YearMonth> mesesTablaPaso(String tabla) {
+        return jdbcTemplate.query(
+                "SELECT DISTINCT CAST(date_trunc('month', fecha_hora) AS DATE) AS mes FROM " + tabla,
+                (rs, fila) -> YearMonth.from(rs.getDate("mes").toLocalDate()));
+    }
+
+    /**
+     * Designa como oficial la primera ENTRADA y la primera SALIDA de cada empleado y día en [desde, hasta)
+     * que todavía no tenga una marca oficial de ese tipo. Las ya designadas (por ejemplo a mano) no cambian.
+     *
+     * @return Cantidad de marcas designadas
+     */
+    public int designarOficiales(Collection<Long> idsEmpleado, LocalDateTime desde, LocalDateTime hasta) {
+        if (idsEmpleado.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sqlDesignarOficiales(
+                    "empleado_id = ANY(?) AND fecha_hora >= ? AND fecha_hora < ?"));
+            ps.setArray(1, con.createArrayOf("bigint", idsEmpleado.toArray()));
+            ps.setTimestamp(2, Timestamp.valueOf(desde));
+            ps.setTimestamp(3, Timestamp.valueOf(hasta));
+            return ps;
+        });
+    }
+
+    /**
+     * Igual que {@link #designarOficiales}, para los empleados y días de una tabla de paso ya fusionada.
+     */
+    public int designarOficialesTablaPaso(String tabla) {
+        return jdbcTemplate.update(sqlDesignarOficiales(
+                "empleado_id IN (SELECT e.id_empleado FROM empleado e WHERE e.rut IN (SELECT DISTINCT rut FROM " + tabla + ")) " +
+                        "AND fecha_hora >= (SELECT CAST(MIN(fecha_hora) AS DATE) FROM " + tabla + ") " +
+                        "AND fecha_hora < (SELECT CAST(MAX(fecha_hora) AS DATE) + 1 FROM " + tabla + ")"));
+    }
+
+    /**
+     * Por cada (empleado, día, tipo) toma la marca oficial si la hay o, si no, la más temprana, y marca
+     * como oficial solo las del segundo caso.
+     */
+    private static String sqlDesignarOficiales(String filtro) {
+        return "UPDATE asistencias a SET es_oficial = TRUE FROM (" +
+                "  SELECT DISTINCT ON (empleado_id, CAST(fecha_hora AS DATE), tipo) id FROM asistencias " +
+                "  WHERE " + filtro + " AND tipo IN ('ENTRADA', 'SALIDA') " +
+                "  ORDER BY empleado_id, CAST(fecha_hora AS DATE), tipo, es_oficial IS TRUE DESC, fecha_hora" +
+                ") primera " +
+                "WHERE a.id = primera.id AND a.es_oficial IS NOT TRUE";
+    }
+
+    public void eliminarTablaPaso(String tabla) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + tabla);
+    }
+
+    private static String nombreSecuencia(EntityManagerFactory emf) {
+        Generator generador = emf.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(Asistencia.class)
+                .getGenerator();
+        if (generador instanceof SequenceStyleGenerator secuencia) {
+            return secuencia.getDatabaseStructure().getPhysicalName().render();
+        }
+        throw new IllegalStateException("El id de Asistencia no usa una secuencia: " + generador);
+    }
+}
@@ -1,22 +1,37 @@
 package com.relojcontrol.reloj_control.repository;
 
+import com.relojcontrol.reloj_control.dto.MarcaRegistradaDTO;
+import com.relojcontrol.reloj_control.dto.MarcaResumenDTO;
 import com.relojcontrol.reloj_control.model.Asistencia;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Las consultas por fecha filtran fecha_hora en el rango semiabierto [desde, hasta), nunca con DATE() o CAST,
+ * para que PostgreSQL use los índices sobre fecha_hora; un día completo es [dia 00:00, dia + 1 00:00).
+ */
 public interface AsistenciaRepository extends JpaRepository<Asistencia, Long> {
-    // busca todas las marcas entre dos instantes
-    @Query("SELECT a FROM Asistencia a WHERE DATE(a.fechaHora) = :fecha")
-    List<Asistencia> findAllByFecha(@Param("fecha") LocalDate fecha);
+    // busca todas las marcas de un día, con su empleado
+    default List<Asistencia> findAllByFecha(LocalDate fecha) {
+        return findAllConEmpleadoEnRango(fecha.atStartOfDay(), fecha.plusDays(1).atStartOfDay());
+    }
 
-    @Query("SELECT a FROM Asistencia a WHERE a.fechaHora BETWEEN :desde AND :hasta")
-    List<Asistencia> findAllByFechaHoraBetween(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+    @Query("SELECT a FROM Asistencia a JOIN FETCH a.empleado WHERE a.fechaHora >= :desde AND a.fechaHora < :hasta")
+    List<Asistencia> findAllConEmpleadoEnRango(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    @Query("SELECT a FROM Asistencia a WHERE a.fechaHora >= :desde AND a.fechaHora < :hasta")
+    List<Asistencia> findAllEnRango(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
 
     List<Asistencia> findAllByEmpleadoIdEmpleado(Long empleadoId);
 
@@ -24,58 +39,96 @@ public interface AsistenciaRepository extends JpaRepository<Asistencia, Long> {
     @Query("SELECT a FROM Asistencia a WHERE a.empleado.rut = :rut")
     List<Asistencia> findAllByEmpleadoRut(@Param("rut") String rut);
 
-    // Busca todas las marcas de un empleado por RUT entre dos fechas
-    @Query("SELECT a FROM Asistencia a WHERE a.empleado.rut = :rut AND a.fechaHora BETWEEN :desde AND :hasta")
-    List<Asistencia> findAllByEmpleadoRutAndFechaBetween(
+    // Busca todas las marcas de un empleado por RUT en [desde, hasta), con su empleado
+    @Query("SELECT a FROM Asistencia a JOIN FETCH a.empleado e WHERE e.rut = :rut AND a.fechaHora >= :desde AND a.fechaHora < :hasta")
+    List<Asistencia> findAllByEmpleadoRutEnRango(
             @Param("rut") String rut,
             @Param("desde") LocalDateTime desde,
             @Param("hasta") LocalDateTime hasta
     );
 
-    // Busca todas las marcas por RUT parcial entre dos fechas
-    @Query("SELECT a FROM Asistencia a WHERE " +
-            "a.empleado.rut LIKE CONCAT(:rutParcial, '%') " +
-            "AND a.fechaHora BETWEEN :desde AND :hasta")
-    List<Asistencia> findAllByRutParcialAndFechaBetween(
+    // Busca todas las marcas por RUT parcial en [desde, hasta), con su empleado
+    @Query("SELECT a FROM Asistencia a JOIN FETCH a.empleado e WHERE " +
+            "e.rut LIKE CONCAT(:rutParcial, '%') " +
+            "AND a.fechaHora >= :desde AND a.fechaHora < :hasta")
+    List<Asistencia> findAllByRutParcialEnRango(
             @Param("rutParcial") String rutParcial,
             @Param("desde") LocalDateTime desde,
             @Param("hasta") LocalDateTime hasta
     );
 
-    // Busca todas las marcas de un empleado por ID entre dos fechas
-    List<Asistencia> findAllByEmpleadoIdEmpleadoAndFechaHoraBetween(
-            Long empleadoId,
-            LocalDateTime inicio,
-            LocalDateTime fin
+    // Busca todas las marcas de un empleado por ID en [desde, hasta)
+    @Query("SELECT a FROM Asistencia a WHERE a.empleado.idEmpleado = :empleadoId " +
+            "AND a.fechaHora >= :desde AND a.fechaHora < :hasta")
+    List<Asistencia> findAllByEmpleadoEnRango(
+            @Param("empleadoId") Long empleadoId,
+            @Param("desde") LocalDateTime desde,
+            @Param("hasta") LocalDateTime hasta
     );
 
-    // Busca todas las marcas por RUT parcial entre dos fechas (búsqueda flexible)
-    @Query("SELECT a FROM Asistencia a WHERE " +
-            "(a.empleado.rut LIKE CONCAT(:rutParcial, '%') OR " +
-            "REPLACE(REPLACE(a.empleado.rut, '.', ''), '-', '') LIKE CONCAT(:rutParcial, '%')) " +
-            "AND a.fechaHora BETWEEN :desde AND :hasta")
-    List<Asistencia> findAllByRutParcialFlexibleAndFechaBetween(
+    // Busca todas las marcas por RUT parcial en [desde, hasta) (búsqueda flexible), con su empleado
+    @Query("SELECT a FROM Asistencia a JOIN FETCH a.empleado e WHERE " +
+            "(e.rut LIKE CONCAT(:rutParcial, '%') OR " +
+            "REPLACE(REPLACE(e.rut, '.', ''), '-', '') LIKE CONCAT(:rutParcial, '%')) " +
+            "AND a.fechaHora >= :desde AND a.fechaHora < :hasta")
+    List<Asistencia> findAllByRutParcialFlexibleEnRango(
             @Param("rutParcial") String rutParcial,
             @Param("desde") LocalDateTime desde,
             @Param("hasta") LocalDateTime hasta
     );
 
-    @Query("SELECT EXISTS(SELECT 1 FROM Asistencia a WHERE a.empleado.idEmpleado = :idEmpleado AND DATE(a.fechaHora) = :fecha AND a.tipo = :tipo AND a.esOficial = true)")
-    boolean existsAsistenciaOficialEnFecha(
-            @Param("idEmpleado") Long idEmpleado,
-            @Param("fecha") LocalDate fecha,
-            @Param("tipo") String tipo
-    );
+    // Marcas en [desde, hasta) ordenadas por empleado y hora, para calcular los resúmenes diarios en una pasada;
+    // deben consumirse dentro de una transacción
+    String MARCAS_RESUMEN = "SELECT new com.relojcontrol.reloj_control.dto.MarcaResumenDTO(" +
+            "a.id, a.empleado.idEmpleado, a.fechaHora, a.tipo, a.estado, a.esOficial, a.observaciones) " +
+            "FROM Asistencia a WHERE a.fechaHora >= :desde AND a.fechaHora < :hasta ";
+    String ORDEN_RESUMEN = " ORDER BY a.empleado.idEmpleado, a.fechaHora, a.id";
 
-    @Query("SELECT a FROM Asistencia a WHERE a.empleado.idEmpleado = :idEmpleado AND DATE(a.fechaHora) = :fecha AND a.tipo = :tipo AND a.esOficial = true")
-    Optional<Asistencia> findAsistenciaOficialEnFecha(
-            @Param("idEmpleado") Long idEmpleado,
-            @Param("fecha") LocalDate fecha,
-            @Param("tipo") String tipo
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(MARCAS_RESUMEN + "AND a.empleado.idEmpleado IN :idsEmpleado" + ORDEN_RESUMEN)
+    Stream<MarcaResumenDTO> streamMarcasResumenByEmpleados(
+            @Param("idsEmpleado") Collection<Long> idsEmpleado,
+            @Param("desde") LocalDateTime desde,
+            @Param("hasta") LocalDateTime hasta
     );
 
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(MARCAS_RESUMEN + ORDEN_RESUMEN)
+    Stream<MarcaResumenDTO> streamMarcasResumen(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    @Query("SELECT MIN(a.fechaHora) FROM Asistencia a")
+    Optional<LocalDateTime> findPrimeraFechaHora();
+
+    @Query("SELECT MAX(a.fechaHora) FROM Asistencia a")
+    Optional<LocalDateTime> findUltimaFechaHora();
+
     boolean existsByEmpleadoIdEmpleadoAndFechaHora(Long idEmpleado, LocalDateTime fechaHora);
 
+    // Con la fecha/hora PostgreSQL busca solo en la partición del mes, no en todas como con findById
+    Optional<Asistencia> findByIdAndFechaHora(Long id, LocalDateTime fechaHora);
+
+    // Marcas ya almacenadas de un conjunto de empleados en [desde, hasta), para importaciones por lote
+    @Query("SELECT new com.relojcontrol.reloj_control.dto.MarcaRegistradaDTO(a.empleado.idEmpleado, a.fechaHora) " +
+            "FROM Asistencia a WHERE a.empleado.idEmpleado IN :idsEmpleado " +
+            "AND a.fechaHora >= :desde AND a.fechaHora < :hasta")
+    List<MarcaRegistradaDTO> findMarcasRegistradas(
+            @Param("idsEmpleado") Collection<Long> idsEmpleado,
+            @Param("desde") LocalDateTime desde,
+            @Param("hasta") LocalDateTime hasta
+    );
+
+    // Entradas oficiales de los días [inicio, fin] posteriores a horaLimite
+    default List<Asistencia> findAsistenciasEnRangoFechasYDespuesDeHoraLimiteNativa(LocalDate inicio, LocalDate fin, LocalTime horaLimite) {
+        return findEntradasOficialesDespuesDeHora(inicio.atStartOfDay(), fin.plusDays(1).atStartOfDay(), horaLimite);
+    }
+
+    // El CAST a time coincide con la expresión de idx_asistencias_hora_entrada_oficial y el filtro con su predicado
     @Query(value = """
     SELECT a.id,
            a.empleado_id,
@@ -83,14 +136,17 @@ public interface AsistenciaRepository extends JpaRepository<Asistencia, Long> {
            a.estado,
            a.fecha_hora,
            a.tipo,
-           a.observaciones     -- <-- ¡añadido!
+           a.observaciones
       FROM asistencias a
-     WHERE CAST(a.fecha_hora AS DATE) BETWEEN :inicio AND :fin
-       AND CAST(a.fecha_hora AS TIME) > :horaLimite
+     WHERE a.fecha_hora >= :desde
+       AND a.fecha_hora < :hasta
+       AND CAST(a.fecha_hora AS time) > :horaLimite
+       AND a.es_oficial
+       AND a.tipo = 'ENTRADA'
     """, nativeQuery = true)
-    List<Asistencia> findAsistenciasEnRangoFechasYDespuesDeHoraLimiteNativa(
-            @Param("inicio") LocalDate inicio,
-            @Param("fin")    LocalDate fin,
+    List<Asistencia> findEntradasOficialesDespuesDeHora(
+            @Param("desde") LocalDateTime desde,
+            @Param("hasta") LocalDateTime hasta,
             @Param("horaLimite") LocalTime horaLimite
     );
 
@@ -1,7 +1,11 @@
 package com.relojcontrol.reloj_control.repository;
 import com.relojcontrol.reloj_control.model.Empleado;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -9,4 +13,13 @@ public interface EmpleadoRepository extends JpaRepository<Empleado,Integer> {
     Optional<Empleado> findByRut(String rut);
 
     Optional<Empleado> findByIdEmpleado(Long idEmpleado);
+
+    List<Empleado> findAllByRutIn(Collection<String> ruts);
+
+    // Id y unidad de cada empleado, para resolver su horario sin cargar las entidades
+    @Query("SELECT e.idEmpleado, e.unidad FROM Empleado e")
+    List<Object[]> findIdsYUnidades();
+
+    @Query("SELECT e.rut FROM Empleado e WHERE e.idEmpleado IN :ids")
+    List<String> findRutsByIdEmpleadoIn(@Param("ids") Collection<Long> ids);
 }
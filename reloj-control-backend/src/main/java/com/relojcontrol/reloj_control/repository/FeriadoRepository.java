@@ -16,5 +16,8 @@ public interface FeriadoRepository extends JpaRepository<Feriado, Long> {
     @Query("SELECT f FROM Feriado f WHERE f.activo = true AND f.fecha BETWEEN :inicio AND :fin")
     List<Feriado> findFeriadosEnRango(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
     
+    @Query("SELECT DISTINCT f.fecha FROM Feriado f WHERE f.activo = true")
+    List<LocalDate> findFechasActivas();
+    
     boolean existsByFechaAndActivo(LocalDate fecha, boolean activo);
 } 
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.relojcontrol.reloj_control.repository;
+
+import com.relojcontrol.reloj_control.model.Horario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface HorarioRepository extends JpaRepository<Horario, Long> {
+
+    Optional<Horario> findByNombre(String nombre);
+
+    @Query("SELECT h FROM Horario h WHERE :unidad MEMBER OF h.unidades")
+    Optional<Horario> findByUnidad(@Param("unidad") String unidad);
+
+    @Query("SELECT h FROM Horario h WHERE :idEmpleado MEMBER OF h.empleados")
+    Optional<Horario> findByEmpleado(@Param("idEmpleado") Long idEmpleado);
+}
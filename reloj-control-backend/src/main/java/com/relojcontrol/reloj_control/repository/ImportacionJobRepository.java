@@ -0,0 +1,16 @@
+package com.relojcontrol.reloj_control.repository;
+
+import com.relojcontrol.reloj_control.model.ImportacionJob;
+import com.relojcontrol.reloj_control.model.enums.EstadoImportacionEnum;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImportacionJobRepository extends JpaRepository<ImportacionJob, Long> {
+    List<ImportacionJob> findTop50ByOrderByFechaCreacionDesc();
+
+    List<ImportacionJob> findAllByEstadoIn(Collection<EstadoImportacionEnum> estados);
+}
@@ -0,0 +1,64 @@
+package com.relojcontrol.reloj_control.repository;
+
+import com.relojcontrol.reloj_control.dto.ParticionAsistenciaDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Particiones mensuales de asistencias (migración V5). Cada mes es la tabla asistencias_aaaa_mm, con las
+ * marcas de fecha_hora en [primer día del mes, primer día del mes siguiente).
+ */
+@Repository
+public class ParticionAsistenciaRepository {
+
+    private static final DateTimeFormatter FORMATO_NOMBRE = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ParticionAsistenciaRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static String nombre(YearMonth mes) {
+        return "asistencias_" + mes.format(FORMATO_NOMBRE);
+    }
+
+    /**
+     * Crea y conecta la partición del mes si no existe.
+     *
+     * @return true si se creó
+     */
+    public boolean crear(YearMonth mes) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT crear_particion_asistencias(?)", Boolean.class, Date.valueOf(mes.atDay(1))));
+    }
+
+    /**
+     * Particiones conectadas, de la más antigua a la más reciente, con las filas estimadas por el último ANALYZE.
+     */
+    public List<ParticionAsistenciaDTO> listar() {
+        return jdbcTemplate.query(
+                "SELECT c.relname, c.reltuples FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = CAST('asistencias' AS regclass) ORDER BY c.relname",
+                (rs, fila) -> {
+                    String nombre = rs.getString("relname");
+                    YearMonth mes = YearMonth.parse(nombre.substring("asistencias_".length()), FORMATO_NOMBRE);
+                    return new ParticionAsistenciaDTO(nombre, mes, Math.max(0, rs.getLong("reltuples")));
+                });
+    }
+
+    /**
+     * Desconecta la partición del mes sin bloquear las lecturas ni escrituras de los demás meses; queda como
+     * una tabla independiente, lista para respaldarse o eliminarse. DETACH ... CONCURRENTLY no puede ejecutarse
+     * dentro de una transacción, así que este método no debe llamarse desde un método transaccional.
+     */
+    public void desconectar(YearMonth mes) {
+        // El nombre sale de un YearMonth, no de texto del usuario
+        jdbcTemplate.execute("ALTER TABLE asistencias DETACH PARTITION " + nombre(mes) + " CONCURRENTLY");
+    }
+}
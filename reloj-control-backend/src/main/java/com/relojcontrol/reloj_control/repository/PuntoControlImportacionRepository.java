@@ -0,0 +1,43 @@
+package com.relojcontrol.reloj_control.repository;
+
+import com.relojcontrol.reloj_control.model.PuntoControlImportacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface PuntoControlImportacionRepository extends JpaRepository<PuntoControlImportacion, Long> {
+    Optional<PuntoControlImportacion> findByHuellaPrefijo(String huellaPrefijo);
+
+    // Crea o avanza el punto de control en una sentencia, para que dos importaciones del mismo archivo que
+    // terminan a la vez no choquen con la restricción única; la última marca solo avanza
+    @Transactional
+    @Modifying
+    @Query(value = """
+    INSERT INTO importacion_punto_control (id_punto_control, huella_prefijo, nombre_archivo, desplazamiento,
+                                           huella_cola, tamano, ultima_marca, fecha_actualizacion)
+    VALUES (nextval('importacion_punto_control_seq'), :huellaPrefijo, :nombreArchivo, :desplazamiento,
+            :huellaCola, :tamano, CAST(:ultimaMarca AS timestamp), now())
+    ON CONFLICT (huella_prefijo) DO UPDATE
+       SET nombre_archivo      = EXCLUDED.nombre_archivo,
+           desplazamiento      = EXCLUDED.desplazamiento,
+           huella_cola         = EXCLUDED.huella_cola,
+           tamano              = EXCLUDED.tamano,
+           ultima_marca        = GREATEST(importacion_punto_control.ultima_marca, EXCLUDED.ultima_marca),
+           fecha_actualizacion = EXCLUDED.fecha_actualizacion
+    """, nativeQuery = true)
+    int guardar(
+            @Param("huellaPrefijo") String huellaPrefijo,
+            @Param("nombreArchivo") String nombreArchivo,
+            @Param("desplazamiento") long desplazamiento,
+            @Param("huellaCola") String huellaCola,
+            @Param("tamano") long tamano,
+            @Param("ultimaMarca") LocalDateTime ultimaMarca
+    );
+}
@@ -0,0 +1,103 @@
+package com.relojcontrol.reloj_control.repository;
+
+import com.relojcontrol.reloj_control.model.ResumenDiario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface ResumenDiarioRepository extends JpaRepository<ResumenDiario, Long> {
+
+    // Orden de los resúmenes: por día y nombre; el id desempata para que el cursor sea único
+    String ORDEN = " ORDER BY r.fecha, COALESCE(e.nombreCompleto, ''), r.idResumen";
+
+    @Query("SELECT r FROM ResumenDiario r JOIN FETCH r.empleado e WHERE r.fecha = :fecha" + ORDEN)
+    List<ResumenDiario> findAllByFecha(@Param("fecha") LocalDate fecha);
+
+    @Query("SELECT r FROM ResumenDiario r JOIN FETCH r.empleado e " +
+            "WHERE e.rut = :rut AND r.fecha BETWEEN :inicio AND :fin" + ORDEN)
+    List<ResumenDiario> findAllByRutAndFechaBetween(
+            @Param("rut") String rut,
+            @Param("inicio") LocalDate inicio,
+            @Param("fin") LocalDate fin
+    );
+
+    // Pares [Empleado, ResumenDiario] de varios empleados en una sola consulta, agrupados por empleado; un
+    // empleado sin resúmenes en el rango viene en una fila con el resumen en null
+    @Query("SELECT e, r FROM Empleado e LEFT JOIN FETCH e.usuario LEFT JOIN ResumenDiario r ON r.empleado = e " +
+            "AND r.fecha BETWEEN :inicio AND :fin WHERE e.rut IN :ruts ORDER BY e.idEmpleado, r.fecha")
+    List<Object[]> findEmpleadosYResumenesByRutIn(
+            @Param("ruts") Collection<String> ruts,
+            @Param("inicio") LocalDate inicio,
+            @Param("fin") LocalDate fin
+    );
+
+    @Query("SELECT r FROM ResumenDiario r JOIN FETCH r.empleado e " +
+            "WHERE e.rut LIKE CONCAT(:rutParcial, '%') AND r.fecha BETWEEN :inicio AND :fin" + ORDEN)
+    List<ResumenDiario> findAllByRutParcialAndFechaBetween(
+            @Param("rutParcial") String rutParcial,
+            @Param("inicio") LocalDate inicio,
+            @Param("fin") LocalDate fin
+    );
+
+    // Página siguiente a la posición (fecha, nombre, id) en el orden de los resúmenes (paginación por cursor)
+    @Query("SELECT r FROM ResumenDiario r JOIN FETCH r.empleado e " +
+            "WHERE e.rut LIKE CONCAT(:rutParcial, '%') AND r.fecha BETWEEN :inicio AND :fin " +
+            "AND (r.fecha > :fecha OR (r.fecha = :fecha AND (COALESCE(e.nombreCompleto, '') > :nombre " +
+            "     OR (COALESCE(e.nombreCompleto, '') = :nombre AND r.idResumen > :idResumen))))" + ORDEN)
+    List<ResumenDiario> findPaginaByRutParcialAndFechaBetween(
+            @Param("rutParcial") String rutParcial,
+            @Param("inicio") LocalDate inicio,
+            @Param("fin") LocalDate fin,
+            @Param("fecha") LocalDate fecha,
+            @Param("nombre") String nombre,
+            @Param("idResumen") long idResumen,
+            Limit limite
+    );
+
+    // Recorre los resúmenes sin cargarlos todos; debe consumirse dentro de una transacción
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM ResumenDiario r JOIN FETCH r.empleado e " +
+            "WHERE e.rut LIKE CONCAT(:rutParcial, '%') AND r.fecha BETWEEN :inicio AND :fin" + ORDEN)
+    Stream<ResumenDiario> streamByRutParcialAndFechaBetween(
+            @Param("rutParcial") String rutParcial,
+            @Param("inicio") LocalDate inicio,
+            @Param("fin") LocalDate fin
+    );
+
+    @Query("SELECT r FROM ResumenDiario r JOIN FETCH r.empleado e WHERE " +
+            "(e.rut LIKE CONCAT(:rutParcial, '%') OR " +
+            "REPLACE(REPLACE(e.rut, '.', ''), '-', '') LIKE CONCAT(:rutParcial, '%')) " +
+            "AND r.fecha BETWEEN :inicio AND :fin" + ORDEN)
+    List<ResumenDiario> findAllByRutParcialFlexibleAndFechaBetween(
+            @Param("rutParcial") String rutParcial,
+            @Param("inicio") LocalDate inicio,
+            @Param("fin") LocalDate fin
+    );
+
+    @Modifying
+    @Query("DELETE FROM ResumenDiario r WHERE r.empleado.idEmpleado IN :idsEmpleado AND r.fecha BETWEEN :inicio AND :fin")
+    int deleteByEmpleadosAndFechaBetween(
+            @Param("idsEmpleado") Collection<Long> idsEmpleado,
+            @Param("inicio") LocalDate inicio,
+            @Param("fin") LocalDate fin
+    );
+
+    @Modifying
+    @Query("DELETE FROM ResumenDiario r WHERE r.fecha BETWEEN :inicio AND :fin")
+    int deleteByFechaBetween(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+}
@@ -1,16 +1,35 @@
 package com.relojcontrol.reloj_control.service;
 
+import com.relojcontrol.reloj_control.dto.MarcaResumenDTO;
+import com.relojcontrol.reloj_control.dto.PaginaResumenDTO;
+import com.relojcontrol.reloj_control.dto.ResumenEmpleadoDTO;
 import com.relojcontrol.reloj_control.dto.ResumenAsistenciaDTO;
 import com.relojcontrol.reloj_control.model.Asistencia;
 import com.relojcontrol.reloj_control.model.Empleado;
+import com.relojcontrol.reloj_control.model.ResumenDiario;
+import com.relojcontrol.reloj_control.repository.AsistenciaBatchRepository;
 import com.relojcontrol.reloj_control.repository.AsistenciaRepository;
 import com.relojcontrol.reloj_control.repository.EmpleadoRepository;
+import com.relojcontrol.reloj_control.repository.ResumenDiarioRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Servicio para gestionar las asistencias de los empleados.
@@ -19,40 +38,70 @@ import java.util.stream.Collectors;
  */
 @Service
 public class AsistenciaService implements IAsistenciaService {
-
-    // Constantes para los horarios estándar
-    private static final LocalTime HORA_ENTRADA_NORMAL = LocalTime.of(8, 0);
-    private static final LocalTime HORA_SALIDA_NORMAL = LocalTime.of(18, 0);
-    private static final LocalTime INICIO_HORARIO_50 = LocalTime.of(21, 0);
-    private static final LocalTime FIN_HORARIO_50 = LocalTime.of(6, 0);
+    private static final Logger logger = LoggerFactory.getLogger(AsistenciaService.class);
 
     private final AsistenciaRepository repo;
+    private final AsistenciaBatchRepository batchRepo;
+    private final IParticionAsistenciaService particiones;
     private final ParametroSistemaService paramSvc;
+    private final IHorarioService horarioSvc;
     private final FeriadoService feriadoSvc;
     private final EmpleadoRepository empleadoRepository;
+    private final ResumenDiarioRepository resumenRepo;
+    private final ResumenCache resumenCache;
+    private final ApplicationEventPublisher eventos;
+    private final EntityManager entityManager;
+    private final ForkJoinPool poolResumen;
+    private final int diasPorTarea;
 
     public AsistenciaService(AsistenciaRepository repo,
+                             AsistenciaBatchRepository batchRepo,
+                             IParticionAsistenciaService particiones,
                              ParametroSistemaService paramSvc,
+                             IHorarioService horarioSvc,
                              FeriadoService feriadoSvc,
-                             EmpleadoRepository empleadoRepository) {
+                             EmpleadoRepository empleadoRepository,
+                             ResumenDiarioRepository resumenRepo,
+                             ResumenCache resumenCache,
+                             ApplicationEventPublisher eventos,
+                             EntityManager entityManager,
+                             @Qualifier("resumenForkJoinPool") ForkJoinPool poolResumen,
+                             @Value("${resumen.paralelo.dias-por-tarea:256}") int diasPorTarea) {
         this.repo = repo;
+        this.batchRepo = batchRepo;
+        this.particiones = particiones;
         this.paramSvc = paramSvc;
+        this.horarioSvc = horarioSvc;
         this.feriadoSvc = feriadoSvc;
         this.empleadoRepository = empleadoRepository;
+        this.resumenRepo = resumenRepo;
+        this.resumenCache = resumenCache;
+        this.eventos = eventos;
+        this.entityManager = entityManager;
+        this.poolResumen = poolResumen;
+        this.diasPorTarea = Math.max(1, diasPorTarea);
     }
 
     /**
-     * Obtiene el valor de un parámetro del sistema como entero.
-     *
-     * @param clave Clave del parámetro
-     * @return Valor del parámetro convertido a entero
+     * Horarios y parámetros de la jornada, leídos una sola vez por resumen.
      */
-    private int getIntParam(String clave) {
-        return Integer.parseInt(paramSvc.getValor(clave));
+    private record Jornada(HorariosVigentes horarios, HorarioCompilado predeterminado, int minutosTolerancia) {
+        HorarioCompilado de(long idEmpleado) {
+            HorarioCompilado horario = horarios.de(idEmpleado);
+            return horario != null ? horario : predeterminado;
+        }
+    }
+
+    private Jornada leerJornada() {
+        ParametrosVigentes parametros = paramSvc.vigentes();
+        int horasSemanales = parametros.getEntero("horas_semanales");   // 44 horas por semana
+        int minutosTol = parametros.getEntero("minutos_tolerancia");    // Tolerancia en minutos
+        // Quien no tiene horario asignado trabaja horas_semanales de lunes a viernes
+        return new Jornada(horarioSvc.vigentes(), HorarioCompilado.predeterminado(horasSemanales * 60 / 5), minutosTol);
     }
 
     /**
-     * Calcula la hora de salida esperada para una hora de entrada dada.
+     * Calcula la hora de salida esperada para una hora de entrada dada, con el horario predeterminado.
      * Considera las horas semanales configuradas y la tolerancia permitida.
      *
      * @param entrada Hora de entrada del empleado
@@ -60,106 +109,66 @@ public class AsistenciaService implements IAsistenciaService {
      */
     @Override
     public LocalTime calcularSalidaEsperada(LocalDateTime entrada) {
-        int horasSemanales = getIntParam("horas_semanales");   // 44 horas por semana
-        int minutosTol = getIntParam("minutos_tolerancia");    // Tolerancia en minutos
+        Jornada jornada = leerJornada();
+        return calcularSalidaEsperada(entrada, jornada.predeterminado(), jornada.minutosTolerancia()).toLocalTime();
+    }
 
-        // Si es fin de semana o feriado, no hay horario esperado
+    // Con fecha, porque en un turno nocturno la salida esperada cae al día siguiente
+    private LocalDateTime calcularSalidaEsperada(LocalDateTime entrada, HorarioCompilado horario, int minutosTolerancia) {
+        // Si es feriado o día libre del horario, no hay horario esperado
         LocalDate fecha = entrada.toLocalDate();
-        LocalTime horaEntrada = entrada.toLocalTime();
-        if (feriadoSvc.esFinDeSemanaOFeriado(fecha)) {
-            return horaEntrada;
+        long dia = fecha.toEpochDay();
+        if (esDiaNoLaborable(horario, dia)) {
+            return entrada;
         }
 
-        // Cálculo de minutos de jornada diaria
-        int minutosJornada = horasSemanales * 60 / 5;  // 5 días laborales
+        LocalDateTime inicioJornada = fecha.atStartOfDay().plusMinutes(horario.inicio(dia));
+        if (entrada.isAfter(inicioJornada)) {
+            inicioJornada = entrada;
+        }
+        return inicioJornada
+                .plusMinutes(horario.minutos(dia))
+                .plusMinutes(minutosTolerancia);
+    }
 
-        horaEntrada = horaEntrada.isBefore(LocalTime.of(8, 0)) ? LocalTime.of(8, 0) : horaEntrada;
-        return horaEntrada
-                .plusMinutes(minutosJornada)
-                .plusMinutes(minutosTol);
+    /**
+     * Un día es no laborable si es feriado o si el horario del empleado lo tiene libre; así, un horario que
+     * trabaja el sábado lo cuenta como laboral y uno rotativo descansa en los días de su ciclo.
+     */
+    private boolean esDiaNoLaborable(HorarioCompilado horario, long epochDia) {
+        return horario.minutos(epochDia) == 0 || feriadoSvc.esFeriado(LocalDate.ofEpochDay(epochDia));
     }
 
+    /**
+     * Registra una marca. Si es oficial reemplaza a la oficial del mismo tipo en ese día; si no, y el día
+     * aún no tiene una oficial de ese tipo, se designa la más temprana, igual que al importar.
+     */
     @Override
+    @Transactional
     public Asistencia crearAsistencia(String empleadoId, String tipo, LocalDateTime fecha, boolean esOficial) {
         Empleado emp = empleadoRepository.findByRut(empleadoId)
                 .orElseThrow(() -> new IllegalArgumentException("Empleado no encontrado"));
-        if(repo.existsAsistenciaOficialEnFecha(emp.getIdEmpleado(), fecha.toLocalDate(), tipo)){
-            repo.findAsistenciaOficialEnFecha(emp.getIdEmpleado(), fecha.toLocalDate(), tipo)
-                    .ifPresent(marca -> {
-                        marca.setEsOficial(false);
-                        repo.save(marca);
-                    });
-        }
-        Asistencia asistencia = new Asistencia(emp, fecha, tipo, esOficial);
-
-        return repo.save(asistencia);
+        particiones.asegurar(fecha.toLocalDate(), fecha.toLocalDate());
+        long id = esOficial
+                ? batchRepo.registrarOficial(emp.getIdEmpleado(), fecha, tipo, null)
+                : batchRepo.registrarMarca(emp.getIdEmpleado(), fecha, tipo);
+        eventos.publishEvent(MarcasModificadasEvent.deUnDia(emp.getIdEmpleado(), fecha.toLocalDate()));
+        return repo.findByIdAndFechaHora(id, fecha).orElseThrow();
     }
 
     @Override
     public void crearAsistenciaEnRangoDeFechasDesdeJustificacion(Empleado empleado, LocalDate fechaInicio, LocalDate fechaTermino, String descripcion) {
         List<LocalDate> diasJustificados = rangoFechasLaborables(fechaInicio, fechaTermino);
+        if (diasJustificados.isEmpty()) {
+            return;
+        }
+        particiones.asegurar(diasJustificados.get(0), diasJustificados.get(diasJustificados.size() - 1));
+        String observaciones = "Justificado por " + descripcion;
         diasJustificados.forEach(diaJustificado -> {
-            limpiaOficiales(empleado.getIdEmpleado(), diaJustificado, "ENTRADA");
-            limpiaOficiales(empleado.getIdEmpleado(), diaJustificado, "SALIDA");
-            Asistencia asistenciaEntrada = new Asistencia();
-            asistenciaEntrada.setEmpleado(empleado);
-            asistenciaEntrada.setTipo("ENTRADA");
-            asistenciaEntrada.setFechaHora(diaJustificado.atStartOfDay());
-            asistenciaEntrada.setEsOficial(true);
-            asistenciaEntrada.setObservaciones("Justificado por " + descripcion);
-            repo.save(asistenciaEntrada);
-
-            Asistencia asistenciaSalida = new Asistencia();
-            asistenciaSalida.setEmpleado(empleado);
-            asistenciaSalida.setTipo("SALIDA");
-            asistenciaSalida.setEsOficial(true);
-            asistenciaSalida.setObservaciones("Justificado por " + descripcion);
-            asistenciaSalida.setFechaHora(diaJustificado.atStartOfDay());
-            repo.save(asistenciaSalida);
+            batchRepo.registrarOficial(empleado.getIdEmpleado(), diaJustificado.atStartOfDay(), "ENTRADA", observaciones);
+            batchRepo.registrarOficial(empleado.getIdEmpleado(), diaJustificado.atStartOfDay(), "SALIDA", observaciones);
         });
-    }
-
-    /**
-     * Registro interno para almacenar los minutos extras calculados.
-     */
-    private record MinutosExtras(long extra25, long extra50) {
-    }
-
-    /**
-     * Calcula los minutos extras trabajados, diferenciando entre 25% y 50%.
-     *
-     * @param entrada        Hora de entrada
-     * @param salida         Hora de salida
-     * @param salidaEsperada Hora de salida esperada
-     * @param fecha          Fecha del registro
-     * @return Registro con los minutos extras al 25% y 50%
-     */
-    private MinutosExtras calcularMinutosExtra(LocalTime entrada, LocalTime salida,
-                                               LocalTime salidaEsperada, LocalDate fecha) {
-        if (salida == null) return new MinutosExtras(0, 0);
-
-        // En feriados o fines de semana, todo es extra al 50%
-        if (feriadoSvc.esFinDeSemanaOFeriado(fecha)) {
-            long totalMinutos = Duration.between(entrada, salida).toMinutes();
-            return new MinutosExtras(0, Math.max(0, totalMinutos));
-        }
-
-        // Para días normales
-        if (salida.isBefore(salidaEsperada)) {
-            return new MinutosExtras(0, 0);
-        }
-
-        long totalMinutosExtra = Duration.between(salidaEsperada, salida).toMinutes();
-
-        // Después de las 21:00 o antes de las 6:00 es 50%
-        if (salida.isAfter(INICIO_HORARIO_50) || salida.isBefore(FIN_HORARIO_50)) {
-            long minutos25 = Duration.between(salidaEsperada, INICIO_HORARIO_50).toMinutes();
-            long minutos50 = Duration.between(INICIO_HORARIO_50, salida).toMinutes();
-
-            return new MinutosExtras(minutos25, minutos50);
-        } else {
-            return new MinutosExtras(Math.max(0, totalMinutosExtra), 0);
-        }
+        eventos.publishEvent(new MarcasModificadasEvent(List.of(empleado.getIdEmpleado()), fechaInicio, fechaTermino));
     }
 
     /**
@@ -169,34 +178,25 @@ public class AsistenciaService implements IAsistenciaService {
      * @return Lista de resúmenes de asistencia
      */
     @Override
-    @Transactional(readOnly = false)
+    @Transactional(readOnly = true)
     public List<ResumenAsistenciaDTO> resumenPorDia(LocalDate dia) {
-        List<Asistencia> asistencias = repo.findAllByFecha(dia);
-        return procesarMarcasAsistencia(asistencias);
+        return aDTOs(resumenRepo.findAllByFecha(dia));
     }
 
     /**
      * Devuelve el resumen de asistencia de un empleado por RUT para un día específico
      */
-    @Transactional(readOnly = false)
+    @Transactional(readOnly = true)
     public List<ResumenAsistenciaDTO> resumenPorRutYDia(String rut, LocalDate dia) {
-        LocalDateTime desde = dia.atStartOfDay();
-        LocalDateTime hasta = dia.plusDays(1).atStartOfDay();
-
-        List<Asistencia> marcas = repo.findAllByEmpleadoRutAndFechaBetween(rut, desde, hasta);
-        return procesarMarcasAsistencia(marcas);
+        return aDTOs(resumenRepo.findAllByRutAndFechaBetween(rut, dia, dia));
     }
 
     /**
      * Devuelve el resumen de asistencia de un empleado por RUT para un rango de fechas
      */
-    @Transactional(readOnly = false)
+    @Transactional(readOnly = true)
     public List<ResumenAsistenciaDTO> resumenPorRutYRangoFechas(String rut, LocalDate fechaInicio, LocalDate fechaFin) {
-        LocalDateTime desde = fechaInicio.atStartOfDay();
-        LocalDateTime hasta = fechaFin.plusDays(1).atStartOfDay();
-
-        List<Asistencia> marcas = repo.findAllByEmpleadoRutAndFechaBetween(rut, desde, hasta);
-        return procesarMarcasAsistencia(marcas);
+        return aDTOs(resumenRepo.findAllByRutAndFechaBetween(rut, fechaInicio, fechaFin));
     }
 
     /**
@@ -204,147 +204,354 @@ public class AsistenciaService implements IAsistenciaService {
      */
     @Transactional(readOnly = true)
     public List<ResumenAsistenciaDTO> resumenPorRutParcialFlexibleYRangoFechas(String rutParcial, LocalDate fechaInicio, LocalDate fechaFin) {
-        LocalDateTime desde = fechaInicio.atStartOfDay();
-        LocalDateTime hasta = fechaFin.plusDays(1).atStartOfDay();
-
-        // Logs para depuración
-        System.out.println("Buscando asistencias con RUT parcial (flexible): " + rutParcial);
-        System.out.println("Fechas: " + desde + " a " + hasta);
+        return aDTOs(resumenRepo.findAllByRutParcialFlexibleAndFechaBetween(rutParcial, fechaInicio, fechaFin));
+    }
 
-        List<Asistencia> marcas = repo.findAllByRutParcialFlexibleAndFechaBetween(rutParcial, desde, hasta);
+    /**
+     * Devuelve el resumen de asistencia filtrando por RUT parcial para un rango de fechas, desde el caché si
+     * la misma consulta ya se hizo y sus datos no han cambiado. La lista devuelta no se puede modificar.
+     */
+    public List<ResumenAsistenciaDTO> resumenPorRutParcialYRangoFechas(String rutParcial, LocalDate fechaInicio, LocalDate fechaFin) {
+        ResumenCache.Clave clave = new ResumenCache.Clave(rutParcial, fechaInicio, fechaFin);
+        return resumenCache.obtener(clave, () ->
+                aDTOs(resumenRepo.findAllByRutParcialAndFechaBetween(clave.rut(), fechaInicio, fechaFin)));
+    }
 
-        System.out.println("Marcas encontradas (búsqueda flexible): " + marcas.size());
-        if (!marcas.isEmpty()) {
-            System.out.println("Primera marca (flexible) - Empleado: " + marcas.get(0).getEmpleado().getNombreCompleto() +
-                    ", RUT: " + marcas.get(0).getEmpleado().getRut());
+    /**
+     * Devuelve los resúmenes de varios empleados, agrupados por empleado en el orden de los RUT pedidos.
+     * Los empleados sin resúmenes en el rango van con la lista vacía y los RUT que no existen se omiten.
+     */
+    @Transactional(readOnly = true)
+    public List<ResumenEmpleadoDTO> resumenPorRuts(Collection<String> ruts, LocalDate fechaInicio, LocalDate fechaFin) {
+        // Empleados y resúmenes en una consulta: las filas de cada empleado vienen seguidas
+        Map<String, ResumenEmpleadoDTO> empleados = new HashMap<>();
+        for (Object[] fila : resumenRepo.findEmpleadosYResumenesByRutIn(ruts, fechaInicio, fechaFin)) {
+            Empleado empleado = (Empleado) fila[0];
+            ResumenEmpleadoDTO dto = empleados.computeIfAbsent(empleado.getRut(),
+                    rut -> new ResumenEmpleadoDTO(rut, empleado.getNombreCompleto(), new ArrayList<>()));
+            if (fila[1] != null) {
+                dto.getResumenes().add(aDTO((ResumenDiario) fila[1]));
+            }
         }
+        List<ResumenEmpleadoDTO> resultado = new ArrayList<>(empleados.size());
+        for (String rut : ruts) {
+            ResumenEmpleadoDTO dto = empleados.get(rut);
+            if (dto != null) {
+                resultado.add(dto);
+            }
+        }
+        return resultado;
+    }
 
-        return procesarMarcasAsistencia(marcas);
+    /**
+     * Devuelve una página del resumen filtrando por RUT parcial, ordenada en la base por fecha y nombre.
+     *
+     * @param cursor  Posición tras la cual empieza la página ({@code siguienteCursor} de la anterior), o null para la primera
+     * @param tamano  Cantidad máxima de filas de la página
+     */
+    @Transactional(readOnly = true)
+    public PaginaResumenDTO resumenPaginado(String rutParcial, LocalDate fechaInicio, LocalDate fechaFin,
+                                            String cursor, int tamano) {
+        // Sin cursor se parte antes del primer día del rango
+        CursorResumen desde = cursor == null || cursor.isBlank()
+                ? new CursorResumen(fechaInicio.minusDays(1), "", 0)
+                : CursorResumen.decodificar(cursor);
+        List<ResumenDiario> filas = resumenRepo.findPaginaByRutParcialAndFechaBetween(
+                Objects.toString(rutParcial, ""), fechaInicio, fechaFin,
+                desde.fecha(), desde.nombre(), desde.idResumen(), Limit.of(tamano + 1));
+
+        // Se pide una fila de más solo para saber si hay otra página
+        boolean hayMas = filas.size() > tamano;
+        List<ResumenDiario> pagina = hayMas ? filas.subList(0, tamano) : filas;
+        String siguiente = null;
+        if (hayMas) {
+            ResumenDiario ultima = pagina.get(pagina.size() - 1);
+            siguiente = new CursorResumen(ultima.getFecha(),
+                    Objects.toString(ultima.getEmpleado().getNombreCompleto(), ""), ultima.getIdResumen()).codificar();
+        }
+        return new PaginaResumenDTO(aDTOs(pagina), siguiente);
     }
 
     /**
-     * Método privado para procesar las marcas y convertirlas en DTOs
+     * Entrega el resumen filtrando por RUT parcial fila a fila, en orden de fecha y nombre, sin cargarlo
+     * completo en memoria.
      */
-    private List<ResumenAsistenciaDTO> procesarMarcasAsistencia(List<Asistencia> marcas) {
-        if (marcas == null || marcas.isEmpty()) {
-            return new ArrayList<>();
-        }
-
-        // Agrupar por empleado y fecha para asegurar que no se mezclen datos de diferentes empleados
-        Map<Long, Map<LocalDate, List<Asistencia>>> agrupadoPorEmpleado = marcas.stream()
-                .collect(Collectors.groupingBy(
-                        a -> a.getEmpleado().getIdEmpleado(),
-                        Collectors.groupingBy(a -> a.getFechaHora().toLocalDate())
-                ));
-
-        List<ResumenAsistenciaDTO> resumen = new ArrayList<>();
-
-        agrupadoPorEmpleado.forEach((empleadoId, marcasPorFecha) -> {
-            // Para cada empleado, procesar sus marcas por fecha
-            marcasPorFecha.forEach((fecha, marcasDelDia) -> {
-                try {
-                    // Verificar si hay al menos una marca válida para este empleado
-                    if (marcasDelDia.isEmpty()) {
-                        return;
-                    }
-
-                    // Obtener datos del empleado (usando la primera marca como referencia)
-                    String nombreEmpleado = marcasDelDia.get(0).getEmpleado().getNombreCompleto();
-                    String rutEmpleado = marcasDelDia.get(0).getEmpleado().getRut();
-                    Long idEmpleado = marcasDelDia.get(0).getEmpleado().getIdEmpleado();
-                    Asistencia entrada = null;
-                    Asistencia salida = null;
-                    if(repo.existsAsistenciaOficialEnFecha(idEmpleado, fecha,"ENTRADA")){
-                        entrada = repo.findAsistenciaOficialEnFecha(idEmpleado, fecha, "ENTRADA").get();
-                    } else {
-                        List<Asistencia> entradas = marcasDelDia.stream()
-                                .filter(a -> "ENTRADA".equals(a.getTipo()))
-                                .sorted((a, b) -> a.getFechaHora().compareTo(b.getFechaHora()))
-                                .toList();
-                        entrada = getAsistenciaFromList(entradas);
-                    }
-
-                    if(repo.existsAsistenciaOficialEnFecha(idEmpleado, fecha,"SALIDA")){
-                        salida = repo.findAsistenciaOficialEnFecha(idEmpleado, fecha, "SALIDA").get();
-                    } else {
-                        List<Asistencia> entradas = marcasDelDia.stream()
-                                .filter(a -> "SALIDA".equals(a.getTipo()))
-                                .sorted((a, b) -> a.getFechaHora().compareTo(b.getFechaHora()))
-                                .toList();
-                        salida = getAsistenciaFromList(entradas);
-                    }
-
-
-                    // Verificar si es un día especial (feriado o fin de semana)
-                    boolean esDiaEspecial = feriadoSvc.esFinDeSemanaOFeriado(fecha);
-
-                    // Convertir la fecha a formato más legible
-                    String fechaFormateada = fecha.getDayOfMonth() + "/" +
-                            fecha.getMonthValue() + "/" +
-                            fecha.getYear();
-
-                    createResumenForMarcas(fecha, fechaFormateada, esDiaEspecial, entrada, salida, resumen);
-
-                } catch (Exception e) {
-                    System.err.println("Error al procesar marcas para la fecha " + fecha + ": " + e.getMessage());
-                    e.printStackTrace();
+    @Transactional(readOnly = true)
+    public void recorrerResumen(String rutParcial, LocalDate fechaInicio, LocalDate fechaFin,
+                                Consumer<ResumenAsistenciaDTO> destino) {
+        try (Stream<ResumenDiario> filas = resumenRepo.streamByRutParcialAndFechaBetween(
+                Objects.toString(rutParcial, ""), fechaInicio, fechaFin)) {
+            int[] leidas = {0};
+            filas.forEach(fila -> {
+                destino.accept(aDTO(fila));
+                // Las entidades ya entregadas se sueltan para que la memoria no crezca con el rango
+                if (++leidas[0] % 500 == 0) {
+                    entityManager.clear();
                 }
             });
-        });
+        }
+    }
 
-        return resumen;
+    /**
+     * Posición de una fila en el orden del resumen, codificada en base64 para viajar como texto opaco.
+     */
+    private record CursorResumen(LocalDate fecha, String nombre, long idResumen) {
+
+        String codificar() {
+            String texto = fecha + "\n" + idResumen + "\n" + nombre;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static CursorResumen decodificar(String cursor) {
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", 3);
+                return new CursorResumen(LocalDate.parse(partes[0]), partes[2], Long.parseLong(partes[1]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor de página inválido");
+            }
+        }
+    }
+
+    /**
+     * Calcula en una sola pasada el resumen de cada empleado y día de un flujo de marcas ordenado por
+     * empleado y fecha/hora. Cada resumen se entrega apenas termina su día, así que solo se retienen las
+     * marcas de un empleado-día; la marca oficial se elige entre ellas, sin volver a consultar la base.
+     * <p>
+     * Un turno nocturno se empareja con la primera marca del día siguiente, si el día no tiene una salida
+     * posterior a la entrada; por eso se retiene también el día anterior.
+     * <p>
+     * Con paralelismo mayor que 1, los días cerrados se agrupan en tareas para el pool de resúmenes; se
+     * mantienen pocas tareas en curso y se entregan en el orden del flujo, igual que el cálculo secuencial.
+     * Los resúmenes se entregan en el hilo que llama, con el empleado como referencia sin cargar.
+     *
+     * @param marcas  Marcas ordenadas por empleado y fecha/hora
+     * @param destino Recibe los resúmenes en orden de empleado y fecha
+     * @return Tiempo de cálculo en nanosegundos, sumado entre todos los hilos
+     */
+    public long recorrerResumenes(Stream<MarcaResumenDTO> marcas, Consumer<ResumenDiario> destino) {
+        return recorrerResumenes(marcas, destino, fecha -> { });
+    }
+
+    /**
+     * Igual que {@link #recorrerResumenes(Stream, Consumer)}, avisando además los días que no se pudieron
+     * calcular. Esos días no llegan al destino y el error queda en el registro.
+     *
+     * @param fallidos Recibe la fecha de cada empleado-día con error, en el hilo que llama
+     */
+    public long recorrerResumenes(Stream<MarcaResumenDTO> marcas, Consumer<ResumenDiario> destino,
+                                  Consumer<LocalDate> fallidos) {
+        MotorResumen motor = new MotorResumen(leerJornada(), destino, fallidos);
+        marcas.forEachOrdered(motor::agregar);
+        motor.terminar();
+        return motor.nanosCalculo.sum();
+    }
+
+    /**
+     * Marcas de un empleado en un día, en orden de fecha/hora, y la salida del día siguiente si el turno
+     * cruza la medianoche.
+     */
+    private record DiaEmpleado(long idEmpleado, LocalDate fecha, List<MarcaResumenDTO> marcas,
+                               MarcaResumenDTO salidaSiguiente) {
+    }
+
+    private record TareaResumen(List<DiaEmpleado> dias, ForkJoinTask<List<ResumenDiario>> resultado) {
+    }
+
+    private final class MotorResumen {
+        private final Jornada jornada;
+        private final Consumer<ResumenDiario> destino;
+        private final Consumer<LocalDate> fallidos;
+        private final boolean paralelo = poolResumen.getParallelism() > 1;
+        private final LongAdder nanosCalculo = new LongAdder();
+        private final Deque<TareaResumen> enCurso = new ArrayDeque<>();
+        private List<DiaEmpleado> tanda = new ArrayList<>();
+        private List<MarcaResumenDTO> marcasDelDia = new ArrayList<>();
+        private DiaEmpleado anterior;
+        private long idEmpleado = Long.MIN_VALUE;
+        private LocalDate fecha;
+
+        MotorResumen(Jornada jornada, Consumer<ResumenDiario> destino, Consumer<LocalDate> fallidos) {
+            this.jornada = jornada;
+            this.destino = destino;
+            this.fallidos = fallidos;
+        }
+
+        void agregar(MarcaResumenDTO marca) {
+            LocalDate fechaMarca = marca.fechaHora().toLocalDate();
+            if (marca.idEmpleado() != idEmpleado || !fechaMarca.equals(fecha)) {
+                cerrarDia();
+                idEmpleado = marca.idEmpleado();
+                fecha = fechaMarca;
+            }
+            marcasDelDia.add(marca);
+        }
+
+        void terminar() {
+            cerrarDia();
+            if (anterior != null) {
+                despachar(anterior);
+                anterior = null;
+            }
+            if (!tanda.isEmpty()) {
+                if (enCurso.isEmpty()) {
+                    // Pocos días: no vale la pena pasar por el pool
+                    tanda.forEach(dia -> entregar(dia, calcularDia(dia)));
+                } else {
+                    enviarTanda();
+                }
+            }
+            while (!enCurso.isEmpty()) {
+                entregarTarea(enCurso.poll());
+            }
+        }
+
+        private void cerrarDia() {
+            if (marcasDelDia.isEmpty()) {
+                return;
+            }
+            DiaEmpleado dia = new DiaEmpleado(idEmpleado, fecha, marcasDelDia, null);
+            marcasDelDia = new ArrayList<>();
+            if (anterior != null) {
+                despachar(enlazarTurnoNocturno(anterior, dia));
+            }
+            anterior = dia;
+        }
+
+        /**
+         * Si el día anterior tiene entrada pero no una salida posterior a ella, toma como su salida la primera
+         * marca del día siguiente, si está dentro de la duración máxima de un turno. Se empareja por orden de
+         * hora y no por el tipo guardado: la importación clasifica las marcas por su posición en el día, así
+         * que la salida de un turno de 20:00 a 04:00 queda guardada como la ENTRADA del día siguiente.
+         * <p>
+         * La marca tomada se quita del día siguiente, que aún no se ha calculado. Si estaba guardada como
+         * ENTRADA, las demás marcas de ese día quedaron clasificadas con un desfase de una posición y se
+         * vuelven a clasificar en orden de hora, alternando desde ENTRADA.
+         */
+        private DiaEmpleado enlazarTurnoNocturno(DiaEmpleado anterior, DiaEmpleado siguiente) {
+            if (anterior.idEmpleado() != siguiente.idEmpleado() || !anterior.fecha().plusDays(1).equals(siguiente.fecha())) {
+                return anterior;
+            }
+            MarcaResumenDTO entrada = marcaOficial(anterior.marcas(), "ENTRADA");
+            MarcaResumenDTO salida = marcaOficial(anterior.marcas(), "SALIDA");
+            if (entrada == null || (salida != null && salida.fechaHora().isAfter(entrada.fechaHora()))) {
+                return anterior;
+            }
+            MarcaResumenDTO primera = siguiente.marcas().get(0);
+            if (CalculadoraHorasExtra.minuto(primera.fechaHora()) - CalculadoraHorasExtra.minuto(entrada.fechaHora())
+                    > CalculadoraHorasExtra.DURACION_MAXIMA_TURNO) {
+                return anterior;
+            }
+            siguiente.marcas().remove(0);
+            if ("ENTRADA".equals(primera.tipo())) {
+                reclasificarEnOrden(siguiente.marcas());
+            }
+            return new DiaEmpleado(anterior.idEmpleado(), anterior.fecha(), anterior.marcas(), primera);
+        }
+
+        private void despachar(DiaEmpleado dia) {
+            if (dia.marcas().isEmpty() && dia.salidaSiguiente() == null) {
+                // Su única marca era la salida del turno nocturno del día anterior
+                return;
+            }
+            if (!paralelo) {
+                entregar(dia, calcularDia(dia));
+                return;
+            }
+            tanda.add(dia);
+            if (tanda.size() == diasPorTarea) {
+                enviarTanda();
+            }
+        }
+
+        private void enviarTanda() {
+            List<DiaEmpleado> dias = tanda;
+            tanda = new ArrayList<>(diasPorTarea);
+            enCurso.add(new TareaResumen(dias, poolResumen.submit(() -> dias.stream().map(this::calcularDia).toList())));
+            // Se limita lo pendiente para que la memoria no crezca con el rango
+            while (enCurso.size() > 2 * poolResumen.getParallelism()) {
+                entregarTarea(enCurso.poll());
+            }
+        }
+
+        private void entregarTarea(TareaResumen tarea) {
+            List<ResumenDiario> resumenes = tarea.resultado().join();
+            for (int i = 0; i < resumenes.size(); i++) {
+                entregar(tarea.dias().get(i), resumenes.get(i));
+            }
+        }
+
+        private void entregar(DiaEmpleado dia, ResumenDiario resumen) {
+            if (resumen == null) {
+                fallidos.accept(dia.fecha());
+                return;
+            }
+            resumen.setEmpleado(entityManager.getReference(Empleado.class, dia.idEmpleado()));
+            destino.accept(resumen);
+        }
+
+        private ResumenDiario calcularDia(DiaEmpleado dia) {
+            long inicio = System.nanoTime();
+            try {
+                MarcaResumenDTO entrada = marcaOficial(dia.marcas(), "ENTRADA");
+                MarcaResumenDTO salida = dia.salidaSiguiente() != null ? dia.salidaSiguiente() : marcaOficial(dia.marcas(), "SALIDA");
+
+                // Verificar si es un día especial (feriado o día libre en el horario del empleado)
+                HorarioCompilado horario = jornada.de(dia.idEmpleado());
+                boolean esDiaEspecial = esDiaNoLaborable(horario, dia.fecha().toEpochDay());
+
+                return crearResumen(dia.fecha(), esDiaEspecial, entrada, salida, horario, jornada.minutosTolerancia());
+            } catch (Exception e) {
+                logger.error("Error al procesar las marcas del empleado {} del {}", dia.idEmpleado(), dia.fecha(), e);
+                return null;
+            } finally {
+                nanosCalculo.add(System.nanoTime() - inicio);
+            }
+        }
     }
 
     /**
-     * Método auxiliar para crear un DTO de resumen para un par de marcas o marcas individuales
+     * Método auxiliar para crear el resumen de un día a partir de su par de marcas o de una marca individual
      */
-    private void createResumenForMarcas(LocalDate fecha, String fechaFormateada, boolean esDiaEspecial,
-                                        Asistencia entrada, Asistencia salida, List<ResumenAsistenciaDTO> resumen) {
+    private ResumenDiario crearResumen(LocalDate fecha, boolean esDiaEspecial,
+                                       MarcaResumenDTO entrada, MarcaResumenDTO salida,
+                                       HorarioCompilado horario, int minutosTolerancia) {
 
-        LocalTime horaEnt = entrada != null ? entrada.getFechaHora().toLocalTime() : null;
-        LocalTime horaSalReal = salida != null ? salida.getFechaHora().toLocalTime() : null;
+        LocalTime horaEnt = entrada != null ? entrada.fechaHora().toLocalTime() : null;
+        LocalTime horaSalReal = salida != null ? salida.fechaHora().toLocalTime() : null;
 
         // Calcular salida esperada solo si hay entrada
-        LocalTime horaSalEsp = horaEnt != null ? calcularSalidaEsperada(entrada.getFechaHora()) : null;
+        LocalDateTime salidaEsperada = entrada != null ? calcularSalidaEsperada(entrada.fechaHora(), horario, minutosTolerancia) : null;
+        LocalTime horaSalEsp = salidaEsperada != null ? salidaEsperada.toLocalTime() : null;
 
         // Calcular extras solo si hay entrada y salida
-        MinutosExtras extras = new MinutosExtras(0, 0);
-        if (horaEnt != null && horaSalReal != null) {
-            extras = calcularMinutosExtra(horaEnt, horaSalReal, horaSalEsp, fecha);
+        long extras = 0;
+        if (entrada != null && salida != null) {
+            extras = CalculadoraHorasExtra.calcular(CalculadoraHorasExtra.minuto(entrada.fechaHora()),
+                    CalculadoraHorasExtra.minuto(salida.fechaHora()), CalculadoraHorasExtra.minuto(salidaEsperada),
+                    horario.inicioTramoNocturno(), horario.finTramoNocturno(), dia -> esDiaNoLaborable(horario, dia));
         }
 
-        ResumenAsistenciaDTO dto = new ResumenAsistenciaDTO();
+        ResumenDiario resumen = new ResumenDiario(null, fecha);
 
         // Asignar el ID de la asistencia de entrada o salida, priorizando la de salida para edición de estado
         if (salida != null) {
-            dto.setIdAsistencia(salida.getId());
-            dto.setEstado(salida.getEstado());
+            resumen.setIdAsistencia(salida.id());
+            resumen.setEstado(salida.estado());
         } else if (entrada != null) {
-            dto.setIdAsistencia(entrada.getId());
-            dto.setEstado(entrada.getEstado());
-        }
-
-        dto.setFecha(fechaFormateada); // Fecha formateada DD/MM/YYYY
-
-        // Usar empleado de la entrada o salida, el que esté disponible
-        if (entrada != null) {
-            dto.setNombre(entrada.getEmpleado().getNombreCompleto());
-            dto.setRut(entrada.getEmpleado().getRut());
-        } else if (salida != null) {
-            dto.setNombre(salida.getEmpleado().getNombreCompleto());
-            dto.setRut(salida.getEmpleado().getRut());
+            resumen.setIdAsistencia(entrada.id());
+            resumen.setEstado(entrada.estado());
         }
 
         // Establecer horas de entrada y salida
-        dto.setEntrada(horaEnt != null ? getFormattedTimeDateString(horaEnt) : null);
-        dto.setSalida(horaSalReal != null ? getFormattedTimeDateString(horaSalReal) : null);
-        dto.setSalidaEsperada(horaSalEsp != null ? getFormattedTimeDateString(horaSalEsp) : null);
+        resumen.setEntrada(horaEnt);
+        resumen.setSalida(horaSalReal);
+        resumen.setSalidaEsperada(horaSalEsp);
 
-        dto.setMinutosExtra25((int) extras.extra25());
-        dto.setMinutosExtra50((int) extras.extra50());
+        resumen.setMinutosExtra25(CalculadoraHorasExtra.minutos25(extras));
+        resumen.setMinutosExtra50(CalculadoraHorasExtra.minutos50(extras));
 
         // Establecer si es día especial
-        dto.setEsDiaEspecial(esDiaEspecial);
+        resumen.setEsDiaEspecial(esDiaEspecial);
 
         // Agregar observaciones según las condiciones
         StringBuilder observaciones = new StringBuilder();
@@ -352,7 +559,7 @@ public class AsistenciaService implements IAsistenciaService {
         if (esDiaEspecial) {
             observaciones.append("Día no laborable. ");
 
-            if (extras.extra50() > 0) {
+            if (CalculadoraHorasExtra.minutos50(extras) > 0) {
                 observaciones.append("Horas extras calculadas al 50%. ");
             }
         }
@@ -366,59 +573,51 @@ public class AsistenciaService implements IAsistenciaService {
         }
 
         // Verificar inconsistencias entre entrada y salida
-        if (horaEnt != null && horaSalReal != null && horaSalReal.isBefore(horaEnt)) {
+        if (entrada != null && salida != null && salida.fechaHora().isBefore(entrada.fechaHora())) {
             observaciones.append("Inconsistencia: Salida anterior a entrada. ");
         }
 
-        if (Objects.nonNull(entrada) && Objects.nonNull(entrada.getObservaciones())) {
-            observaciones.append("Entrada: ").append(entrada.getObservaciones()).append(". ");
+        if (salida != null && salida.fechaHora().toLocalDate().isAfter(fecha)) {
+            observaciones.append("Turno nocturno: salida al día siguiente. ");
         }
 
-        if (Objects.nonNull(salida) && Objects.nonNull(salida.getObservaciones())) {
-            observaciones.append("Salida: ").append(salida.getObservaciones());
+        if (Objects.nonNull(entrada) && Objects.nonNull(entrada.observaciones())) {
+            observaciones.append("Entrada: ").append(entrada.observaciones()).append(". ");
         }
 
+        if (Objects.nonNull(salida) && Objects.nonNull(salida.observaciones())) {
+            observaciones.append("Salida: ").append(salida.observaciones());
+        }
 
-        dto.setObservaciones(observaciones.toString().trim());
-
-        resumen.add(dto);
+        resumen.setObservaciones(observaciones.toString().trim());
+        return resumen;
     }
 
-    /**
-     * Devuelve el resumen de asistencia filtrando por RUT parcial para un rango de fechas
-     */
-    @Transactional(readOnly = false)
-    public List<ResumenAsistenciaDTO> resumenPorRutParcialYRangoFechas(String rutParcial, LocalDate fechaInicio, LocalDate fechaFin) {
-        LocalDateTime desde = fechaInicio.atStartOfDay();
-        LocalDateTime hasta = fechaFin.plusDays(1).atStartOfDay();
-
-        // Logs para depuración
-        System.out.println("==================== INICIO DEPURACIÓN ====================");
-        System.out.println("Buscando asistencias con RUT parcial: " + rutParcial);
-        System.out.println("Fechas: " + desde + " a " + hasta);
-
-        // Verificar si el RUT existe
-        List<Empleado> empleados = repo.findAll().stream()
-                .map(Asistencia::getEmpleado)
-                .distinct()
-                .filter(e -> e.getRut().startsWith(rutParcial))
-                .collect(Collectors.toList());
-
-        System.out.println("Empleados encontrados con RUT que comienza con " + rutParcial + ": " +
-                empleados.stream().map(e -> e.getNombreCompleto() + " (" + e.getRut() + ")").collect(Collectors.joining(", ")));
-
-        // Buscar marcas con el repositorio
-        List<Asistencia> marcas = repo.findAllByRutParcialAndFechaBetween(rutParcial, desde, hasta);
+    private List<ResumenAsistenciaDTO> aDTOs(List<ResumenDiario> resumenes) {
+        return resumenes.stream().map(this::aDTO).collect(Collectors.toCollection(ArrayList::new));
+    }
 
-        System.out.println("Marcas encontradas con repositorio: " + marcas.size());
-        if (!marcas.isEmpty()) {
-            System.out.println("Primera marca - Empleado: " + marcas.get(0).getEmpleado().getNombreCompleto() +
-                    ", RUT: " + marcas.get(0).getEmpleado().getRut());
+    private ResumenAsistenciaDTO aDTO(ResumenDiario resumen) {
+        ResumenAsistenciaDTO dto = new ResumenAsistenciaDTO();
+        dto.setIdAsistencia(resumen.getIdAsistencia());
+        if (resumen.getEstado() != null) {
+            dto.setEstado(resumen.getEstado());
         }
 
-        System.out.println("==================== FIN DEPURACIÓN ====================");
-
-        return procesarMarcasAsistencia(marcas);
+        // Convertir la fecha a formato más legible
+        LocalDate fecha = resumen.getFecha();
+        dto.setFecha(fecha.getDayOfMonth() + "/" + fecha.getMonthValue() + "/" + fecha.getYear());
+
+        dto.setNombre(resumen.getEmpleado().getNombreCompleto());
+        dto.setRut(resumen.getEmpleado().getRut());
+        dto.setEntrada(resumen.getEntrada() != null ? getFormattedTimeDateString(resumen.getEntrada()) : null);
+        dto.setSalida(resumen.getSalida() != null ? getFormattedTimeDateString(resumen.getSalida()) : null);
+        dto.setSalidaEsperada(resumen.getSalidaEsperada() != null ? getFormattedTimeDateString(resumen.getSalidaEsperada()) : null);
+        dto.setMinutosExtra25(resumen.getMinutosExtra25());
+        dto.setMinutosExtra50(resumen.getMinutosExtra50());
+        dto.setEsDiaEspecial(resumen.isEsDiaEspecial());
+        dto.setObservaciones(resumen.getObservaciones());
+        return dto;
     }
 
     /**
@@ -439,29 +638,12 @@ public class AsistenciaService implements IAsistenciaService {
         // Actualizar el estado
         asistencia.setEstado(estado);
         repo.save(asistencia);
+        eventos.publishEvent(MarcasModificadasEvent.deUnDia(
+                asistencia.getEmpleado().getIdEmpleado(), asistencia.getFechaHora().toLocalDate()));
 
         return true;
     }
 
-    /**
-     * Actualiza el campo es oficial de una asistencia.
-     *
-     * @param id     ID de la asistencia
-     * @param esOficial
-     * @return true si se actualizó correctamente, false si no se encontró la asistencia
-     */
-    @Transactional
-    public Asistencia actualizarEsOficialDeUnaAsistencia(Long id, Boolean esOficial) {
-        Optional<Asistencia> asistenciaOpt = repo.findById(id);
-
-        if(asistenciaOpt.isEmpty()){
-            return null;
-        }
-        Asistencia asistencia = asistenciaOpt.get();
-        asistencia.setEsOficial(esOficial);
-        return repo.save(asistencia);
-    }
-
     private String getFormattedTimeDateString(LocalTime hora){
         if(hora.getSecond() == 0){
             return hora.toString() + ":00";
@@ -469,13 +651,39 @@ public class AsistenciaService implements IAsistenciaService {
         return hora.toString();
     }
 
-    private Asistencia getAsistenciaFromList(List<Asistencia> asistencias){
-        if (asistencias.isEmpty()){
-            return null;
+    /**
+     * Elige entre las marcas de un empleado en un día, ordenadas por fecha/hora, la oficial del tipo
+     * indicado; si ninguna lo es, la más temprana de ese tipo. No modifica las marcas: la oficial se
+     * designa al escribirlas.
+     */
+    private static MarcaResumenDTO marcaOficial(List<MarcaResumenDTO> marcasDelDia, String tipo) {
+        MarcaResumenDTO primera = null;
+        for (MarcaResumenDTO marca : marcasDelDia) {
+            if (!tipo.equals(marca.tipo())) {
+                continue;
+            }
+            if (Boolean.TRUE.equals(marca.esOficial())) {
+                return marca;
+            }
+            if (primera == null) {
+                // Marcas anteriores a la designación al escribir: se usa la misma regla sin persistirla
+                primera = marca;
+            }
         }
-        Asistencia asistencia = asistencias.get(0);
+        return primera;
+    }
 
-        return actualizarEsOficialDeUnaAsistencia(asistencia.getId(), true);
+    /**
+     * Vuelve a clasificar ENTRADA/SALIDA las marcas de un día, ordenadas por fecha/hora, alternando desde
+     * ENTRADA como al importar. La designación de oficiales se hizo con los tipos anteriores, así que se
+     * descarta y {@link #marcaOficial} toma la más temprana de cada tipo.
+     */
+    private static void reclasificarEnOrden(List<MarcaResumenDTO> marcasDelDia) {
+        for (int i = 0; i < marcasDelDia.size(); i++) {
+            MarcaResumenDTO marca = marcasDelDia.get(i);
+            marcasDelDia.set(i, new MarcaResumenDTO(marca.id(), marca.idEmpleado(), marca.fechaHora(),
+                    i % 2 == 0 ? "ENTRADA" : "SALIDA", marca.estado(), null, marca.observaciones()));
+        }
     }
 
     /**
@@ -511,14 +719,4 @@ public class AsistenciaService implements IAsistenciaService {
                 // colecciona en lista inmutable (Java 21+)
                 .toList();
     }
-
-    private void limpiaOficiales(Long empleadoId, LocalDate fecha, String tipo){
-        if(repo.existsAsistenciaOficialEnFecha(empleadoId, fecha, tipo)){
-            repo.findAsistenciaOficialEnFecha(empleadoId, fecha, tipo)
-                    .ifPresent(marca -> {
-                        marca.setEsOficial(false);
-                        repo.save(marca);
-                    });
-        }
-    }
 }
@@ -0,0 +1,106 @@
+package com.relojcontrol.reloj_control.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Calcula los minutos extra de un turno y los separa en los recargos del 25% y del 50%.
+ * <p>
+ * Trabaja con minutos desde 1970-01-01T00:00 en hora local ({@link #minuto(LocalDateTime)}), así un
+ * turno que cruza la medianoche es un solo intervalo [entrada, salida). Es extra lo trabajado desde la
+ * salida esperada, o todo el turno si empieza en un día especial (fin de semana o feriado). Cada minuto
+ * extra va al 50% si cae en un día especial o en el tramo nocturno (por omisión desde las 21:00 hasta las
+ * 06:00; cada horario puede definir el suyo), y al 25% en otro caso; los tramos se obtienen intersectando
+ * intervalos, día por día.
+ * <p>
+ * No crea objetos: el resultado se empaqueta en un long que se lee con {@link #minutos25(long)} y
+ * {@link #minutos50(long)}.
+ */
+public final class CalculadoraHorasExtra {
+
+    public static final int MINUTOS_DIA = 24 * 60;
+    public static final int FIN_TRAMO_NOCTURNO = 6 * 60;
+    public static final int INICIO_TRAMO_NOCTURNO = 21 * 60;
+
+    // Un turno más largo se considera un error de marcas y no se empareja entrada con salida
+    public static final int DURACION_MAXIMA_TURNO = 16 * 60;
+
+    /**
+     * Indica si un día, en días desde 1970-01-01, es fin de semana o feriado.
+     */
+    @FunctionalInterface
+    public interface Calendario {
+        boolean esDiaEspecial(long epochDia);
+    }
+
+    private CalculadoraHorasExtra() {
+    }
+
+    public static long minuto(LocalDateTime fechaHora) {
+        return Math.floorDiv(fechaHora.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * @param entrada        Minuto de entrada
+     * @param salida         Minuto de salida, que puede ser de un día posterior al de la entrada
+     * @param salidaEsperada Minuto desde el que se cuentan extras en un día laboral
+     * @param calendario     Días especiales
+     * @return Minutos al 25% y al 50%, empaquetados
+     */
+    public static long calcular(long entrada, long salida, long salidaEsperada, Calendario calendario) {
+        return calcular(entrada, salida, salidaEsperada, INICIO_TRAMO_NOCTURNO, FIN_TRAMO_NOCTURNO, calendario);
+    }
+
+    /**
+     * Como {@link #calcular(long, long, long, Calendario)}, con otro tramo nocturno.
+     *
+     * @param inicioNocturno Minuto del día en que empieza el tramo nocturno
+     * @param finNocturno    Minuto del día en que termina; si es anterior al inicio, el tramo cruza la medianoche
+     */
+    public static long calcular(long entrada, long salida, long salidaEsperada,
+                                int inicioNocturno, int finNocturno, Calendario calendario) {
+        if (salida <= entrada) {
+            return 0;
+        }
+        long desde = calendario.esDiaEspecial(Math.floorDiv(entrada, MINUTOS_DIA)) ? entrada : Math.max(entrada, salidaEsperada);
+        long minutos25 = 0;
+        long minutos50 = 0;
+        long dia = Math.floorDiv(desde, MINUTOS_DIA);
+        for (long inicioDia = dia * MINUTOS_DIA; inicioDia < salida; inicioDia += MINUTOS_DIA, dia++) {
+            long tramo = interseccion(desde, salida, inicioDia, inicioDia + MINUTOS_DIA);
+            if (tramo == 0) {
+                continue;
+            }
+            if (calendario.esDiaEspecial(dia)) {
+                minutos50 += tramo;
+                continue;
+            }
+            long nocturno = inicioNocturno < finNocturno
+                    ? interseccion(desde, salida, inicioDia + inicioNocturno, inicioDia + finNocturno)
+                    : interseccion(desde, salida, inicioDia, inicioDia + finNocturno)
+                    + interseccion(desde, salida, inicioDia + inicioNocturno, inicioDia + MINUTOS_DIA);
+            minutos50 += nocturno;
+            minutos25 += tramo - nocturno;
+        }
+        return empaquetar(minutos25, minutos50);
+    }
+
+    public static int minutos25(long resultado) {
+        return (int) (resultado >>> 32);
+    }
+
+    public static int minutos50(long resultado) {
+        return (int) resultado;
+    }
+
+    static long empaquetar(long minutos25, long minutos50) {
+        return (minutos25 << 32) | (minutos50 & 0xFFFF_FFFFL);
+    }
+
+    /**
+     * Largo de la intersección de [a, b) con [c, d).
+     */
+    private static long interseccion(long a, long b, long c, long d) {
+        return Math.max(0, Math.min(b, d) - Math.max(a, c));
+    }
+}
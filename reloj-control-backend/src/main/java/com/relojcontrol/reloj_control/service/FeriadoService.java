@@ -3,29 +3,52 @@ package com.relojcontrol.reloj_control.service;
 import com.relojcontrol.reloj_control.model.Feriado;
 import com.relojcontrol.reloj_control.repository.FeriadoRepository;
 import com.relojcontrol.reloj_control.util.FeriadosConstantes;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.time.DayOfWeek;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Feriados del cálculo: los fijos anuales de {@link FeriadosConstantes} más los registrados en la base.
+ * Los registrados se consultan día a día desde una copia en memoria de las fechas activas, que se
+ * reemplaza al confirmarse un cambio; los resúmenes guardados de ese día se reconstruyen después (ver
+ * {@link ResumenDiarioService#alModificarReglas}).
+ */
 @Service
 public class FeriadoService {
 
     private final FeriadoRepository feriadoRepository;
+    private final ApplicationEventPublisher eventos;
+    private final AtomicReference<Set<LocalDate>> fechas = new AtomicReference<>();
 
-    public FeriadoService(FeriadoRepository feriadoRepository) {
+    public FeriadoService(FeriadoRepository feriadoRepository, ApplicationEventPublisher eventos) {
         this.feriadoRepository = feriadoRepository;
+        this.eventos = eventos;
+    }
+
+    public void recargar() {
+        fechas.set(Set.copyOf(feriadoRepository.findFechasActivas()));
     }
 
     public boolean esFeriado(LocalDate fecha) {
-        return FeriadosConstantes.esFeriado(fecha);
+        Set<LocalDate> actuales = fechas.get();
+        if (actuales == null) {
+            recargar();
+            actuales = fechas.get();
+        }
+        return FeriadosConstantes.esFeriado(fecha) || actuales.contains(fecha);
     }
 
     public boolean esFinDeSemanaOFeriado(LocalDate fecha) {
-        return fecha.getDayOfWeek() == DayOfWeek.SATURDAY || 
-               fecha.getDayOfWeek() == DayOfWeek.SUNDAY || 
+        return fecha.getDayOfWeek() == DayOfWeek.SATURDAY ||
+               fecha.getDayOfWeek() == DayOfWeek.SUNDAY ||
                esFeriado(fecha);
     }
 
@@ -37,7 +60,9 @@ public class FeriadoService {
     @Transactional
     public Feriado agregarFeriado(LocalDate fecha, String descripcion) {
         Feriado feriado = new Feriado(fecha, descripcion);
-        return feriadoRepository.save(feriado);
+        Feriado guardado = feriadoRepository.save(feriado);
+        recargarAlConfirmar(fecha);
+        return guardado;
     }
 
     @Transactional
@@ -45,6 +70,7 @@ public class FeriadoService {
         feriadoRepository.findById(id).ifPresent(feriado -> {
             feriado.setActivo(false);
             feriadoRepository.save(feriado);
+            recargarAlConfirmar(feriado.getFecha());
         });
     }
 
@@ -52,4 +78,15 @@ public class FeriadoService {
     public List<Feriado> listarTodos() {
         return feriadoRepository.findAll();
     }
-} 
\ No newline at end of file
+
+    // Desde el día anterior: su turno nocturno puede terminar en el feriado y pagar esas horas al 50%
+    private void recargarAlConfirmar(LocalDate fecha) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recargar();
+                eventos.publishEvent(new ReglasResumenModificadasEvent("feriados", fecha.minusDays(1), fecha));
+            }
+        });
+    }
+}
@@ -1,33 +1,55 @@
 package com.relojcontrol.reloj_control.service;
 
-import com.relojcontrol.reloj_control.model.Asistencia;
-import com.relojcontrol.reloj_control.model.Empleado;
-import com.relojcontrol.reloj_control.model.Usuario;
-import com.relojcontrol.reloj_control.repository.AsistenciaRepository;
-import com.relojcontrol.reloj_control.repository.EmpleadoRepository;
-import com.relojcontrol.reloj_control.repository.UsuarioRepository;
+import com.relojcontrol.reloj_control.dto.ResultadoImportacionDTO;
+import com.relojcontrol.reloj_control.service.importacion.CargaMasivaCopy;
+import com.relojcontrol.reloj_control.service.importacion.ContextoImportacion;
+import com.relojcontrol.reloj_control.service.importacion.EntradaComprimida;
+import com.relojcontrol.reloj_control.service.importacion.LectorMarcasDat;
+import com.relojcontrol.reloj_control.service.importacion.MarcaLeida;
+import com.relojcontrol.reloj_control.service.importacion.ProcesadorLoteMarcas;
+import com.relojcontrol.reloj_control.service.importacion.ProgresoImportacion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Optional;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class FileImportService implements IFileImportService {
-    private final EmpleadoRepository empleadoRepository;
-    private final UsuarioRepository usuarioRepository;
-    private final AsistenciaRepository asistenciaRepository;
-    private final DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Logger logger = LoggerFactory.getLogger(FileImportService.class);
 
-    public FileImportService(EmpleadoRepository empleadoRepository,
-                             UsuarioRepository usuarioRepository,
-                             AsistenciaRepository asistenciaRepository) {
-        this.empleadoRepository = empleadoRepository;
-        this.usuarioRepository = usuarioRepository;
-        this.asistenciaRepository = asistenciaRepository;
+    private final ProcesadorLoteMarcas procesadorLote;
+    private final CargaMasivaCopy cargaMasiva;
+    private final ThreadPoolTaskExecutor particionesExecutor;
+    private final IParticionAsistenciaService particiones;
+    private final int tamanoLote;
+
+    public FileImportService(ProcesadorLoteMarcas procesadorLote,
+                             CargaMasivaCopy cargaMasiva,
+                             @Qualifier("importacionParticionesExecutor") ThreadPoolTaskExecutor particionesExecutor,
+                             IParticionAsistenciaService particiones,
+                             @Value("${importacion.tamano-lote:5000}") int tamanoLote) {
+        this.procesadorLote = procesadorLote;
+        this.cargaMasiva = cargaMasiva;
+        this.particionesExecutor = particionesExecutor;
+        this.particiones = particiones;
+        this.tamanoLote = tamanoLote;
     }
 
     /**
@@ -70,58 +92,265 @@ public class FileImportService implements IFileImportService {
         }
     }
 
-    private String determinarTipoMarca(Empleado empleado, LocalDateTime fechaHora) {
-        // Contar las marcas del día para este empleado
-        long marcasDelDia = asistenciaRepository.findAllByEmpleadoIdEmpleado(empleado.getIdEmpleado())
-                .stream()
-                .filter(a -> a.getFechaHora().toLocalDate().equals(fechaHora.toLocalDate()))
-                .count();
+    @Override
+    public ResultadoImportacionDTO importarDat(MultipartFile file) throws Exception {
+        try (InputStream in = file.getInputStream()) {
+            return importar(receptor -> LectorMarcasDat.leer(in, receptor), file.getOriginalFilename(), new ProgresoImportacion(), 1);
+        }
+    }
 
-        // Si el número de marcas es par (0, 2, 4...) entonces es una ENTRADA
-        // Si es impar (1, 3, 5...) entonces es una SALIDA
-        return marcasDelDia % 2 == 0 ? "ENTRADA" : "SALIDA";
+    @Override
+    public ResultadoImportacionDTO importar(Path archivo, long desde, String nombreArchivo, ProgresoImportacion progreso) throws IOException {
+        return importar(receptor -> LectorMarcasDat.leer(archivo, desde, receptor), nombreArchivo, progreso, 1);
     }
 
     @Override
-    public void importarDat(MultipartFile file) throws Exception {
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(file.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] cols = line.trim().split("\\t");
-                if (cols.length < 2) continue;
-
-                String rutSinDV = cols[0].trim();
-                LocalDateTime fechaHora = LocalDateTime.parse(cols[1], fmt);
-
-                Optional<Empleado> empleadoOpt = empleadoRepository.findByRut(rutSinDV);
-
-                Empleado empleado;
-
-                if (empleadoOpt.isPresent()) {
-                    empleado = empleadoOpt.get();
-                } else {
-                    Usuario usuario = new Usuario(rutSinDV, rutSinDV.substring(0, 4), "ROLE_USER", "ACTIVO");
-                    usuario = usuarioRepository.save(usuario);
-                    empleado = new Empleado(null, rutSinDV, usuario);
-                    empleado = empleadoRepository.save(empleado);
+    public ResultadoImportacionDTO importarEnParalelo(Path archivo, long desde, String nombreArchivo, ProgresoImportacion progreso) throws IOException {
+        return importar(receptor -> LectorMarcasDat.leer(archivo, desde, receptor), nombreArchivo, progreso,
+                particionesExecutor.getMaxPoolSize());
+    }
+
+    /**
+     * @param particiones Cantidad de grupos de empleados que se importan en paralelo; con 1 se importa en el hilo actual
+     */
+    private ResultadoImportacionDTO importar(FuenteMarcas fuente, String nombreArchivo, ProgresoImportacion progreso,
+                                             int particiones) throws IOException {
+        List<MarcaLeida> marcas = new ArrayList<>();
+        fuente.leer(receptor(nombreArchivo, progreso, (rut, epochSegundo) -> marcas.add(new MarcaLeida(rut, epochSegundo))));
+
+        if (!marcas.isEmpty()) {
+            // Ordenadas por empleado y hora, las marcas de cada día se clasifican en una sola pasada
+            marcas.sort(Comparator.comparing(MarcaLeida::rut).thenComparingLong(MarcaLeida::epochSegundo));
+            if (particiones <= 1) {
+                ContextoImportacion contexto = crearContextos(marcas, new long[]{marcas.size()}).get(0);
+                importarParticion(marcas, contexto, progreso, new AtomicBoolean());
+            } else {
+                importarEnParticiones(marcas, particiones, progreso);
+            }
+        }
+
+        ResultadoImportacionDTO resultado = progreso.instantanea();
+        logger.info("Importación de {} terminada: {}", nombreArchivo, resultado);
+        return resultado;
+    }
+
+    @Override
+    public ResultadoImportacionDTO importarFlujo(InputStream in, String nombreArchivo, ProgresoImportacion progreso) throws IOException {
+        // Solo se mantiene en memoria el lote en curso, sea cual sea el tamaño del archivo
+        List<MarcaLeida> lote = new ArrayList<>(tamanoLote);
+        LectorMarcasDat.leer(EntradaComprimida.abrir(in), receptor(nombreArchivo, progreso, (rut, epochSegundo) -> {
+            lote.add(new MarcaLeida(rut, epochSegundo));
+            if (lote.size() == tamanoLote) {
+                procesarLoteIndependiente(lote, progreso);
+                lote.clear();
+            }
+        }));
+        procesarLoteIndependiente(lote, progreso);
+
+        ResultadoImportacionDTO resultado = progreso.instantanea();
+        logger.info("Importación en flujo de {} terminada: {}", nombreArchivo, resultado);
+        return resultado;
+    }
+
+    /**
+     * Procesa un lote sin estado compartido con los demás: su contexto cubre solo los días del lote y se
+     * llena desde la base, que ya tiene lo guardado por los lotes anteriores. Así la clasificación sigue
+     * el orden de llegada entre lotes, como ocurre con los archivos del reloj, que vienen en orden cronológico.
+     */
+    private void procesarLoteIndependiente(List<MarcaLeida> lote, ProgresoImportacion progreso) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        lote.sort(Comparator.comparing(MarcaLeida::rut).thenComparingLong(MarcaLeida::epochSegundo));
+        Ventana ventana = ventana(lote);
+        ContextoImportacion contexto = ContextoImportacion.exacto(ventana.desde(), ventana.hasta(), 2L * lote.size());
+        progreso.loteProcesado(procesadorLote.procesar(lote, contexto));
+    }
+
+    @Override
+    public ResultadoImportacionDTO importarConCopy(Path archivo, long desde, String nombreArchivo, ProgresoImportacion progreso) throws IOException {
+        // Las líneas se validan aquí y se envían ya normalizadas a la tabla de paso; un error de formato haría fallar el COPY completo
+        progreso.loteProcesado(cargaMasiva.cargar(salida -> {
+            char[][] fila = {new char[64]};
+            LectorMarcasDat.leer(archivo, desde, receptor(nombreArchivo, progreso, (rut, epochSegundo) -> {
+                // Cada carácter del RUT puede ocupar dos al escaparlo, más la fecha y los separadores
+                if (fila[0].length < 2 * rut.length() + 32) {
+                    fila[0] = new char[2 * rut.length() + 32];
                 }
+                salida.write(fila[0], 0, filaCopy(fila[0], rut, epochSegundo));
+            }));
+        }));
 
-                // Determinar tipo de marca (ENTRADA/SALIDA/MARCA)
-                String tipo = determinarTipoMarca(empleado, fechaHora);
+        ResultadoImportacionDTO resultado = progreso.instantanea();
+        logger.info("Importación con COPY de {} terminada: {}", nombreArchivo, resultado);
+        return resultado;
+    }
 
+    /**
+     * Escribe en {@code fila} la línea {@code rut<TAB>yyyy-MM-dd HH:mm:ss\n} para COPY, con las barras
+     * invertidas del RUT duplicadas como pide el formato de texto de COPY (el RUT no trae tabuladores ni
+     * saltos de línea, que separan las columnas y las líneas del archivo).
+     *
+     * @return Cantidad de caracteres escritos
+     */
+    private static int filaCopy(char[] fila, String rut, long epochSegundo) {
+        int n = 0;
+        for (int i = 0; i < rut.length(); i++) {
+            char c = rut.charAt(i);
+            if (c == '\\') {
+                fila[n++] = '\\';
+            }
+            fila[n++] = c;
+        }
+        LocalDateTime f = LocalDateTime.ofEpochSecond(epochSegundo, 0, ZoneOffset.UTC);
+        fila[n++] = '\t';
+        n = rellenar(fila, n, f.getYear(), 4);
+        fila[n++] = '-';
+        n = rellenar(fila, n, f.getMonthValue(), 2);
+        fila[n++] = '-';
+        n = rellenar(fila, n, f.getDayOfMonth(), 2);
+        fila[n++] = ' ';
+        n = rellenar(fila, n, f.getHour(), 2);
+        fila[n++] = ':';
+        n = rellenar(fila, n, f.getMinute(), 2);
+        fila[n++] = ':';
+        n = rellenar(fila, n, f.getSecond(), 2);
+        fila[n++] = '\n';
+        return n;
+    }
 
-                // Verificar si ya existe una marca en ese momento exacto
-                boolean yaExiste = asistenciaRepository
-                        .existsByEmpleadoIdEmpleadoAndFechaHora(empleado.getIdEmpleado(), fechaHora);
+    private static int rellenar(char[] destino, int desde, int valor, int ancho) {
+        for (int i = desde + ancho - 1; i >= desde; i--) {
+            destino[i] = (char) ('0' + valor % 10);
+            valor /= 10;
+        }
+        return desde + ancho;
+    }
 
-                if (!yaExiste) {
-                    Asistencia asistencia = new Asistencia(empleado, fechaHora, tipo);
-                    asistenciaRepository.save(asistencia);
-                } else {
-                    System.out.println("Asistencia ya existe");
+    /**
+     * Reparte las marcas por hash del RUT y procesa cada partición en su propio hilo, con sus propias
+     * transacciones y conexiones. Las marcas de un empleado quedan todas en la misma partición y en el
+     * mismo orden, así que la clasificación ENTRADA/SALIDA es la misma que en la importación secuencial.
+     */
+    private void importarEnParticiones(List<MarcaLeida> marcas, int particiones, ProgresoImportacion progreso) {
+        List<List<MarcaLeida>> grupos = new ArrayList<>(particiones);
+        for (int i = 0; i < particiones; i++) {
+            grupos.add(new ArrayList<>(marcas.size() / particiones + 1));
+        }
+        for (MarcaLeida marca : marcas) {
+            grupos.get(particion(marca.rut(), particiones)).add(marca);
+        }
+        long[] lineasPorParticion = grupos.stream().mapToLong(List::size).toArray();
+        List<ContextoImportacion> contextos = crearContextos(marcas, lineasPorParticion);
+
+        // Si una partición falla, las demás se detienen al terminar su lote en curso
+        AtomicBoolean cancelada = new AtomicBoolean();
+        List<CompletableFuture<Void>> tareas = new ArrayList<>(particiones);
+        for (int i = 0; i < particiones; i++) {
+            List<MarcaLeida> grupo = grupos.get(i);
+            ContextoImportacion contexto = contextos.get(i);
+            if (grupo.isEmpty()) {
+                continue;
+            }
+            tareas.add(CompletableFuture.runAsync(() -> {
+                try {
+                    importarParticion(grupo, contexto, progreso, cancelada);
+                } catch (RuntimeException e) {
+                    cancelada.set(true);
+                    throw e;
+                }
+            }, particionesExecutor));
+        }
+        try {
+            CompletableFuture.allOf(tareas.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException causa ? causa : e;
+        }
+    }
+
+    /**
+     * Cada lote se resuelve con unas pocas consultas y se guarda en su propia transacción.
+     */
+    private void importarParticion(List<MarcaLeida> marcas, ContextoImportacion contexto,
+                                   ProgresoImportacion progreso, AtomicBoolean cancelada) {
+        for (int desde = 0; desde < marcas.size() && !cancelada.get(); desde += tamanoLote) {
+            List<MarcaLeida> lote = marcas.subList(desde, Math.min(desde + tamanoLote, marcas.size()));
+            progreso.loteProcesado(procesadorLote.procesar(lote, contexto));
+        }
+    }
+
+    private static int particion(String rut, int particiones) {
+        // Se mezclan los bits para que RUTs correlativos no caigan siempre en particiones vecinas
+        return Math.floorMod(Long.hashCode(rut.hashCode() * 0x9E3779B97F4A7C15L), particiones);
+    }
+
+    @FunctionalInterface
+    private interface FuenteMarcas {
+        void leer(LectorMarcasDat.Receptor receptor) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface MarcaValida {
+        void aceptar(String rut, long epochSegundo) throws IOException;
+    }
+
+    /**
+     * Receptor que cuenta las líneas en el progreso y registra las inválidas. Las marcas de meses que no
+     * se admiten (por ejemplo, las de un reloj que volvió al año 2000) se cuentan como errores y no se guardan.
+     */
+    private LectorMarcasDat.Receptor receptor(String nombreArchivo, ProgresoImportacion progreso, MarcaValida destino) {
+        long admitidasDesde = particiones.primerMesAdmitido().atDay(1).toEpochDay() * 86_400L;
+        long admitidasHasta = particiones.ultimoMesAdmitido().plusMonths(1).atDay(1).toEpochDay() * 86_400L;
+        return new LectorMarcasDat.Receptor() {
+            @Override
+            public void marca(String rut, long epochSegundo) {
+                if (epochSegundo < admitidasDesde || epochSegundo >= admitidasHasta) {
+                    progreso.lineaLeida();
+                    progreso.lineaConError();
+                    logger.warn("Marca fuera de los meses admitidos en {}: RUT {} el {}", nombreArchivo, rut,
+                            LocalDateTime.ofEpochSecond(epochSegundo, 0, ZoneOffset.UTC));
+                    return;
                 }
+                progreso.marcaLeida(epochSegundo);
+                try {
+                    destino.aceptar(rut, epochSegundo);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void lineaInvalida(String linea) {
+                progreso.lineaLeida();
+                progreso.lineaConError();
+                logger.warn("Línea inválida en {}: {}", nombreArchivo, linea);
             }
+        };
+    }
+
+    private record Ventana(LocalDateTime desde, LocalDateTime hasta) {
+    }
+
+    /**
+     * Días completos que cubren las marcas: desde el inicio del primer día hasta el inicio del día siguiente al último.
+     */
+    private static Ventana ventana(List<MarcaLeida> marcas) {
+        long primera = marcas.get(0).epochSegundo();
+        long ultima = primera;
+        for (MarcaLeida marca : marcas) {
+            primera = Math.min(primera, marca.epochSegundo());
+            ultima = Math.max(ultima, marca.epochSegundo());
         }
+        LocalDate desde = LocalDate.ofEpochDay(Math.floorDiv(primera, 86_400L));
+        LocalDate hasta = LocalDate.ofEpochDay(Math.floorDiv(ultima, 86_400L)).plusDays(1);
+        return new Ventana(desde.atStartOfDay(), hasta.atStartOfDay());
+    }
+
+    /**
+     * Crea los contextos de importación con la ventana de días que cubre el archivo.
+     */
+    private List<ContextoImportacion> crearContextos(List<MarcaLeida> marcas, long[] lineasPorParticion) {
+        Ventana ventana = ventana(marcas);
+        return procesadorLote.crearContextos(ventana.desde(), ventana.hasta(), lineasPorParticion);
     }
 }
@@ -0,0 +1,80 @@
+package com.relojcontrol.reloj_control.service;
+
+import com.relojcontrol.reloj_control.model.Horario;
+import com.relojcontrol.reloj_control.model.TurnoDia;
+
+import java.util.List;
+
+/**
+ * Un {@link Horario} convertido en arreglos indexados por día del ciclo, para obtener la jornada
+ * esperada de un día con una resta y un módulo, sin recorrer el horario ni crear objetos.
+ */
+public final class HorarioCompilado {
+
+    // Horario predeterminado: de lunes a viernes desde las 08:00, sábado y domingo libres. Los feriados los
+    // da el calendario; los días laborales, el horario de cada empleado
+    static final int INICIO_PREDETERMINADO = 8 * 60;
+    // 1970-01-05, el primer lunes desde la época, para que el día 0 del ciclo semanal sea lunes
+    private static final long EPOCH_PRIMER_LUNES = 4;
+
+    private final long epochAncla;
+    private final int[] inicio;
+    private final int[] minutos;
+    private final int inicioTramoNocturno;
+    private final int finTramoNocturno;
+
+    private HorarioCompilado(long epochAncla, int[] inicio, int[] minutos, int inicioTramoNocturno, int finTramoNocturno) {
+        this.epochAncla = epochAncla;
+        this.inicio = inicio;
+        this.minutos = minutos;
+        this.inicioTramoNocturno = inicioTramoNocturno;
+        this.finTramoNocturno = finTramoNocturno;
+    }
+
+    static HorarioCompilado de(Horario horario) {
+        List<TurnoDia> dias = horario.getDias();
+        int[] inicio = new int[dias.size()];
+        int[] minutos = new int[dias.size()];
+        for (int i = 0; i < dias.size(); i++) {
+            TurnoDia dia = dias.get(i);
+            minutos[i] = dia.getMinutosJornada();
+            inicio[i] = dia.esLibre() ? 0 : dia.getHoraInicio().toSecondOfDay() / 60;
+        }
+        return new HorarioCompilado(horario.getInicioCiclo().toEpochDay(), inicio, minutos,
+                horario.getInicioTramoNocturno().toSecondOfDay() / 60, horario.getFinTramoNocturno().toSecondOfDay() / 60);
+    }
+
+    static HorarioCompilado predeterminado(int minutosJornada) {
+        int[] inicio = {INICIO_PREDETERMINADO, INICIO_PREDETERMINADO, INICIO_PREDETERMINADO,
+                INICIO_PREDETERMINADO, INICIO_PREDETERMINADO, 0, 0};
+        int[] minutos = {minutosJornada, minutosJornada, minutosJornada, minutosJornada, minutosJornada, 0, 0};
+        return new HorarioCompilado(EPOCH_PRIMER_LUNES, inicio, minutos,
+                CalculadoraHorasExtra.INICIO_TRAMO_NOCTURNO, CalculadoraHorasExtra.FIN_TRAMO_NOCTURNO);
+    }
+
+    /**
+     * Minuto del día en que se espera la entrada.
+     */
+    public int inicio(long epochDia) {
+        return inicio[indice(epochDia)];
+    }
+
+    /**
+     * Minutos de jornada del día; 0 si es libre.
+     */
+    public int minutos(long epochDia) {
+        return minutos[indice(epochDia)];
+    }
+
+    public int inicioTramoNocturno() {
+        return inicioTramoNocturno;
+    }
+
+    public int finTramoNocturno() {
+        return finTramoNocturno;
+    }
+
+    private int indice(long epochDia) {
+        return (int) Math.floorMod(epochDia - epochAncla, (long) inicio.length);
+    }
+}
@@ -0,0 +1,210 @@
+package com.relojcontrol.reloj_control.service;
+
+import com.relojcontrol.reloj_control.exception.BadRequestException;
+import com.relojcontrol.reloj_control.exception.ConflictException;
+import com.relojcontrol.reloj_control.model.Horario;
+import com.relojcontrol.reloj_control.model.TurnoDia;
+import com.relojcontrol.reloj_control.repository.EmpleadoRepository;
+import com.relojcontrol.reloj_control.repository.HorarioRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Horarios de trabajo por empleado o unidad. Para el cálculo de resúmenes se compilan en una copia en
+ * memoria que resuelve el horario de cada empleado; se reemplaza completa, de forma atómica, al confirmarse
+ * un cambio de horarios o de empleados. Un cambio de horarios reconstruye además los resúmenes guardados del
+ * período abierto (ver {@link ResumenDiarioService#alModificarReglas}).
+ */
+@Service
+public class HorarioService implements IHorarioService {
+    private static final Logger logger = LoggerFactory.getLogger(HorarioService.class);
+
+    private final HorarioRepository repo;
+    private final EmpleadoRepository empleadoRepository;
+    private final ApplicationEventPublisher eventos;
+    private final AtomicReference<HorariosVigentes> vigentes = new AtomicReference<>();
+
+    public HorarioService(HorarioRepository repo, EmpleadoRepository empleadoRepository,
+                          ApplicationEventPublisher eventos) {
+        this.repo = repo;
+        this.empleadoRepository = empleadoRepository;
+        this.eventos = eventos;
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void recargar() {
+        List<Horario> horarios = repo.findAll();
+        if (horarios.isEmpty()) {
+            vigentes.set(HorariosVigentes.VACIO);
+            return;
+        }
+        Map<String, HorarioCompilado> porUnidad = new HashMap<>();
+        Map<Long, HorarioCompilado> porEmpleado = new HashMap<>();
+        for (Horario horario : horarios) {
+            HorarioCompilado compilado = HorarioCompilado.de(horario);
+            horario.getUnidades().forEach(unidad -> porUnidad.put(unidad, compilado));
+            horario.getEmpleados().forEach(id -> porEmpleado.put(id, compilado));
+        }
+
+        List<Object[]> empleados = empleadoRepository.findIdsYUnidades();
+        long maximo = empleados.stream().mapToLong(e -> (Long) e[0]).max().orElse(-1);
+        HorarioCompilado[] resueltos = new HorarioCompilado[(int) (maximo + 1)];
+        for (Object[] empleado : empleados) {
+            long id = (Long) empleado[0];
+            HorarioCompilado horario = porEmpleado.get(id);
+            resueltos[(int) id] = horario != null ? horario : porUnidad.get((String) empleado[1]);
+        }
+        vigentes.set(new HorariosVigentes(resueltos));
+        logger.info("{} horarios compilados para {} empleados", horarios.size(), empleados.size());
+    }
+
+    @Override
+    public HorariosVigentes vigentes() {
+        HorariosVigentes actuales = vigentes.get();
+        if (actuales == null) {
+            recargar();
+            actuales = vigentes.get();
+        }
+        return actuales;
+    }
+
+    @Override
+    public List<Horario> listar() {
+        return repo.findAll();
+    }
+
+    @Override
+    @Transactional
+    public Horario crear(Horario horario) {
+        validar(horario, null);
+        Horario guardado = repo.save(horario);
+        recargarAlConfirmar();
+        return guardado;
+    }
+
+    @Override
+    @Transactional
+    public Horario actualizar(Long idHorario, Horario cambios) {
+        Horario horario = buscar(idHorario);
+        validar(cambios, idHorario);
+        horario.setNombre(cambios.getNombre());
+        horario.setInicioCiclo(cambios.getInicioCiclo());
+        horario.getDias().clear();
+        horario.getDias().addAll(cambios.getDias());
+        horario.setInicioTramoNocturno(cambios.getInicioTramoNocturno());
+        horario.setFinTramoNocturno(cambios.getFinTramoNocturno());
+        horario.getUnidades().clear();
+        horario.getUnidades().addAll(cambios.getUnidades());
+        horario.getEmpleados().clear();
+        horario.getEmpleados().addAll(cambios.getEmpleados());
+        recargarAlConfirmar();
+        return repo.save(horario);
+    }
+
+    @Override
+    @Transactional
+    public void eliminar(Long idHorario) {
+        repo.delete(buscar(idHorario));
+        recargarAlConfirmar();
+    }
+
+    @Override
+    @Transactional
+    public Horario asignarEmpleado(Long idHorario, Long idEmpleado) {
+        Horario horario = buscar(idHorario);
+        empleadoRepository.findByIdEmpleado(idEmpleado)
+                .orElseThrow(() -> new EntityNotFoundException("Empleado no existe"));
+        repo.findByEmpleado(idEmpleado)
+                .filter(anterior -> !anterior.getIdHorario().equals(idHorario))
+                .ifPresent(anterior -> anterior.getEmpleados().remove(idEmpleado));
+        // Se escribe la salida del horario anterior antes de la entrada en el nuevo, por el índice único
+        repo.flush();
+        horario.getEmpleados().add(idEmpleado);
+        recargarAlConfirmar();
+        return repo.save(horario);
+    }
+
+    @Override
+    @Transactional
+    public void quitarEmpleado(Long idEmpleado) {
+        repo.findByEmpleado(idEmpleado).ifPresent(horario -> horario.getEmpleados().remove(idEmpleado));
+        recargarAlConfirmar();
+    }
+
+    private Horario buscar(Long idHorario) {
+        return repo.findById(idHorario).orElseThrow(() -> new EntityNotFoundException("Horario no existe"));
+    }
+
+    private void validar(Horario horario, Long idHorario) {
+        if (horario.getNombre() == null || horario.getNombre().isBlank()) {
+            throw new BadRequestException("El horario debe tener nombre.");
+        }
+        if (horario.getInicioCiclo() == null) {
+            throw new BadRequestException("El horario debe indicar el día en que empieza su ciclo.");
+        }
+        if (horario.getDias() == null || horario.getDias().isEmpty() || horario.getDias().size() > 366) {
+            throw new BadRequestException("El ciclo del horario debe tener entre 1 y 366 días.");
+        }
+        for (TurnoDia dia : horario.getDias()) {
+            if (dia.getMinutosJornada() < 0 || dia.getMinutosJornada() > CalculadoraHorasExtra.MINUTOS_DIA) {
+                throw new BadRequestException("Los minutos de jornada deben estar entre 0 y " + CalculadoraHorasExtra.MINUTOS_DIA + ".");
+            }
+            if (!dia.esLibre() && dia.getHoraInicio() == null) {
+                throw new BadRequestException("Los días con jornada deben indicar la hora de inicio.");
+            }
+        }
+        if (horario.getInicioTramoNocturno() == null || horario.getFinTramoNocturno() == null) {
+            throw new BadRequestException("El horario debe indicar el tramo nocturno.");
+        }
+        if (horario.getInicioTramoNocturno().equals(horario.getFinTramoNocturno())) {
+            throw new BadRequestException("El tramo nocturno no puede empezar y terminar a la misma hora.");
+        }
+        repo.findByNombre(horario.getNombre())
+                .filter(otro -> !otro.getIdHorario().equals(idHorario))
+                .ifPresent(otro -> {
+                    throw new ConflictException("Ya existe un horario llamado " + horario.getNombre());
+                });
+        for (String unidad : horario.getUnidades()) {
+            repo.findByUnidad(unidad)
+                    .filter(otro -> !otro.getIdHorario().equals(idHorario))
+                    .ifPresent(otro -> {
+                        throw new ConflictException("La unidad " + unidad + " ya tiene el horario " + otro.getNombre());
+                    });
+        }
+        for (Long idEmpleado : horario.getEmpleados()) {
+            repo.findByEmpleado(idEmpleado)
+                    .filter(otro -> !otro.getIdHorario().equals(idHorario))
+                    .ifPresent(otro -> {
+                        throw new ConflictException("El empleado " + idEmpleado + " ya tiene el horario " + otro.getNombre());
+                    });
+        }
+    }
+
+    /**
+     * La copia se reemplaza solo si el cambio se confirma, y los resúmenes se reconstruyen con ella.
+     */
+    private void recargarAlConfirmar() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recargar();
+                eventos.publishEvent(ReglasResumenModificadasEvent.periodoAbierto("horarios"));
+            }
+        });
+    }
+}
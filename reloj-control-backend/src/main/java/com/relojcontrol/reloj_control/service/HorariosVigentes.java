@@ -0,0 +1,23 @@
+package com.relojcontrol.reloj_control.service;
+
+/**
+ * Copia inmutable de los horarios ya resueltos por empleado: el horario de cada empleado está en la
+ * posición de su id, así que buscarlo es leer un arreglo.
+ */
+public final class HorariosVigentes {
+
+    static final HorariosVigentes VACIO = new HorariosVigentes(new HorarioCompilado[0]);
+
+    private final HorarioCompilado[] porEmpleado;
+
+    HorariosVigentes(HorarioCompilado[] porEmpleado) {
+        this.porEmpleado = porEmpleado;
+    }
+
+    /**
+     * @return El horario del empleado, o null si usa el predeterminado
+     */
+    public HorarioCompilado de(long idEmpleado) {
+        return idEmpleado >= 0 && idEmpleado < porEmpleado.length ? porEmpleado[(int) idEmpleado] : null;
+    }
+}
@@ -1,7 +1,28 @@
 package com.relojcontrol.reloj_control.service;
 
+import com.relojcontrol.reloj_control.dto.ResultadoImportacionDTO;
+import com.relojcontrol.reloj_control.service.importacion.ProgresoImportacion;
 import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
  
 public interface IFileImportService {
-    void importarDat(MultipartFile file) throws Exception;
+    ResultadoImportacionDTO importarDat(MultipartFile file) throws Exception;
+
+    /**
+     * Importa un archivo en disco a partir del byte {@code desde} (0 para el archivo completo),
+     * que debe ser el comienzo de una línea.
+     */
+    ResultadoImportacionDTO importar(Path archivo, long desde, String nombreArchivo, ProgresoImportacion progreso) throws IOException;
+
+    ResultadoImportacionDTO importarEnParalelo(Path archivo, long desde, String nombreArchivo, ProgresoImportacion progreso) throws IOException;
+
+    /**
+     * Importa lote a lote a medida que se lee el flujo, que puede venir comprimido con gzip o zip.
+     */
+    ResultadoImportacionDTO importarFlujo(InputStream in, String nombreArchivo, ProgresoImportacion progreso) throws IOException;
+
+    ResultadoImportacionDTO importarConCopy(Path archivo, long desde, String nombreArchivo, ProgresoImportacion progreso) throws IOException;
 } 
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.relojcontrol.reloj_control.service;
+
+import com.relojcontrol.reloj_control.model.Horario;
+
+import java.util.List;
+
+public interface IHorarioService {
+
+    List<Horario> listar();
+
+    Horario crear(Horario horario);
+
+    Horario actualizar(Long idHorario, Horario cambios);
+
+    void eliminar(Long idHorario);
+
+    Horario asignarEmpleado(Long idHorario, Long idEmpleado);
+
+    void quitarEmpleado(Long idEmpleado);
+
+    HorariosVigentes vigentes();
+
+    void recargar();
+}
@@ -0,0 +1,36 @@
+package com.relojcontrol.reloj_control.service;
+
+import com.relojcontrol.reloj_control.dto.ImportacionJobDTO;
+import com.relojcontrol.reloj_control.model.enums.ModoImportacionEnum;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+public interface IImportacionJobService {
+    ImportacionJobDTO encolar(MultipartFile file, String runUsuario, ModoImportacionEnum modo) throws IOException;
+
+    /**
+     * Importa en el hilo actual un archivo que ya está en disco, con el modo por lotes.
+     *
+     * @throws com.relojcontrol.reloj_control.exception.ConflictException si el archivo es idéntico a uno ya importado
+     */
+    ImportacionJobDTO importarArchivo(Path archivo, String nombreArchivo, String runUsuario) throws IOException;
+
+    /**
+     * Copia a disco un archivo que llega como flujo (cuerpo de la petición) y encola su importación como
+     * {@link #encolar}. Un archivo comprimido con gzip o zip se importa con el modo FLUJO.
+     *
+     * @throws org.springframework.core.task.TaskRejectedException si la cola de importaciones está llena
+     * @throws com.relojcontrol.reloj_control.exception.ConflictException si el archivo es idéntico a uno ya importado
+     */
+    ImportacionJobDTO encolarFlujo(InputStream in, String nombreArchivo, String runUsuario, ModoImportacionEnum modo)
+            throws IOException;
+
+    Optional<ImportacionJobDTO> obtener(Long idJob);
+
+    List<ImportacionJobDTO> listarRecientes();
+}
@@ -8,6 +8,10 @@ import java.util.List;
 public interface IParametroSistemaService {
     String getValor(String clave);
 
+    int getEntero(String clave);
+
+    ParametrosVigentes vigentes();
+
     List<ParametroSistema> listarParametros();
 
     List<ParametroSistema> actualizarParametros(List<ParametroSistemaUpdateDTO> parametroUpdate);
@@ -0,0 +1,42 @@
+package com.relojcontrol.reloj_control.service;
+
+import com.relojcontrol.reloj_control.dto.ParticionAsistenciaDTO;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+
+public interface IParticionAsistenciaService {
+
+    /**
+     * Crea las particiones que falten para guardar marcas de los días [desde, hasta]. Debe llamarse antes
+     * de insertar marcas, porque una marca de un mes sin partición no se puede guardar, y antes de escribir
+     * en empleado dentro de la misma transacción: cada partición nueva se conecta en su propia transacción,
+     * que bloquea empleado por la clave foránea.
+     */
+    void asegurar(LocalDate desde, LocalDate hasta);
+
+    /**
+     * Igual que {@link #asegurar}, solo para los meses indicados; una carga con marcas dispersas no crea
+     * las particiones de los meses intermedios.
+     */
+    void asegurarMeses(Collection<YearMonth> meses);
+
+    /**
+     * Primer y último mes en que se admiten marcas, según la fecha actual. Una marca fuera de ese rango suele
+     * venir de un reloj con la fecha mal puesta; no se guarda, para no crear particiones de meses sin uso.
+     * {@link #asegurar} y {@link #asegurarMeses} lanzan IllegalArgumentException para un mes fuera del rango.
+     */
+    YearMonth primerMesAdmitido();
+
+    YearMonth ultimoMesAdmitido();
+
+    List<ParticionAsistenciaDTO> listar();
+
+    /**
+     * Desconecta la partición de un mes ya cerrado para archivarla; sus marcas dejan de verse en asistencias.
+     *
+     * @throws IllegalArgumentException si el mes no es anterior al actual o no tiene partición conectada
+     */
+    void desconectar(YearMonth mes);
+}
@@ -0,0 +1,26 @@
+package com.relojcontrol.reloj_control.service;
+
+import com.relojcontrol.reloj_control.dto.ReconstruccionResumenDTO;
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface IResumenDiarioService {
+
+    /**
+     * Vuelve a calcular el resumen diario de los empleados indicados en [desde, hasta].
+     */
+    void recalcular(Collection<Long> idsEmpleado, LocalDate desde, LocalDate hasta);
+
+    /**
+     * Reconstruye el resumen diario de todos los empleados en [desde, hasta].
+     *
+     * @return Cantidad de resúmenes generados y el tiempo de cada fase
+     */
+    ReconstruccionResumenDTO reconstruir(LocalDate desde, LocalDate hasta);
+
+    /**
+     * Programa la reconstrucción de [desde, hasta] en el hilo de reconstrucción y vuelve de inmediato;
+     * el resultado queda en el registro.
+     */
+    void encolarReconstruccion(LocalDate desde, LocalDate hasta);
+}
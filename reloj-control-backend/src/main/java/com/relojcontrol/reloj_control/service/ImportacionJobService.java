@@ -0,0 +1,256 @@
+package com.relojcontrol.reloj_control.service;
+
+import com.relojcontrol.reloj_control.dto.ImportacionJobDTO;
+import com.relojcontrol.reloj_control.dto.ResultadoImportacionDTO;
+import com.relojcontrol.reloj_control.exception.ConflictException;
+import com.relojcontrol.reloj_control.model.ImportacionJob;
+import com.relojcontrol.reloj_control.model.enums.EstadoImportacionEnum;
+import com.relojcontrol.reloj_control.model.enums.ModoImportacionEnum;
+import com.relojcontrol.reloj_control.repository.ImportacionJobRepository;
+import com.relojcontrol.reloj_control.service.importacion.EntradaComprimida;
+import com.relojcontrol.reloj_control.service.importacion.ProgresoImportacion;
+import com.relojcontrol.reloj_control.service.importacion.PuntosControlImportacion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ejecuta las importaciones de archivos en segundo plano y lleva el registro de cada una.
+ * El avance de las importaciones en curso se mantiene en memoria; al terminar se guarda en la base.
+ */
+@Service
+public class ImportacionJobService implements IImportacionJobService {
+    private static final Logger logger = LoggerFactory.getLogger(ImportacionJobService.class);
+
+    private final ImportacionJobRepository jobRepository;
+    private final IFileImportService importService;
+    private final PuntosControlImportacion puntosControl;
+    private final ThreadPoolTaskExecutor executor;
+    private final Map<Long, ProgresoImportacion> enCurso = new ConcurrentHashMap<>();
+
+    public ImportacionJobService(ImportacionJobRepository jobRepository,
+                                 IFileImportService importService,
+                                 PuntosControlImportacion puntosControl,
+                                 @Qualifier("importacionExecutor") ThreadPoolTaskExecutor executor) {
+        this.jobRepository = jobRepository;
+        this.importService = importService;
+        this.puntosControl = puntosControl;
+        this.executor = executor;
+    }
+
+    /**
+     * Deja el archivo en disco y encola su importación. Si el archivo ya se importó antes y solo
+     * creció, se importa desde donde quedó la vez anterior.
+     *
+     * @throws TaskRejectedException si la cola de importaciones está llena
+     * @throws ConflictException     si el archivo es idéntico a uno ya importado
+     */
+    @Override
+    public ImportacionJobDTO encolar(MultipartFile file, String runUsuario, ModoImportacionEnum modo) throws IOException {
+        // El archivo subido se borra al terminar la petición, así que se copia antes de encolar
+        Path temporal = Files.createTempFile("importacion-", ".dat");
+        try {
+            file.transferTo(temporal);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        return encolar(temporal, file.getOriginalFilename(), runUsuario, modo);
+    }
+
+    @Override
+    public ImportacionJobDTO encolarFlujo(InputStream in, String nombreArchivo, String runUsuario,
+                                          ModoImportacionEnum modo) throws IOException {
+        // Copiar el cuerpo solo ocupa el hilo de la petición mientras llega; la importación va a la cola
+        Path temporal = Files.createTempFile("importacion-", ".dat");
+        try {
+            Files.copy(in, temporal, StandardCopyOption.REPLACE_EXISTING);
+            if (EntradaComprimida.esComprimido(temporal)) {
+                modo = ModoImportacionEnum.FLUJO;
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        return encolar(temporal, nombreArchivo, runUsuario, modo);
+    }
+
+    private ImportacionJobDTO encolar(Path temporal, String nombreArchivo, String runUsuario,
+                                      ModoImportacionEnum modo) throws IOException {
+        ImportacionJob job;
+        try {
+            job = crearJob(temporal, nombreArchivo, runUsuario, modo);
+        } catch (ConflictException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        Long idJob = job.getIdJob();
+        try {
+            executor.execute(() -> ejecutarEncolado(idJob, temporal));
+        } catch (TaskRejectedException e) {
+            Files.deleteIfExists(temporal);
+            job.setEstado(EstadoImportacionEnum.FALLIDO);
+            job.setMensajeError("Cola de importaciones llena");
+            job.setFechaTermino(LocalDateTime.now());
+            jobRepository.save(job);
+            throw e;
+        }
+        return new ImportacionJobDTO(job);
+    }
+
+    @Override
+    public Optional<ImportacionJobDTO> obtener(Long idJob) {
+        return jobRepository.findById(idJob).map(this::conProgreso);
+    }
+
+    @Override
+    public List<ImportacionJobDTO> listarRecientes() {
+        return jobRepository.findTop50ByOrderByFechaCreacionDesc().stream().map(this::conProgreso).toList();
+    }
+
+    private ImportacionJobDTO conProgreso(ImportacionJob job) {
+        ImportacionJobDTO dto = new ImportacionJobDTO(job);
+        ProgresoImportacion progreso = enCurso.get(job.getIdJob());
+        if (progreso != null) {
+            dto.actualizarProgreso(progreso.instantanea());
+        }
+        return dto;
+    }
+
+    @Override
+    public ImportacionJobDTO importarArchivo(Path archivo, String nombreArchivo, String runUsuario) throws IOException {
+        ImportacionJob job = crearJob(archivo, nombreArchivo, runUsuario, ModoImportacionEnum.LOTES);
+        return new ImportacionJobDTO(ejecutar(job.getIdJob(), tareaArchivo(archivo)));
+    }
+
+    /**
+     * Registra el trabajo de un archivo en disco. Si el archivo ya se importó antes y solo creció,
+     * el trabajo parte desde donde quedó la vez anterior.
+     *
+     * @throws ConflictException si el archivo es idéntico a uno ya importado
+     */
+    private ImportacionJob crearJob(Path archivo, String nombreArchivo, String runUsuario, ModoImportacionEnum modo) throws IOException {
+        ImportacionJob nuevo = new ImportacionJob(nombreArchivo, runUsuario, modo);
+        // Los archivos comprimidos del modo FLUJO no se pueden retomar a mitad, así que no usan puntos de control
+        if (modo != ModoImportacionEnum.FLUJO) {
+            PuntosControlImportacion.Reanudacion reanudacion = puntosControl.evaluar(archivo);
+            if (reanudacion.sinCambios()) {
+                throw new ConflictException("El archivo ya fue importado y no tiene marcas nuevas");
+            }
+            nuevo.setHuellaArchivo(reanudacion.huellaPrefijo());
+            nuevo.setDesplazamientoInicial(reanudacion.desde());
+        }
+        return jobRepository.save(nuevo);
+    }
+
+    @FunctionalInterface
+    private interface TareaImportacion {
+        ResultadoImportacionDTO ejecutar(ImportacionJob job, ProgresoImportacion progreso) throws Exception;
+    }
+
+    /**
+     * Importación de un archivo en disco según el modo del trabajo.
+     */
+    private TareaImportacion tareaArchivo(Path archivo) {
+        return (job, progreso) -> {
+            long desde = job.getDesplazamientoInicial();
+            ResultadoImportacionDTO resultado = switch (job.getModo() == null ? ModoImportacionEnum.LOTES : job.getModo()) {
+                case COPY -> importService.importarConCopy(archivo, desde, job.getNombreArchivo(), progreso);
+                case PARALELO -> importService.importarEnParalelo(archivo, desde, job.getNombreArchivo(), progreso);
+                case LOTES -> importService.importar(archivo, desde, job.getNombreArchivo(), progreso);
+                case FLUJO -> {
+                    try (InputStream in = Files.newInputStream(archivo)) {
+                        yield importService.importarFlujo(in, job.getNombreArchivo(), progreso);
+                    }
+                }
+            };
+            // Solo una importación completa avanza el punto de control
+            if (job.getHuellaArchivo() != null) {
+                puntosControl.registrar(archivo, job.getHuellaArchivo(), job.getNombreArchivo(), progreso.getUltimaMarca());
+            }
+            return resultado;
+        };
+    }
+
+    private void ejecutarEncolado(Long idJob, Path archivo) {
+        try {
+            ejecutar(idJob, tareaArchivo(archivo));
+        } finally {
+            try {
+                Files.deleteIfExists(archivo);
+            } catch (IOException e) {
+                logger.warn("No se pudo borrar el archivo temporal {}", archivo, e);
+            }
+        }
+    }
+
+    /**
+     * Ejecuta la importación en el hilo actual, pasando el trabajo por EN_PROCESO hasta COMPLETADO o FALLIDO.
+     */
+    private ImportacionJob ejecutar(Long idJob, TareaImportacion tarea) {
+        ProgresoImportacion progreso = new ProgresoImportacion();
+        enCurso.put(idJob, progreso);
+        ImportacionJob job = jobRepository.findById(idJob).orElseThrow();
+        try {
+            job.setEstado(EstadoImportacionEnum.EN_PROCESO);
+            job.setFechaInicio(LocalDateTime.now());
+            job = jobRepository.save(job);
+
+            copiarResultado(tarea.ejecutar(job, progreso), job);
+            job.setEstado(EstadoImportacionEnum.COMPLETADO);
+        } catch (Exception e) {
+            logger.error("Falló la importación {} ({})", idJob, job.getNombreArchivo(), e);
+            copiarResultado(progreso.instantanea(), job);
+            job.setEstado(EstadoImportacionEnum.FALLIDO);
+            String mensaje = String.valueOf(e.getMessage());
+            job.setMensajeError(mensaje.length() > 1000 ? mensaje.substring(0, 1000) : mensaje);
+        } finally {
+            job.setFechaTermino(LocalDateTime.now());
+            job = jobRepository.save(job);
+            enCurso.remove(idJob);
+        }
+        return job;
+    }
+
+    private void copiarResultado(ResultadoImportacionDTO resultado, ImportacionJob job) {
+        job.setLineasLeidas(resultado.getLineasLeidas());
+        job.setMarcasInsertadas(resultado.getMarcasInsertadas());
+        job.setDuplicadas(resultado.getDuplicadas());
+        job.setErrores(resultado.getErrores());
+        job.setEmpleadosCreados(resultado.getEmpleadosCreados());
+        job.setFilasPorSegundo(resultado.getFilasPorSegundo());
+    }
+
+    /**
+     * Las importaciones que estaban en curso cuando se detuvo el servidor no se retoman:
+     * se marcan como fallidas para que queden a la vista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void marcarInterrumpidas() {
+        List<ImportacionJob> interrumpidas = jobRepository.findAllByEstadoIn(
+                List.of(EstadoImportacionEnum.EN_COLA, EstadoImportacionEnum.EN_PROCESO));
+        interrumpidas.forEach(job -> {
+            job.setEstado(EstadoImportacionEnum.FALLIDO);
+            job.setMensajeError("Interrumpida por reinicio del servidor");
+            job.setFechaTermino(LocalDateTime.now());
+        });
+        jobRepository.saveAll(interrumpidas);
+    }
+}
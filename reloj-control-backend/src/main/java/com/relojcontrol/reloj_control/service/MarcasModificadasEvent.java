@@ -0,0 +1,20 @@
+package com.relojcontrol.reloj_control.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Se publica al escribir marcas de asistencia, para recalcular el resumen diario de los empleados
+ * y días afectados cuando la transacción se confirme.
+ *
+ * @param idsEmpleado Empleados con marcas nuevas o modificadas
+ * @param desde       Primer día afectado
+ * @param hasta       Último día afectado (inclusivo)
+ */
+public record MarcasModificadasEvent(Collection<Long> idsEmpleado, LocalDate desde, LocalDate hasta) {
+
+    public static MarcasModificadasEvent deUnDia(Long idEmpleado, LocalDate dia) {
+        return new MarcasModificadasEvent(List.of(idEmpleado), dia, dia);
+    }
+}
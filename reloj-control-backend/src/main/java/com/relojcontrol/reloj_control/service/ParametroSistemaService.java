@@ -4,23 +4,77 @@ import com.relojcontrol.reloj_control.dto.ParametroSistemaUpdateDTO;
 import com.relojcontrol.reloj_control.model.ParametroSistema;
 import com.relojcontrol.reloj_control.repository.ParametroSistemaRepository;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Parámetros del sistema. Las lecturas se sirven desde una copia en memoria que se carga al iniciar
+ * y se reemplaza completa, de forma atómica, cuando se confirma una actualización.
+ */
 @Service
 public class ParametroSistemaService implements IParametroSistemaService {
     private final ParametroSistemaRepository repo;
+    private final ApplicationEventPublisher eventos;
+    private final AtomicReference<ParametrosVigentes> vigentes = new AtomicReference<>();
+    // Claves que tampoco estaban al recargar por ellas; no se vuelven a buscar hasta la próxima recarga
+    private final Set<String> ausentes = ConcurrentHashMap.newKeySet();
 
-    public ParametroSistemaService(ParametroSistemaRepository repo) {
+    public ParametroSistemaService(ParametroSistemaRepository repo, ApplicationEventPublisher eventos) {
         this.repo = repo;
+        this.eventos = eventos;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recargar() {
+        vigentes.set(new ParametrosVigentes(repo.findAll()));
+        ausentes.clear();
+    }
+
+    /**
+     * Copia vigente de los parámetros; quien necesite varios valores coherentes entre sí debe leerlos de la misma copia.
+     */
+    @Override
+    public ParametrosVigentes vigentes() {
+        ParametrosVigentes actuales = vigentes.get();
+        if (actuales == null) {
+            recargar();
+            actuales = vigentes.get();
+        }
+        return actuales;
     }
 
     @Override
     public String getValor(String clave) {
-        return repo.findByClave(clave)
-                .orElseThrow(() -> new IllegalArgumentException("Parámetro no encontrado: " + clave))
-                .getValor();
+        return conClave(clave).getTexto(clave);
+    }
+
+    @Override
+    public int getEntero(String clave) {
+        return conClave(clave).getEntero(clave);
+    }
+
+    private ParametrosVigentes conClave(String clave) {
+        ParametrosVigentes actuales = vigentes();
+        if (actuales.contiene(clave) || ausentes.contains(clave)) {
+            return actuales;
+        }
+        // Puede haberse agregado directamente en la base después de cargar la copia
+        recargar();
+        actuales = vigentes.get();
+        if (!actuales.contiene(clave)) {
+            ausentes.add(clave);
+        }
+        return actuales;
     }
 
     @Override
@@ -29,13 +83,23 @@ public class ParametroSistemaService implements IParametroSistemaService {
     }
 
     @Override
+    @Transactional
     public List<ParametroSistema> actualizarParametros(List<ParametroSistemaUpdateDTO> parametroUpdate) {
         List<ParametroSistema> parametrosActualizados = parametroUpdate.stream().map(parametroSistemaUpdateDTO -> {
             ParametroSistema parametro = this.findById(parametroSistemaUpdateDTO.getId());
             parametro.setValor(String.valueOf(parametroSistemaUpdateDTO.getValor()));
             return parametro;
         }).toList();
-        return repo.saveAll(parametrosActualizados);
+        List<ParametroSistema> guardados = repo.saveAll(parametrosActualizados);
+        // La copia se reemplaza solo si la actualización se confirma, y los resúmenes se reconstruyen con ella
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recargar();
+                eventos.publishEvent(ReglasResumenModificadasEvent.periodoAbierto("parámetros del sistema"));
+            }
+        });
+        return guardados;
     }
 
     @Override
@@ -0,0 +1,78 @@
+package com.relojcontrol.reloj_control.service;
+
+import com.relojcontrol.reloj_control.model.ParametroSistema;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copia inmutable de los parámetros del sistema. Los valores numéricos se convierten una sola vez
+ * al crear la copia, así que leerlos no consulta la base ni interpreta texto. Un parámetro guardado sin
+ * valor existe, pero leerlo falla igual que leer un texto no numérico como entero.
+ */
+public final class ParametrosVigentes {
+
+    private final Set<String> claves;
+    private final Map<String, String> valores;
+    private final Map<String, Integer> enteros;
+
+    ParametrosVigentes(Collection<ParametroSistema> parametros) {
+        Set<String> claves = new HashSet<>();
+        Map<String, String> valores = new HashMap<>();
+        Map<String, Integer> enteros = new HashMap<>();
+        for (ParametroSistema parametro : parametros) {
+            claves.add(parametro.getClave());
+            if (parametro.getValor() == null) {
+                continue;
+            }
+            valores.put(parametro.getClave(), parametro.getValor());
+            try {
+                enteros.put(parametro.getClave(), Integer.parseInt(parametro.getValor().trim()));
+            } catch (NumberFormatException e) {
+                // Parámetro de texto: solo se puede leer con getTexto
+            }
+        }
+        this.claves = Set.copyOf(claves);
+        this.valores = Map.copyOf(valores);
+        this.enteros = Map.copyOf(enteros);
+    }
+
+    public boolean contiene(String clave) {
+        return claves.contains(clave);
+    }
+
+    public String getTexto(String clave) {
+        String valor = valores.get(clave);
+        if (valor == null) {
+            throw noEncontrado(clave);
+        }
+        return valor;
+    }
+
+    public int getEntero(String clave) {
+        Integer valor = enteros.get(clave);
+        if (valor == null) {
+            throw valores.containsKey(clave)
+                    ? new IllegalArgumentException("El parámetro " + clave + " no es numérico: " + valores.get(clave))
+                    : noEncontrado(clave);
+        }
+        return valor;
+    }
+
+    private IllegalArgumentException noEncontrado(String clave) {
+        return claves.contains(clave)
+                ? new IllegalArgumentException("El parámetro " + clave + " no tiene valor")
+                : new IllegalArgumentException("Parámetro no encontrado: " + clave);
+    }
+
+    /**
+     * Lee un parámetro numérico expresado en minutos.
+     */
+    public Duration getMinutos(String clave) {
+        return Duration.ofMinutes(getEntero(clave));
+    }
+}
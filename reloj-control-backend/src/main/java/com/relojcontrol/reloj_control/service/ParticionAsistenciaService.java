@@ -0,0 +1,138 @@
+package com.relojcontrol.reloj_control.service;
+
+import com.relojcontrol.reloj_control.dto.ParticionAsistenciaDTO;
+import com.relojcontrol.reloj_control.repository.ParticionAsistenciaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mantiene las particiones mensuales de asistencias: una tarea programada crea por adelantado las de los
+ * próximos meses, y antes de guardar marcas de otros meses (por ejemplo, una carga histórica) se crean las
+ * que falten. Los meses ya conectados se recuerdan en memoria, así que asegurar un mes conocido no consulta
+ * la base.
+ * <p>
+ * Solo se crean particiones entre meses-atras meses antes del actual y meses-adelante después; las marcas de
+ * otros meses se rechazan.
+ * <p>
+ * Los meses archivados con {@link #desconectar(YearMonth)} quedan como tablas independientes; no se vuelven
+ * a crear, y una marca nueva de esos meses no se puede guardar hasta volver a conectar la tabla.
+ */
+@Service
+public class ParticionAsistenciaService implements IParticionAsistenciaService {
+    private static final Logger logger = LoggerFactory.getLogger(ParticionAsistenciaService.class);
+
+    private final ParticionAsistenciaRepository particionRepo;
+    private final TransactionTemplate transaccion;
+    private final int mesesAdelante;
+    private final int mesesAtras;
+    private final Set<YearMonth> conectadas = ConcurrentHashMap.newKeySet();
+
+    public ParticionAsistenciaService(ParticionAsistenciaRepository particionRepo,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${asistencias.particiones.meses-adelante:3}") int mesesAdelante,
+                                      @Value("${asistencias.particiones.meses-atras:120}") int mesesAtras) {
+        this.particionRepo = particionRepo;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        // La partición se confirma aunque falle la importación que la pidió, y ATTACH no retiene su
+        // bloqueo sobre asistencias hasta el final de esa transacción
+        this.transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.mesesAdelante = Math.max(0, mesesAdelante);
+        this.mesesAtras = Math.max(0, mesesAtras);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        particionRepo.listar().forEach(particion -> conectadas.add(particion.mes()));
+        crearProximas();
+    }
+
+    /**
+     * Crea las particiones del mes actual y de los siguientes meses-adelante, si faltan.
+     */
+    @Scheduled(cron = "${asistencias.particiones.cron:0 0 3 * * *}")
+    public void crearProximas() {
+        YearMonth actual = YearMonth.now();
+        for (YearMonth mes = actual; !mes.isAfter(actual.plusMonths(mesesAdelante)); mes = mes.plusMonths(1)) {
+            crear(mes);
+        }
+    }
+
+    @Override
+    public void asegurar(LocalDate desde, LocalDate hasta) {
+        YearMonth primero = YearMonth.from(desde);
+        YearMonth ultimo = YearMonth.from(hasta);
+        verificarAdmitido(primero);
+        verificarAdmitido(ultimo);
+        for (YearMonth mes = primero; !mes.isAfter(ultimo); mes = mes.plusMonths(1)) {
+            crear(mes);
+        }
+    }
+
+    @Override
+    public void asegurarMeses(Collection<YearMonth> meses) {
+        meses.forEach(this::verificarAdmitido);
+        meses.forEach(this::crear);
+    }
+
+    @Override
+    public YearMonth primerMesAdmitido() {
+        return YearMonth.now().minusMonths(mesesAtras);
+    }
+
+    @Override
+    public YearMonth ultimoMesAdmitido() {
+        return YearMonth.now().plusMonths(mesesAdelante);
+    }
+
+    private void verificarAdmitido(YearMonth mes) {
+        if (mes.isBefore(primerMesAdmitido()) || mes.isAfter(ultimoMesAdmitido())) {
+            throw new IllegalArgumentException("No se admiten marcas de " + mes + ": solo entre "
+                    + primerMesAdmitido() + " y " + ultimoMesAdmitido());
+        }
+    }
+
+    private void crear(YearMonth mes) {
+        if (conectadas.contains(mes)) {
+            return;
+        }
+        if (Boolean.TRUE.equals(transaccion.execute(estado -> particionRepo.crear(mes)))) {
+            logger.info("Partición {} creada", ParticionAsistenciaRepository.nombre(mes));
+        }
+        conectadas.add(mes);
+    }
+
+    @Override
+    public List<ParticionAsistenciaDTO> listar() {
+        return particionRepo.listar();
+    }
+
+    @Override
+    public void desconectar(YearMonth mes) {
+        if (!mes.isBefore(YearMonth.now())) {
+            throw new IllegalArgumentException("Solo se pueden archivar meses anteriores al actual");
+        }
+        if (particionRepo.listar().stream().noneMatch(particion -> particion.mes().equals(mes))) {
+            throw new IllegalArgumentException("No hay una partición conectada para " + mes);
+        }
+        conectadas.remove(mes);
+        long inicio = System.nanoTime();
+        particionRepo.desconectar(mes);
+        logger.info("Partición {} desconectada en {} ms", ParticionAsistenciaRepository.nombre(mes),
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+}
@@ -0,0 +1,36 @@
+package com.relojcontrol.reloj_control.service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Se publica después de confirmar un cambio en las reglas del cálculo (parámetros, horarios o feriados),
+ * para volver a calcular los resúmenes diarios guardados con las reglas anteriores.
+ *
+ * @param motivo      Qué cambió, para el registro
+ * @param desde       Primer día afectado, o null para el período abierto
+ * @param hasta       Último día afectado (inclusivo), o null para el período abierto
+ * @param idsEmpleado Empleados afectados, o null si el cambio afecta a todos
+ */
+public record ReglasResumenModificadasEvent(String motivo, LocalDate desde, LocalDate hasta,
+                                            Collection<Long> idsEmpleado) {
+
+    public ReglasResumenModificadasEvent(String motivo, LocalDate desde, LocalDate hasta) {
+        this(motivo, desde, hasta, null);
+    }
+
+    /**
+     * El cambio rige para todo el período abierto; los períodos anteriores se conservan como se calcularon.
+     */
+    public static ReglasResumenModificadasEvent periodoAbierto(String motivo) {
+        return new ReglasResumenModificadasEvent(motivo, null, null);
+    }
+
+    /**
+     * El cambio rige para el período abierto de un solo empleado, por ejemplo al cambiarlo de unidad.
+     */
+    public static ReglasResumenModificadasEvent periodoAbierto(String motivo, long idEmpleado) {
+        return new ReglasResumenModificadasEvent(motivo, null, null, List.of(idEmpleado));
+    }
+}
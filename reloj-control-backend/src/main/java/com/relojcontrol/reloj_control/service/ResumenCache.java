@@ -0,0 +1,145 @@
+package com.relojcontrol.reloj_control.service;
+
+import com.relojcontrol.reloj_control.dto.EstadisticasCacheDTO;
+import com.relojcontrol.reloj_control.dto.ResumenAsistenciaDTO;
+import com.relojcontrol.reloj_control.util.ConsultaUnica;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caché de los resúmenes por RUT parcial y rango de fechas, que los supervisores consultan una y otra vez.
+ * <p>
+ * Se limita por la cantidad total de filas guardadas y expulsa las consultas usadas hace más tiempo.
+ * Cada entrada cubre los empleados cuyo RUT empieza con su filtro en sus días, y se invalida cuando
+ * cambia el resumen de alguno de esos empleado-día. Una consulta que estaba en curso durante una
+ * invalidación no se guarda, porque pudo leer datos anteriores al cambio.
+ * <p>
+ * Las consultas iguales que llegan mientras otra se calcula esperan su resultado en vez de repetirla,
+ * también con el caché desactivado. Solo se comparte entre consultas iniciadas sin una invalidación de por
+ * medio, así nadie recibe datos anteriores a un cambio ya confirmado cuando empezó a consultar.
+ */
+@Component
+public class ResumenCache {
+
+    /**
+     * Consulta normalizada: el RUT sin espacios alrededor y vacío si no se filtra.
+     */
+    public record Clave(String rut, LocalDate inicio, LocalDate fin) {
+        public Clave {
+            rut = rut == null ? "" : rut.trim();
+        }
+
+        boolean cubre(String rutEmpleado, LocalDate desde, LocalDate hasta) {
+            return !inicio.isAfter(hasta) && !fin.isBefore(desde) && (rutEmpleado == null || rutEmpleado.startsWith(rut));
+        }
+    }
+
+    // Clave de una consulta en curso: la misma consulta después de una invalidación se calcula de nuevo
+    private record EnCurso(Clave clave, long generacion) {
+    }
+
+    private final long filasMaximas;
+    private final ConsultaUnica<EnCurso, List<ResumenAsistenciaDTO>> enCurso = new ConsultaUnica<>();
+    private final LinkedHashMap<Clave, List<ResumenAsistenciaDTO>> entradas = new LinkedHashMap<>(64, 0.75f, true);
+    private long filas;
+    private long generacion;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder expulsiones = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    public ResumenCache(@Value("${resumen.cache.filas-maximas:200000}") long filasMaximas) {
+        this.filasMaximas = filasMaximas;
+    }
+
+    /**
+     * Devuelve el resumen guardado para la consulta o lo calcula y lo guarda. La lista devuelta no se puede modificar.
+     */
+    public List<ResumenAsistenciaDTO> obtener(Clave clave, Supplier<List<ResumenAsistenciaDTO>> calcular) {
+        long generacionLectura;
+        synchronized (this) {
+            List<ResumenAsistenciaDTO> guardado = entradas.get(clave);
+            if (guardado != null) {
+                aciertos.increment();
+                return guardado;
+            }
+            generacionLectura = generacion;
+        }
+        fallos.increment();
+        return enCurso.obtener(new EnCurso(clave, generacionLectura), () -> {
+            List<ResumenAsistenciaDTO> calculado = List.copyOf(calcular.get());
+            synchronized (this) {
+                if (generacionLectura == generacion && peso(calculado) <= filasMaximas) {
+                    List<ResumenAsistenciaDTO> anterior = entradas.put(clave, calculado);
+                    filas += peso(calculado) - (anterior != null ? peso(anterior) : 0);
+                    expulsar();
+                }
+            }
+            return calculado;
+        });
+    }
+
+    /**
+     * Invalida las consultas que cubren alguno de los empleados, por RUT, entre desde y hasta.
+     */
+    public void invalidar(Collection<String> ruts, LocalDate desde, LocalDate hasta) {
+        quitar(clave -> ruts.stream().anyMatch(rut -> clave.cubre(rut, desde, hasta)));
+    }
+
+    /**
+     * Invalida las consultas que cubren algún día entre desde y hasta, de cualquier empleado.
+     */
+    public void invalidarFechas(LocalDate desde, LocalDate hasta) {
+        quitar(clave -> clave.cubre(null, desde, hasta));
+    }
+
+    public void invalidarTodo() {
+        quitar(clave -> true);
+    }
+
+    public synchronized EstadisticasCacheDTO estadisticas() {
+        long consultas = aciertos.sum() + fallos.sum();
+        return new EstadisticasCacheDTO(aciertos.sum(), fallos.sum(), enCurso.compartidas(),
+                consultas == 0 ? 0 : (double) aciertos.sum() / consultas,
+                expulsiones.sum(), invalidaciones.sum(), entradas.size(), filas, filasMaximas);
+    }
+
+    private synchronized void quitar(Predicate<Clave> afectada) {
+        generacion++;
+        Iterator<Map.Entry<Clave, List<ResumenAsistenciaDTO>>> it = entradas.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Clave, List<ResumenAsistenciaDTO>> entrada = it.next();
+            if (afectada.test(entrada.getKey())) {
+                filas -= peso(entrada.getValue());
+                it.remove();
+                invalidaciones.increment();
+            }
+        }
+    }
+
+    // Se llama con el monitor tomado
+    private void expulsar() {
+        Iterator<List<ResumenAsistenciaDTO>> it = entradas.values().iterator();
+        while (filas > filasMaximas && it.hasNext()) {
+            filas -= peso(it.next());
+            it.remove();
+            expulsiones.increment();
+        }
+    }
+
+    // Una consulta vacía también ocupa lugar
+    private static long peso(List<ResumenAsistenciaDTO> resumenes) {
+        return resumenes.size() + 1L;
+    }
+}
@@ -0,0 +1,298 @@
+package com.relojcontrol.reloj_control.service;
+
+import com.relojcontrol.reloj_control.dto.MarcaResumenDTO;
+import com.relojcontrol.reloj_control.dto.ReconstruccionResumenDTO;
+import com.relojcontrol.reloj_control.model.ResumenDiario;
+import com.relojcontrol.reloj_control.repository.AsistenciaRepository;
+import com.relojcontrol.reloj_control.repository.EmpleadoRepository;
+import com.relojcontrol.reloj_control.repository.ResumenDiarioRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Mantiene la tabla resumen_diario, que guarda ya calculado el resumen de cada empleado y día.
+ * <p>
+ * Cada escritura de marcas publica un {@link MarcasModificadasEvent}; al confirmarse la transacción
+ * se recalculan solo los empleados y días afectados. El cálculo es el mismo de
+ * {@link AsistenciaService#recorrerResumenes}, de modo que leer la tabla equivale a calcular el resumen.
+ * Los rangos largos se procesan por meses, cada mes en su propia transacción, y dentro del mes las
+ * marcas se recorren en orden y los resúmenes se guardan por tandas, sin cargar el mes completo.
+ */
+@Service
+public class ResumenDiarioService implements IResumenDiarioService {
+    private static final Logger logger = LoggerFactory.getLogger(ResumenDiarioService.class);
+    private static final int TAMANO_TANDA = 500;
+
+    private final ResumenDiarioRepository resumenRepo;
+    private final AsistenciaRepository asistenciaRepo;
+    private final AsistenciaService asistenciaService;
+    private final EmpleadoRepository empleadoRepo;
+    private final ResumenCache resumenCache;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaccion;
+    private final ForkJoinPool poolResumen;
+    private final ThreadPoolTaskExecutor reconstruccionExecutor;
+    private final boolean reconstruirAlIniciar;
+    private final int mesesPeriodoAbierto;
+
+    public ResumenDiarioService(ResumenDiarioRepository resumenRepo,
+                                AsistenciaRepository asistenciaRepo,
+                                AsistenciaService asistenciaService,
+                                EmpleadoRepository empleadoRepo,
+                                ResumenCache resumenCache,
+                                EntityManager entityManager,
+                                PlatformTransactionManager transactionManager,
+                                @Qualifier("resumenForkJoinPool") ForkJoinPool poolResumen,
+                                @Qualifier("resumenReconstruccionExecutor") ThreadPoolTaskExecutor reconstruccionExecutor,
+                                @Value("${resumen.diario.reconstruir-al-iniciar:true}") boolean reconstruirAlIniciar,
+                                @Value("${resumen.diario.periodo-abierto-meses:2}") int mesesPeriodoAbierto) {
+        this.resumenRepo = resumenRepo;
+        this.asistenciaRepo = asistenciaRepo;
+        this.asistenciaService = asistenciaService;
+        this.empleadoRepo = empleadoRepo;
+        this.resumenCache = resumenCache;
+        this.entityManager = entityManager;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        // Se llama después de confirmar la transacción que publicó el evento, así que necesita una propia
+        this.transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.poolResumen = poolResumen;
+        this.reconstruccionExecutor = reconstruccionExecutor;
+        this.reconstruirAlIniciar = reconstruirAlIniciar;
+        this.mesesPeriodoAbierto = Math.max(1, mesesPeriodoAbierto);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alModificarMarcas(MarcasModificadasEvent evento) {
+        try {
+            recalcular(evento.idsEmpleado(), evento.desde(), evento.hasta());
+        } catch (RuntimeException e) {
+            // Las marcas ya están guardadas; el resumen se corrige reconstruyendo el rango
+            logger.error("No se pudo actualizar el resumen diario de {} empleados entre {} y {}",
+                    evento.idsEmpleado().size(), evento.desde(), evento.hasta(), e);
+        }
+    }
+
+    /**
+     * Los resúmenes guardados se calcularon con los parámetros, horarios y feriados anteriores al cambio.
+     * Se reconstruyen en segundo plano; mientras tanto las consultas siguen viendo los valores anteriores.
+     * El evento se publica después de confirmar el cambio y de recargar la copia en memoria, así que la
+     * reconstrucción ya usa las reglas nuevas.
+     */
+    @EventListener
+    public void alModificarReglas(ReglasResumenModificadasEvent evento) {
+        reconstruccionExecutor.execute(() -> {
+            LocalDate desde = evento.desde() != null ? evento.desde()
+                    : YearMonth.now().minusMonths(mesesPeriodoAbierto - 1L).atDay(1);
+            LocalDate hasta = evento.hasta() != null ? evento.hasta() : finPeriodoAbierto();
+            try {
+                if (evento.idsEmpleado() == null) {
+                    reconstruir(desde, hasta);
+                } else {
+                    recalcular(evento.idsEmpleado(), desde, hasta);
+                }
+            } catch (RuntimeException e) {
+                logger.error("No se pudo reconstruir el resumen diario entre {} y {} después de cambiar {}",
+                        desde, hasta, evento.motivo(), e);
+            }
+        });
+    }
+
+    @Override
+    public void encolarReconstruccion(LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException(
+                    "La fecha de inicio (" + desde + ") no puede ser posterior a la fecha final (" + hasta + ").");
+        }
+        reconstruccionExecutor.execute(() -> {
+            try {
+                reconstruir(desde, hasta);
+            } catch (RuntimeException e) {
+                logger.error("No se pudo reconstruir el resumen diario entre {} y {}", desde, hasta, e);
+            }
+        });
+    }
+
+    // Hoy, o el último día con marcas si hay marcas futuras (por ejemplo, de justificaciones)
+    private LocalDate finPeriodoAbierto() {
+        LocalDate hoy = LocalDate.now();
+        return asistenciaRepo.findUltimaFechaHora()
+                .map(LocalDateTime::toLocalDate)
+                .filter(ultima -> ultima.isAfter(hoy))
+                .orElse(hoy);
+    }
+
+    /**
+     * Si la tabla está vacía (por ejemplo, al actualizar desde una versión sin ella) se construye
+     * con todas las marcas existentes, en el hilo de reconstrucción para no demorar el arranque.
+     * Mientras tanto las consultas que leen la tabla no encuentran resúmenes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirSiFalta() {
+        if (!reconstruirAlIniciar) {
+            return;
+        }
+        reconstruccionExecutor.execute(() -> {
+            if (resumenRepo.count() > 0) {
+                return;
+            }
+            LocalDateTime primera = asistenciaRepo.findPrimeraFechaHora().orElse(null);
+            LocalDateTime ultima = asistenciaRepo.findUltimaFechaHora().orElse(null);
+            if (primera == null || ultima == null) {
+                return;
+            }
+            try {
+                reconstruir(primera.toLocalDate(), ultima.toLocalDate());
+            } catch (RuntimeException e) {
+                logger.error("No se pudo construir el resumen diario entre {} y {}", primera, ultima, e);
+            }
+        });
+    }
+
+    @Override
+    public void recalcular(Collection<Long> idsEmpleado, LocalDate desde, LocalDate hasta) {
+        if (idsEmpleado.isEmpty()) {
+            return;
+        }
+        // El día anterior también cambia si su turno nocturno terminó con una de estas marcas, y el
+        // siguiente si una de ellas dejó de cerrar (o pasó a cerrar) un turno y con eso cambia su primera marca
+        LocalDate primerDia = desde.minusDays(1);
+        LocalDate ultimoDia = hasta.plusDays(1);
+        ReconstruccionResumenDTO resultado;
+        try {
+            resultado = porMeses(primerDia, ultimoDia, (inicio, fin) ->
+                    resumenRepo.deleteByEmpleadosAndFechaBetween(idsEmpleado, inicio, fin),
+                    (inicio, fin) -> asistenciaRepo.streamMarcasResumenByEmpleados(
+                            idsEmpleado, inicio.atStartOfDay(), fin.plusDays(1).atStartOfDay()));
+        } finally {
+            // También si falló a medias: pudo haber confirmado algunos meses
+            resumenCache.invalidar(empleadoRepo.findRutsByIdEmpleadoIn(idsEmpleado), primerDia, ultimoDia);
+        }
+        logger.debug("Resumen diario de {} empleados entre {} y {}: {} registros ({})",
+                idsEmpleado.size(), desde, hasta, resultado.getRegistros(), resultado.serverTiming());
+    }
+
+    @Override
+    public ReconstruccionResumenDTO reconstruir(LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException(
+                    "La fecha de inicio (" + desde + ") no puede ser posterior a la fecha final (" + hasta + ").");
+        }
+        ReconstruccionResumenDTO resultado;
+        try {
+            resultado = porMeses(desde, hasta, resumenRepo::deleteByFechaBetween,
+                    (inicio, fin) -> asistenciaRepo.streamMarcasResumen(inicio.atStartOfDay(), fin.plusDays(1).atStartOfDay()));
+        } finally {
+            resumenCache.invalidarFechas(desde, hasta);
+        }
+        logger.info("Resumen diario reconstruido entre {} y {}: {} registros con paralelismo {} ({})",
+                desde, hasta, resultado.getRegistros(), resultado.getParalelismo(), resultado.serverTiming());
+        return resultado;
+    }
+
+    @FunctionalInterface
+    private interface Tramo<T> {
+        T procesar(LocalDate inicio, LocalDate fin);
+    }
+
+    /**
+     * Divide [desde, hasta] en tramos de un mes calendario y, en una transacción por tramo, borra los
+     * resúmenes del tramo y recorre sus marcas guardando los resúmenes a medida que se cierran. Se leen
+     * también las marcas del día anterior y del siguiente, para emparejar los turnos nocturnos del borde.
+     * La consulta, el cálculo y la escritura se intercalan; el cálculo se mide en el motor, la escritura
+     * en cada tanda y la consulta es el resto.
+     */
+    private ReconstruccionResumenDTO porMeses(LocalDate desde, LocalDate hasta,
+                                              Tramo<Integer> borrar, Tramo<Stream<MarcaResumenDTO>> consultar) {
+        ReconstruccionResumenDTO resultado = new ReconstruccionResumenDTO(desde, hasta, poolResumen.getParallelism());
+        LocalDate inicio = desde;
+        while (!inicio.isAfter(hasta)) {
+            LocalDate finMes = inicio.withDayOfMonth(inicio.lengthOfMonth());
+            LocalDate fin = finMes.isBefore(hasta) ? finMes : hasta;
+            LocalDate inicioTramo = inicio;
+            transaccion.executeWithoutResult(estado -> {
+                long t0 = System.nanoTime();
+                borrar.procesar(inicioTramo, fin);
+                Tanda tanda = new Tanda(System.nanoTime() - t0);
+                long nanosCalculo;
+                try (Stream<MarcaResumenDTO> marcas = consultar.procesar(inicioTramo.minusDays(1), fin.plusDays(1))) {
+                    nanosCalculo = asistenciaService.recorrerResumenes(marcas, resumen -> {
+                        if (!resumen.getFecha().isBefore(inicioTramo) && !resumen.getFecha().isAfter(fin)) {
+                            tanda.agregar(resumen);
+                        }
+                    }, fecha -> {
+                        if (!fecha.isBefore(inicioTramo) && !fecha.isAfter(fin)) {
+                            resultado.setDiasConError(resultado.getDiasConError() + 1);
+                        }
+                    });
+                }
+                tanda.guardar();
+                long total = System.nanoTime() - t0;
+
+                resultado.setRegistros(resultado.getRegistros() + tanda.registros);
+                resultado.setMsConsulta(resultado.getMsConsulta() + (total - nanosCalculo - tanda.nanosEscritura) / 1_000_000);
+                resultado.setMsCalculo(resultado.getMsCalculo() + nanosCalculo / 1_000_000);
+                resultado.setMsEscritura(resultado.getMsEscritura() + tanda.nanosEscritura / 1_000_000);
+            });
+            inicio = fin.plusDays(1);
+        }
+        if (resultado.getDiasConError() > 0) {
+            logger.warn("{} empleado-días entre {} y {} quedaron sin resumen por errores de cálculo",
+                    resultado.getDiasConError(), desde, hasta);
+        }
+        return resultado;
+    }
+
+    /**
+     * Acumula los resúmenes calculados y los guarda cada {@value #TAMANO_TANDA}, vaciando el contexto de
+     * persistencia para que la memoria no crezca con el tramo.
+     */
+    private final class Tanda {
+        private final List<ResumenDiario> pendientes = new ArrayList<>(TAMANO_TANDA);
+        private long nanosEscritura;
+        private long registros;
+
+        Tanda(long nanosBorrado) {
+            this.nanosEscritura = nanosBorrado;
+        }
+
+        void agregar(ResumenDiario resumen) {
+            pendientes.add(resumen);
+            if (pendientes.size() == TAMANO_TANDA) {
+                guardar();
+            }
+        }
+
+        void guardar() {
+            if (pendientes.isEmpty()) {
+                return;
+            }
+            long inicio = System.nanoTime();
+            resumenRepo.saveAll(pendientes);
+            resumenRepo.flush();
+            entityManager.clear();
+            registros += pendientes.size();
+            pendientes.clear();
+            nanosEscritura += System.nanoTime() - inicio;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.relojcontrol.reloj_control.service.importacion;
+
+import com.relojcontrol.reloj_control.dto.ResultadoImportacionDTO;
+import com.relojcontrol.reloj_control.repository.AsistenciaBatchRepository;
+import com.relojcontrol.reloj_control.repository.EmpleadoRepository;
+import com.relojcontrol.reloj_control.service.IParticionAsistenciaService;
+import com.relojcontrol.reloj_control.service.MarcasModificadasEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Carga masiva de marcas para cargas históricas: el archivo se vuelca con COPY a una tabla
+ * de paso UNLOGGED y se fusiona con asistencias en una sola sentencia INSERT ... SELECT,
+ * sin pasar las marcas por memoria ni por JPA.
+ * <p>
+ * Toda la carga ocurre en una transacción: si algo falla, incluida la lectura del archivo, no queda
+ * ninguna marca a medias.
+ */
+@Component
+public class CargaMasivaCopy {
+    private static final Logger logger = LoggerFactory.getLogger(CargaMasivaCopy.class);
+
+    private final AsistenciaBatchRepository asistenciaBatchRepository;
+    private final EmpleadoRepository empleadoRepository;
+    private final ProcesadorLoteMarcas procesadorLote;
+    private final IParticionAsistenciaService particiones;
+    private final ApplicationEventPublisher eventos;
+
+    public CargaMasivaCopy(AsistenciaBatchRepository asistenciaBatchRepository,
+                           EmpleadoRepository empleadoRepository,
+                           ProcesadorLoteMarcas procesadorLote,
+                           IParticionAsistenciaService particiones,
+                           ApplicationEventPublisher eventos) {
+        this.asistenciaBatchRepository = asistenciaBatchRepository;
+        this.empleadoRepository = empleadoRepository;
+        this.procesadorLote = procesadorLote;
+        this.particiones = particiones;
+        this.eventos = eventos;
+    }
+
+    /**
+     * @param escritor Escribe las marcas ya validadas del archivo, una por línea: {@code rut<TAB>yyyy-MM-dd HH:mm:ss}
+     * @return Marcas insertadas, duplicadas y empleados creados
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public ResultadoImportacionDTO cargar(AsistenciaBatchRepository.EscritorCopy escritor) throws IOException {
+        String tabla = asistenciaBatchRepository.crearTablaPaso();
+        try {
+            return cargarPorTablaPaso(tabla, escritor);
+        } finally {
+            eliminarTablaPaso(tabla);
+        }
+    }
+
+    private ResultadoImportacionDTO cargarPorTablaPaso(String tabla, AsistenciaBatchRepository.EscritorCopy escritor)
+            throws IOException {
+        ResultadoImportacionDTO resultado = new ResultadoImportacionDTO();
+        long copiadas = asistenciaBatchRepository.copiarATablaPaso(tabla, escritor);
+        // Antes de crear empleados: conectar una partición bloquea empleado y esperaría a esta transacción
+        LocalDate[] dias = asistenciaBatchRepository.diasTablaPaso(tabla);
+        if (dias != null) {
+            particiones.asegurarMeses(asistenciaBatchRepository.mesesTablaPaso(tabla));
+        }
+
+        List<String> faltantes = asistenciaBatchRepository.rutsSinEmpleado(tabla);
+        if (!faltantes.isEmpty()) {
+            resultado.setEmpleadosCreados(procesadorLote.crearEmpleados(faltantes).size());
+            // La fusión se hace con SQL, así que los empleados nuevos deben estar ya en la base
+            empleadoRepository.flush();
+        }
+
+        int insertadas = asistenciaBatchRepository.fusionarTablaPaso(tabla);
+        if (insertadas > 0) {
+            asistenciaBatchRepository.designarOficialesTablaPaso(tabla);
+            eventos.publishEvent(new MarcasModificadasEvent(
+                    asistenciaBatchRepository.idsEmpleadoTablaPaso(tabla), dias[0], dias[1]));
+        }
+
+        resultado.setMarcasInsertadas(insertadas);
+        resultado.setDuplicadas(copiadas - insertadas);
+        logger.info("Carga con COPY: {} filas copiadas a {}, {} insertadas", copiadas, tabla, insertadas);
+        return resultado;
+    }
+
+    private void eliminarTablaPaso(String tabla) {
+        try {
+            asistenciaBatchRepository.eliminarTablaPaso(tabla);
+        } catch (DataAccessException e) {
+            // Tras un error de SQL la transacción ya no acepta sentencias; al revertirse la tabla se descarta igual
+            logger.debug("No se pudo eliminar la tabla de paso {}: {}", tabla, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.relojcontrol.reloj_control.service.importacion;
+
+import com.relojcontrol.reloj_control.dto.MarcaRegistradaDTO;
+import com.relojcontrol.reloj_control.util.FiltroBloom;
+import com.relojcontrol.reloj_control.util.LongHashSet;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estado de una importación que se mantiene entre lotes: el índice de marcas ya conocidas
+ * y un contador de marcas por empleado y día para clasificar ENTRADA/SALIDA en memoria.
+ * <p>
+ * Solo se cargan desde la base las marcas de los días que cubre el archivo, una vez por empleado,
+ * de modo que el costo depende del tamaño del archivo y no del historial acumulado.
+ * <p>
+ * Normalmente las claves (empleado, fecha/hora) existentes se guardan en un {@link LongHashSet}.
+ * En cargas históricas muy grandes se usa en su lugar un {@link FiltroBloom}: las marcas que el
+ * filtro da como posibles duplicados se confirman contra la base una vez por lote.
+ */
+public class ContextoImportacion {
+
+    private final LocalDateTime desde;
+    private final LocalDateTime hasta;
+    private final Set<Long> empleadosCargados = new HashSet<>();
+    private final Map<Long, Integer> marcasPorDia = new HashMap<>();
+
+    // Modo exacto: todas las claves conocidas
+    private final LongHashSet marcas;
+
+    // Modo filtro de Bloom: claves del lote en curso y posibles duplicados confirmados en la base
+    private final FiltroBloom filtro;
+    private final LongHashSet marcasDelLote = new LongHashSet();
+    private LongHashSet confirmadas = new LongHashSet();
+
+    private ContextoImportacion(LocalDateTime desde, LocalDateTime hasta, LongHashSet marcas, FiltroBloom filtro) {
+        this.desde = desde;
+        this.hasta = hasta;
+        this.marcas = marcas;
+        this.filtro = filtro;
+    }
+
+    /**
+     * Contexto que guarda en memoria todas las claves existentes de la ventana.
+     *
+     * @param desde            Inicio (inclusivo) de la ventana de fechas del archivo
+     * @param hasta            Fin (exclusivo) de la ventana de fechas del archivo
+     * @param marcasEsperadas  Estimación de claves que se cargarán
+     */
+    public static ContextoImportacion exacto(LocalDateTime desde, LocalDateTime hasta, long marcasEsperadas) {
+        return new ContextoImportacion(desde, hasta, new LongHashSet((int) Math.min(marcasEsperadas, 1 << 26)), null);
+    }
+
+    /**
+     * Contexto para cargas históricas grandes, que resume las claves existentes en un filtro de Bloom.
+     */
+    public static ContextoImportacion conFiltroBloom(LocalDateTime desde, LocalDateTime hasta, long marcasEsperadas) {
+        return new ContextoImportacion(desde, hasta, null, new FiltroBloom(marcasEsperadas, 0.01));
+    }
+
+    /**
+     * Empaqueta (empleado, fecha/hora) en un long: 32 bits de id y 32 bits de segundos desde 1970.
+     */
+    public static long claveMarca(Long idEmpleado, LocalDateTime fechaHora) {
+        return claveMarca(idEmpleado.longValue(), fechaHora.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    public static long claveMarca(long idEmpleado, long epochSegundo) {
+        return (idEmpleado << 32) | (epochSegundo & 0xFFFFFFFFL);
+    }
+
+    private static long claveDia(long idEmpleado, long epochDia) {
+        return (idEmpleado << 32) | (epochDia & 0xFFFFFFFFL);
+    }
+
+    public LocalDateTime getDesde() {
+        return desde;
+    }
+
+    public LocalDateTime getHasta() {
+        return hasta;
+    }
+
+    public boolean usaFiltroBloom() {
+        return filtro != null;
+    }
+
+    public boolean estaCargado(Long idEmpleado) {
+        return empleadosCargados.contains(idEmpleado);
+    }
+
+    /**
+     * Registra las marcas ya almacenadas de un grupo de empleados dentro de la ventana del archivo (modo exacto).
+     */
+    public void cargarExistentes(Collection<Long> idsEmpleado, Collection<MarcaRegistradaDTO> registradas) {
+        empleadosCargados.addAll(idsEmpleado);
+        for (MarcaRegistradaDTO registrada : registradas) {
+            if (marcas.add(claveMarca(registrada.idEmpleado(), registrada.fechaHora()))) {
+                marcasPorDia.merge(claveDia(registrada.idEmpleado(), registrada.fechaHora().toLocalDate().toEpochDay()), 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Marca un grupo de empleados como cargado (modo filtro de Bloom); sus conteos y claves
+     * se agregan con {@link #agregarConteoDia} y {@link #agregarClaveExistente}.
+     */
+    public void marcarCargados(Collection<Long> idsEmpleado) {
+        empleadosCargados.addAll(idsEmpleado);
+    }
+
+    public void agregarConteoDia(Long idEmpleado, LocalDate fecha, int cantidad) {
+        marcasPorDia.merge(claveDia(idEmpleado, fecha.toEpochDay()), cantidad, Integer::sum);
+    }
+
+    public void agregarClaveExistente(long clave) {
+        filtro.agregar(clave);
+    }
+
+    /**
+     * Indica si una marca debe confirmarse contra la base antes de darla por nueva.
+     * En modo exacto nunca hace falta.
+     */
+    public boolean requiereVerificacion(long idEmpleado, long epochSegundo) {
+        if (filtro == null) {
+            return false;
+        }
+        return filtro.podriaContener(claveMarca(idEmpleado, epochSegundo));
+    }
+
+    /**
+     * Comienza un lote nuevo con las claves que la base confirmó como existentes.
+     */
+    public void iniciarLote(LongHashSet existentesConfirmadas) {
+        marcasDelLote.clear();
+        confirmadas = existentesConfirmadas;
+    }
+
+    /**
+     * Intenta registrar una marca nueva.
+     *
+     * @return El tipo asignado (ENTRADA si el empleado lleva un número par de marcas ese día,
+     * SALIDA si es impar), o null si ya existía una marca en ese momento exacto
+     */
+    public String registrarNueva(long idEmpleado, long epochSegundo) {
+        long clave = claveMarca(idEmpleado, epochSegundo);
+        if (filtro == null) {
+            if (!marcas.add(clave)) {
+                return null;
+            }
+        } else {
+            if (!marcasDelLote.add(clave) || confirmadas.contains(clave)) {
+                return null;
+            }
+            filtro.agregar(clave);
+        }
+        int marcasDelDia = marcasPorDia.merge(claveDia(idEmpleado, Math.floorDiv(epochSegundo, 86_400L)), 1, Integer::sum) - 1;
+        return marcasDelDia % 2 == 0 ? "ENTRADA" : "SALIDA";
+    }
+}
@@ -0,0 +1,105 @@
+package com.relojcontrol.reloj_control.service.importacion;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Abre un flujo que puede venir comprimido con gzip o zip, descomprimiéndolo a medida que se lee.
+ * El formato se detecta por los primeros bytes, sin depender de cabeceras ni de la extensión.
+ * De un zip se leen, una tras otra, todas las entradas que no son directorios.
+ */
+public final class EntradaComprimida {
+
+    private static final int TAMANO_BUFFER = 1 << 16;
+
+    private EntradaComprimida() {
+    }
+
+    /**
+     * Si el archivo empieza como un gzip o un zip.
+     */
+    public static boolean esComprimido(Path archivo) throws IOException {
+        byte[] inicio = new byte[4];
+        int leidos;
+        try (InputStream in = Files.newInputStream(archivo)) {
+            leidos = in.readNBytes(inicio, 0, inicio.length);
+        }
+        return (leidos >= 2 && (inicio[0] & 0xff) == 0x1f && (inicio[1] & 0xff) == 0x8b)
+                || (leidos == 4 && inicio[0] == 'P' && inicio[1] == 'K' && inicio[2] == 3 && inicio[3] == 4);
+    }
+
+    public static InputStream abrir(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, TAMANO_BUFFER);
+        buffered.mark(4);
+        int b0 = buffered.read();
+        int b1 = buffered.read();
+        int b2 = buffered.read();
+        int b3 = buffered.read();
+        buffered.reset();
+
+        if (b0 == 0x1f && b1 == 0x8b) {
+            return new GZIPInputStream(buffered, TAMANO_BUFFER);
+        }
+        if (b0 == 'P' && b1 == 'K' && b2 == 3 && b3 == 4) {
+            return new EntradasZip(new ZipInputStream(buffered));
+        }
+        return buffered;
+    }
+
+    /**
+     * Concatena el contenido de las entradas de un zip.
+     */
+    private static final class EntradasZip extends InputStream {
+        private final ZipInputStream zip;
+        private boolean hayEntrada;
+
+        EntradasZip(ZipInputStream zip) throws IOException {
+            this.zip = zip;
+            this.hayEntrada = siguienteArchivo();
+        }
+
+        private boolean siguienteArchivo() throws IOException {
+            ZipEntry entrada;
+            while ((entrada = zip.getNextEntry()) != null) {
+                if (!entrada.isDirectory()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] uno = new byte[1];
+            return read(uno, 0, 1) < 0 ? -1 : uno[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            while (hayEntrada) {
+                int leidos = zip.read(b, off, len);
+                if (leidos >= 0) {
+                    return leidos;
+                }
+                hayEntrada = siguienteArchivo();
+                if (hayEntrada && len > 0) {
+                    // Salto de línea entre entradas, por si la anterior no terminaba en uno
+                    b[off] = '\n';
+                    return 1;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+}
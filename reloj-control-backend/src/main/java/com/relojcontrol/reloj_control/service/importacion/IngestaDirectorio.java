@@ -0,0 +1,306 @@
+package com.relojcontrol.reloj_control.service.importacion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.relojcontrol.reloj_control.dto.ImportacionJobDTO;
+import com.relojcontrol.reloj_control.exception.ConflictException;
+import com.relojcontrol.reloj_control.model.enums.EstadoImportacionEnum;
+import com.relojcontrol.reloj_control.service.IImportacionJobService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Importa sin intervención los archivos que los relojes dejan en una carpeta compartida.
+ * <p>
+ * Vigila la carpeta con un {@link WatchService} y, como respaldo, la revisa cada cierto tiempo.
+ * Cada archivo se reclama moviéndolo de forma atómica a {@code procesando/}, de modo que nunca se
+ * importa dos veces ni a medio copiar por otro proceso que también lo reclame. Se importa por lotes
+ * y termina en {@code hecho/} o {@code fallido/} junto a un {@code .resultado.json} con el resultado.
+ * <p>
+ * Solo se reclaman tantos archivos como hilos haya: el resto espera en la carpeta, así una ráfaga
+ * de archivos no satura la base de datos.
+ * <p>
+ * Mientras se importa, la fecha de modificación del archivo en {@code procesando/} se renueva cada
+ * cierto tiempo. Un archivo que lleva más que la concesión sin renovarse quedó ahí por un proceso que
+ * se detuvo y vuelve a la entrada, con el nombre sellado para no pisar otro archivo del mismo nombre.
+ */
+@Component
+public class IngestaDirectorio {
+    private static final Logger logger = LoggerFactory.getLogger(IngestaDirectorio.class);
+
+    private static final String USUARIO = "spool";
+    private static final DateTimeFormatter SELLO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-");
+
+    private final IImportacionJobService jobService;
+    private final ObjectMapper objectMapper;
+    private final boolean habilitada;
+    private final Path entrada;
+    private final Path procesando;
+    private final Path hecho;
+    private final Path fallido;
+    private final int hilos;
+    private final long esperaMs;
+    private final long revisionMs;
+    private final long concesionMs;
+    // Archivos de procesando/ que importa este proceso, cuya concesión se renueva
+    private final Set<Path> enCurso = ConcurrentHashMap.newKeySet();
+
+    private Semaphore cupos;
+    private ExecutorService workers;
+    private ScheduledExecutorService renovador;
+    private Thread vigilante;
+    private volatile boolean detenida;
+
+    public IngestaDirectorio(IImportacionJobService jobService,
+                             ObjectMapper objectMapper,
+                             @Value("${importacion.spool.habilitado:false}") boolean habilitada,
+                             @Value("${importacion.spool.directorio:spool}") String directorio,
+                             @Value("${importacion.spool.hilos:1}") int hilos,
+                             @Value("${importacion.spool.espera-ms:5000}") long esperaMs,
+                             @Value("${importacion.spool.revision-ms:60000}") long revisionMs,
+                             @Value("${importacion.spool.concesion-ms:600000}") long concesionMs) {
+        this.jobService = jobService;
+        this.objectMapper = objectMapper;
+        this.habilitada = habilitada;
+        this.entrada = Paths.get(directorio).toAbsolutePath();
+        this.procesando = entrada.resolve("procesando");
+        this.hecho = entrada.resolve("hecho");
+        this.fallido = entrada.resolve("fallido");
+        this.hilos = Math.max(1, hilos);
+        this.esperaMs = esperaMs;
+        this.revisionMs = revisionMs;
+        this.concesionMs = concesionMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() throws IOException {
+        if (!habilitada) {
+            return;
+        }
+        for (Path carpeta : List.of(entrada, procesando, hecho, fallido)) {
+            Files.createDirectories(carpeta);
+        }
+        devolverVencidos();
+
+        renovador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "importacion-spool-concesion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long renovacionMs = Math.max(1, concesionMs / 3);
+        renovador.scheduleWithFixedDelay(this::renovarConcesiones, renovacionMs, renovacionMs, TimeUnit.MILLISECONDS);
+        cupos = new Semaphore(hilos);
+        AtomicInteger numero = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(hilos, r -> new Thread(r, "importacion-spool-" + numero.incrementAndGet()));
+        vigilante = new Thread(this::vigilar, "importacion-spool-vigilante");
+        vigilante.setDaemon(true);
+        vigilante.start();
+        logger.info("Ingesta de archivos del reloj desde {} con {} hilos", entrada, hilos);
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        detenida = true;
+        if (vigilante != null) {
+            vigilante.interrupt();
+        }
+        if (workers != null) {
+            workers.shutdown();
+            workers.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        if (renovador != null) {
+            renovador.shutdownNow();
+        }
+    }
+
+    /**
+     * Devuelve a la entrada los archivos de procesando/ cuya concesión venció: los dejó un proceso que se
+     * detuvo (este mismo, antes de reiniciar, u otro que comparte la carpeta). Reimportarlos es seguro
+     * porque los duplicados se descartan. Conservan el nombre sellado y nunca reemplazan un archivo de la
+     * entrada; si dos procesos devuelven el mismo, solo uno lo mueve.
+     */
+    private void devolverVencidos() throws IOException {
+        long vencidos = System.currentTimeMillis() - concesionMs;
+        try (Stream<Path> pendientes = Files.list(procesando)) {
+            for (Path archivo : pendientes.toList()) {
+                try {
+                    if (enCurso.contains(archivo) || !Files.isRegularFile(archivo)
+                            || Files.getLastModifiedTime(archivo).toMillis() >= vencidos) {
+                        continue;
+                    }
+                    Path destino = entrada.resolve(archivo.getFileName());
+                    if (Files.exists(destino)) {
+                        logger.warn("No se devuelve {} a la entrada: ya existe {}", archivo, destino);
+                        continue;
+                    }
+                    Files.move(archivo, destino, StandardCopyOption.ATOMIC_MOVE);
+                    logger.info("Se devuelve {} a la entrada: su concesión venció", archivo.getFileName());
+                } catch (NoSuchFileException e) {
+                    // Otro proceso lo devolvió o lo terminó de importar
+                }
+            }
+        }
+    }
+
+    private void renovarConcesiones() {
+        FileTime ahora = FileTime.fromMillis(System.currentTimeMillis());
+        for (Path archivo : enCurso) {
+            try {
+                Files.setLastModifiedTime(archivo, ahora);
+            } catch (IOException e) {
+                logger.warn("No se pudo renovar la concesión de {}", archivo, e);
+            }
+        }
+    }
+
+    private void vigilar() {
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            entrada.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            while (!detenida) {
+                try {
+                    revisar();
+                } catch (IOException e) {
+                    logger.warn("Falló la revisión de {}", entrada, e);
+                }
+                // Los eventos solo adelantan la próxima revisión; la revisión periódica cubre los eventos perdidos
+                // y los archivos que aún se estaban copiando
+                WatchKey clave = watcher.poll(Math.min(revisionMs, esperaMs), TimeUnit.MILLISECONDS);
+                if (clave != null) {
+                    clave.pollEvents();
+                    clave.reset();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.error("Se detuvo la ingesta de {}", entrada, e);
+        }
+    }
+
+    /**
+     * Reclama los archivos listos mientras haya hilos libres.
+     */
+    private void revisar() throws IOException, InterruptedException {
+        devolverVencidos();
+        for (Path archivo : listos()) {
+            cupos.acquire();
+            Path reclamado = reclamar(archivo);
+            if (reclamado == null) {
+                cupos.release();
+                continue;
+            }
+            workers.execute(() -> {
+                try {
+                    importar(reclamado);
+                } finally {
+                    cupos.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * Archivos .dat de la entrada que no se han modificado en el tiempo de espera, para no tomar uno a medio copiar.
+     */
+    private List<Path> listos() throws IOException {
+        long limite = System.currentTimeMillis() - esperaMs;
+        List<Path> listos = new ArrayList<>();
+        try (Stream<Path> archivos = Files.list(entrada)) {
+            for (Path archivo : archivos.toList()) {
+                try {
+                    if (Files.isRegularFile(archivo)
+                            && archivo.getFileName().toString().toLowerCase().endsWith(".dat")
+                            && Files.getLastModifiedTime(archivo).toMillis() < limite) {
+                        listos.add(archivo);
+                    }
+                } catch (NoSuchFileException e) {
+                    // Otro proceso lo movió entre el listado y la consulta
+                }
+            }
+        }
+        return listos;
+    }
+
+    /**
+     * @return La ruta del archivo en procesando/, o null si otro proceso lo reclamó antes
+     */
+    private Path reclamar(Path archivo) {
+        Path destino = procesando.resolve(LocalDateTime.now().format(SELLO) + archivo.getFileName());
+        try {
+            Path reclamado = Files.move(archivo, destino, StandardCopyOption.ATOMIC_MOVE);
+            // La concesión empieza ahora, no en la fecha de modificación que traía el archivo
+            enCurso.add(reclamado);
+            Files.setLastModifiedTime(reclamado, FileTime.fromMillis(System.currentTimeMillis()));
+            return reclamado;
+        } catch (NoSuchFileException | FileAlreadyExistsException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("No se pudo reclamar {}", archivo, e);
+            return null;
+        }
+    }
+
+    private void importar(Path archivo) {
+        String nombre = nombreOriginal(archivo);
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("archivo", nombre);
+        Path carpetaFinal;
+        try {
+            ImportacionJobDTO job = jobService.importarArchivo(archivo, nombre, USUARIO);
+            resultado.put("job", job);
+            carpetaFinal = job.getEstado() == EstadoImportacionEnum.COMPLETADO ? hecho : fallido;
+        } catch (ConflictException e) {
+            resultado.put("mensaje", e.getMessage());
+            carpetaFinal = hecho;
+        } catch (Exception e) {
+            logger.error("Falló la importación de {}", archivo, e);
+            resultado.put("error", String.valueOf(e.getMessage()));
+            carpetaFinal = fallido;
+        }
+
+        try {
+            Path destino = Files.move(archivo, carpetaFinal.resolve(archivo.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+            objectMapper.writerWithDefaultPrettyPrinter()
+                    .writeValue(destino.resolveSibling(destino.getFileName() + ".resultado.json").toFile(), resultado);
+        } catch (IOException e) {
+            logger.error("No se pudo mover {} a {}", archivo, carpetaFinal, e);
+        } finally {
+            enCurso.remove(archivo);
+        }
+    }
+
+    /**
+     * Quita los sellos de tiempo que se agregan al reclamar el archivo; uno devuelto a la entrada y
+     * reclamado de nuevo tiene más de uno.
+     */
+    private static String nombreOriginal(Path reclamado) {
+        String nombre = reclamado.getFileName().toString();
+        while (nombre.length() > 16 && nombre.charAt(8) == '-' && nombre.charAt(15) == '-') {
+            nombre = nombre.substring(16);
+        }
+        return nombre;
+    }
+}
@@ -0,0 +1,327 @@
+package com.relojcontrol.reloj_control.service.importacion;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lector de archivos .dat del reloj, con líneas {@code RUT<TAB>yyyy-MM-dd HH:mm:ss[<TAB>...]}.
+ * <p>
+ * Recorre los bytes directamente, sin crear un String por línea ni usar {@code DateTimeFormatter}: el
+ * RUT se conserva tal como viene (sin los blancos de los extremos), pero su texto se crea una sola vez
+ * por RUT distinto de la lectura, y la fecha/hora, de ancho fijo, se convierte con aritmética a segundos
+ * desde 1970 (UTC, igual que {@code LocalDateTime.toEpochSecond(ZoneOffset.UTC)}).
+ * Solo las líneas inválidas se convierten a texto completo, para poder informarlas.
+ */
+public final class LectorMarcasDat {
+
+    private static final int TAMANO_BUFFER = 1 << 16;
+    private static final int LARGO_INFORMADO = 120;
+    private static final int VENTANA_MAPEO = 1 << 28;
+    private static final int LARGO_FECHA = 19;
+    // Largo de la columna empleado.rut
+    private static final int LARGO_MAXIMO_RUT = 255;
+    private static final byte TAB = '\t';
+    private static final byte LF = '\n';
+
+    /**
+     * Recibe las marcas a medida que se leen.
+     */
+    public interface Receptor {
+        /**
+         * Una línea válida.
+         *
+         * @param rut          RUT tal como viene en el archivo, sin los blancos de los extremos; la misma
+         *                     instancia para todas las marcas de un RUT en la lectura
+         * @param epochSegundo Fecha/hora de la marca en segundos desde 1970-01-01T00:00
+         */
+        void marca(String rut, long epochSegundo);
+
+        /**
+         * Una línea con dos columnas o más que no se pudo interpretar, o el comienzo de una línea
+         * que excede el largo máximo al leer un flujo.
+         */
+        void lineaInvalida(String linea);
+    }
+
+    private LectorMarcasDat() {
+    }
+
+    /**
+     * Lee un archivo en disco mapeándolo en memoria por ventanas.
+     */
+    public static void leer(Path archivo, Receptor receptor) throws IOException {
+        leer(archivo, 0, receptor);
+    }
+
+    /**
+     * Lee un archivo en disco a partir de un byte, que debe ser el comienzo de una línea.
+     */
+    public static void leer(Path archivo, long desde, Receptor receptor) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            TextosRut ruts = new TextosRut();
+            long tamano = canal.size();
+            long posicion = desde;
+            while (posicion < tamano) {
+                long largo = Math.min(VENTANA_MAPEO, tamano - posicion);
+                boolean fin = posicion + largo == tamano;
+                MappedByteBuffer ventana = canal.map(FileChannel.MapMode.READ_ONLY, posicion, largo);
+                int consumidos = procesar(ventana, fin, ruts, receptor);
+                if (consumidos == 0 && !fin) {
+                    throw new IOException("Línea de más de " + VENTANA_MAPEO + " bytes en " + archivo);
+                }
+                // La siguiente ventana parte en la primera línea que quedó incompleta
+                posicion += consumidos;
+            }
+        }
+    }
+
+    /**
+     * Lee un flujo con un buffer propio, conservando la línea incompleta al final de cada lectura.
+     * Una línea que no cabe en el buffer se informa como inválida (solo su comienzo) y se descarta
+     * hasta el siguiente salto de línea, en vez de agrandar el buffer sin límite.
+     */
+    public static void leer(InputStream in, Receptor receptor) throws IOException {
+        TextosRut ruts = new TextosRut();
+        byte[] buffer = new byte[TAMANO_BUFFER];
+        int ocupados = 0;
+        boolean descartando = false;
+        while (true) {
+            int leidos = in.read(buffer, ocupados, buffer.length - ocupados);
+            boolean fin = leidos < 0;
+            if (fin) {
+                if (!descartando) {
+                    procesar(ByteBuffer.wrap(buffer, 0, ocupados), true, ruts, receptor);
+                }
+                return;
+            }
+            if (descartando) {
+                // Lo leído va desde el índice 0; se salta hasta pasar el salto de línea
+                int lf = 0;
+                while (lf < leidos && buffer[lf] != LF) lf++;
+                if (lf == leidos) {
+                    continue;
+                }
+                System.arraycopy(buffer, lf + 1, buffer, 0, leidos - lf - 1);
+                ocupados = leidos - lf - 1;
+                descartando = false;
+            } else {
+                ocupados += leidos;
+            }
+            int consumidos = procesar(ByteBuffer.wrap(buffer, 0, ocupados), false, ruts, receptor);
+            if (consumidos == 0 && ocupados == buffer.length) {
+                receptor.lineaInvalida(texto(ByteBuffer.wrap(buffer), 0, LARGO_INFORMADO) + "...");
+                descartando = true;
+                ocupados = 0;
+                continue;
+            }
+            System.arraycopy(buffer, consumidos, buffer, 0, ocupados - consumidos);
+            ocupados -= consumidos;
+        }
+    }
+
+    /**
+     * Procesa las líneas completas del buffer, desde el índice 0 hasta su límite.
+     *
+     * @param fin Si es el final de los datos; en ese caso la última línea no necesita salto de línea
+     * @return Cantidad de bytes consumidos (hasta el inicio de la primera línea incompleta)
+     */
+    static int procesar(ByteBuffer buf, boolean fin, TextosRut ruts, Receptor receptor) {
+        int limite = buf.limit();
+        int inicio = 0;
+        while (inicio < limite) {
+            int finLinea = inicio;
+            while (finLinea < limite && buf.get(finLinea) != LF) {
+                finLinea++;
+            }
+            if (finLinea == limite && !fin) {
+                break;
+            }
+            procesarLinea(buf, inicio, finLinea, ruts, receptor);
+            inicio = finLinea + 1;
+        }
+        return Math.min(inicio, limite);
+    }
+
+    private static void procesarLinea(ByteBuffer buf, int inicio, int fin, TextosRut ruts, Receptor receptor) {
+        // Se descartan los espacios y el \r de los extremos, como hacía line.trim()
+        while (inicio < fin && esBlanco(buf.get(inicio))) inicio++;
+        while (fin > inicio && esBlanco(buf.get(fin - 1))) fin--;
+
+        int tab = inicio;
+        while (tab < fin && buf.get(tab) != TAB) tab++;
+        if (tab == fin) {
+            // Sin segunda columna: la línea se ignora sin contarla
+            return;
+        }
+
+        String rut = leerRut(buf, inicio, tab, ruts);
+        int inicioFecha = tab + 1;
+        int finFecha = inicioFecha;
+        while (finFecha < fin && buf.get(finFecha) != TAB) finFecha++;
+        long epochSegundo = finFecha - inicioFecha == LARGO_FECHA ? leerFecha(buf, inicioFecha) : Long.MIN_VALUE;
+
+        if (rut == null || epochSegundo == Long.MIN_VALUE) {
+            receptor.lineaInvalida(texto(buf, inicio, fin));
+            return;
+        }
+        receptor.marca(rut, epochSegundo);
+    }
+
+    /**
+     * @return El RUT sin los blancos de los extremos, o null si la columna está vacía o excede el largo de la columna
+     */
+    private static String leerRut(ByteBuffer buf, int inicio, int fin, TextosRut ruts) {
+        while (inicio < fin && esBlanco(buf.get(inicio))) inicio++;
+        while (fin > inicio && esBlanco(buf.get(fin - 1))) fin--;
+        if (inicio == fin || fin - inicio > LARGO_MAXIMO_RUT) {
+            return null;
+        }
+        return ruts.obtener(buf, inicio, fin);
+    }
+
+    /**
+     * Convierte {@code yyyy-MM-dd HH:mm:ss} a segundos desde 1970.
+     *
+     * @return Los segundos, o Long.MIN_VALUE si el texto no tiene el formato o la fecha no existe
+     */
+    private static long leerFecha(ByteBuffer buf, int i) {
+        if (buf.get(i + 4) != '-' || buf.get(i + 7) != '-' || buf.get(i + 10) != ' '
+                || buf.get(i + 13) != ':' || buf.get(i + 16) != ':') {
+            return Long.MIN_VALUE;
+        }
+        int anio = digitos(buf, i, 4);
+        int mes = digitos(buf, i + 5, 2);
+        int dia = digitos(buf, i + 8, 2);
+        int hora = digitos(buf, i + 11, 2);
+        int minuto = digitos(buf, i + 14, 2);
+        int segundo = digitos(buf, i + 17, 2);
+        if (anio < 0 || mes < 1 || mes > 12 || dia < 1 || dia > 31
+                || hora < 0 || hora > 23 || minuto < 0 || minuto > 59 || segundo < 0 || segundo > 59) {
+            return Long.MIN_VALUE;
+        }
+        // Igual que el formateador en modo SMART, un día inexistente del mes (31 de abril) pasa al último día válido
+        dia = Math.min(dia, diasDelMes(anio, mes));
+        return diasDesdeEpoch(anio, mes, dia) * 86_400L + hora * 3_600L + minuto * 60L + segundo;
+    }
+
+    /**
+     * @return El número formado por {@code cantidad} dígitos, o -1 si alguno no es dígito
+     */
+    private static int digitos(ByteBuffer buf, int inicio, int cantidad) {
+        int valor = 0;
+        for (int i = inicio; i < inicio + cantidad; i++) {
+            int digito = buf.get(i) - '0';
+            if (digito < 0 || digito > 9) {
+                return -1;
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor;
+    }
+
+    private static int diasDelMes(int anio, int mes) {
+        return switch (mes) {
+            case 2 -> (anio % 4 == 0 && (anio % 100 != 0 || anio % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    /**
+     * Días desde 1970-01-01 en el calendario gregoriano proléptico (algoritmo "days from civil").
+     */
+    static long diasDesdeEpoch(int anio, int mes, int dia) {
+        int a = mes <= 2 ? anio - 1 : anio;
+        int era = Math.floorDiv(a, 400);
+        int anioDeEra = a - era * 400;
+        int diaDelAnio = (153 * (mes > 2 ? mes - 3 : mes + 9) + 2) / 5 + dia - 1;
+        int diaDeEra = anioDeEra * 365 + anioDeEra / 4 - anioDeEra / 100 + diaDelAnio;
+        return era * 146_097L + diaDeEra - 719_468L;
+    }
+
+    private static boolean esBlanco(byte b) {
+        return b == ' ' || b == '\r' || b == TAB;
+    }
+
+    private static String texto(ByteBuffer buf, int inicio, int fin) {
+        byte[] bytes = new byte[fin - inicio];
+        buf.get(inicio, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Textos de los RUT vistos en una lectura, indexados por sus bytes, para crear un solo String por RUT
+     * distinto y no uno por línea. Un archivo trae pocos empleados y muchas marcas de cada uno.
+     */
+    static final class TextosRut {
+        private byte[][] bytes = new byte[256][];
+        private String[] textos = new String[256];
+        private int cantidad;
+
+        String obtener(ByteBuffer buf, int inicio, int fin) {
+            int hash = 1;
+            for (int i = inicio; i < fin; i++) {
+                hash = 31 * hash + buf.get(i);
+            }
+            int mascara = bytes.length - 1;
+            int i = (hash ^ (hash >>> 16)) & mascara;
+            while (bytes[i] != null) {
+                if (iguales(bytes[i], buf, inicio, fin)) {
+                    return textos[i];
+                }
+                i = (i + 1) & mascara;
+            }
+            byte[] nuevo = new byte[fin - inicio];
+            buf.get(inicio, nuevo);
+            String texto = new String(nuevo, StandardCharsets.UTF_8);
+            bytes[i] = nuevo;
+            textos[i] = texto;
+            if (++cantidad * 2 > bytes.length) {
+                crecer();
+            }
+            return texto;
+        }
+
+        private static boolean iguales(byte[] guardado, ByteBuffer buf, int inicio, int fin) {
+            if (guardado.length != fin - inicio) {
+                return false;
+            }
+            for (int i = 0; i < guardado.length; i++) {
+                if (guardado[i] != buf.get(inicio + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void crecer() {
+            byte[][] bytesAnteriores = bytes;
+            String[] textosAnteriores = textos;
+            bytes = new byte[bytesAnteriores.length * 2][];
+            textos = new String[bytes.length];
+            int mascara = bytes.length - 1;
+            for (int j = 0; j < bytesAnteriores.length; j++) {
+                byte[] clave = bytesAnteriores[j];
+                if (clave == null) {
+                    continue;
+                }
+                int hash = 1;
+                for (byte b : clave) {
+                    hash = 31 * hash + b;
+                }
+                int i = (hash ^ (hash >>> 16)) & mascara;
+                while (bytes[i] != null) {
+                    i = (i + 1) & mascara;
+                }
+                bytes[i] = clave;
+                textos[i] = textosAnteriores[j];
+            }
+        }
+    }
+}
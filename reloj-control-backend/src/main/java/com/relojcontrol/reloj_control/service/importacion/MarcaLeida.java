@@ -0,0 +1,16 @@
+package com.relojcontrol.reloj_control.service.importacion;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Marca tal como viene en una línea del archivo .dat: RUT tal como figura en el archivo (es la clave
+ * del empleado) y fecha/hora en segundos desde 1970 (hora local del reloj tratada como UTC, igual que
+ * en las claves de marca).
+ */
+public record MarcaLeida(String rut, long epochSegundo) {
+
+    public LocalDateTime fechaHora() {
+        return LocalDateTime.ofEpochSecond(epochSegundo, 0, ZoneOffset.UTC);
+    }
+}
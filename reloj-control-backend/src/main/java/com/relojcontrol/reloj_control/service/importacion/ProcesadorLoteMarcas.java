@@ -0,0 +1,236 @@
+package com.relojcontrol.reloj_control.service.importacion;
+
+import com.relojcontrol.reloj_control.dto.ResultadoImportacionDTO;
+import com.relojcontrol.reloj_control.model.Asistencia;
+import com.relojcontrol.reloj_control.model.Empleado;
+import com.relojcontrol.reloj_control.model.Usuario;
+import com.relojcontrol.reloj_control.repository.AsistenciaBatchRepository;
+import com.relojcontrol.reloj_control.repository.AsistenciaRepository;
+import com.relojcontrol.reloj_control.repository.EmpleadoRepository;
+import com.relojcontrol.reloj_control.repository.UsuarioRepository;
+import com.relojcontrol.reloj_control.service.IParticionAsistenciaService;
+import com.relojcontrol.reloj_control.service.MarcasModificadasEvent;
+import com.relojcontrol.reloj_control.util.LongHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Procesa un lote de marcas leídas de un archivo en una sola transacción:
+ * resuelve los empleados, carga las marcas ya existentes de los empleados nuevos con
+ * una consulta y escribe las nuevas asistencias con inserciones JDBC por lotes.
+ */
+@Component
+public class ProcesadorLoteMarcas {
+    private static final Logger logger = LoggerFactory.getLogger(ProcesadorLoteMarcas.class);
+
+    private final EmpleadoRepository empleadoRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final AsistenciaRepository asistenciaRepository;
+    private final AsistenciaBatchRepository asistenciaBatchRepository;
+    private final IParticionAsistenciaService particiones;
+    private final ApplicationEventPublisher eventos;
+    private final long umbralFiltroBloom;
+
+    public ProcesadorLoteMarcas(EmpleadoRepository empleadoRepository,
+                                UsuarioRepository usuarioRepository,
+                                AsistenciaRepository asistenciaRepository,
+                                AsistenciaBatchRepository asistenciaBatchRepository,
+                                IParticionAsistenciaService particiones,
+                                ApplicationEventPublisher eventos,
+                                @Value("${importacion.umbral-filtro-bloom:5000000}") long umbralFiltroBloom) {
+        this.empleadoRepository = empleadoRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.asistenciaRepository = asistenciaRepository;
+        this.asistenciaBatchRepository = asistenciaBatchRepository;
+        this.particiones = particiones;
+        this.eventos = eventos;
+        this.umbralFiltroBloom = umbralFiltroBloom;
+    }
+
+    /**
+     * Crea los contextos de una importación para la ventana de fechas del archivo, uno por partición
+     * de empleados. Si la ventana ya contiene más marcas que el umbral configurado, el índice de
+     * duplicados usa un filtro de Bloom; cada partición se dimensiona para su parte de las marcas.
+     *
+     * @param desde               Inicio (inclusivo) de la ventana
+     * @param hasta               Fin (exclusivo) de la ventana
+     * @param lineasPorParticion  Cantidad de marcas del archivo en cada partición
+     */
+    @Transactional(readOnly = true)
+    public List<ContextoImportacion> crearContextos(LocalDateTime desde, LocalDateTime hasta, long[] lineasPorParticion) {
+        long existentes = asistenciaBatchRepository.contarMarcas(desde, hasta);
+        boolean usarFiltro = existentes > umbralFiltroBloom;
+        if (usarFiltro) {
+            logger.info("La ventana {} - {} tiene {} marcas; se usará un filtro de Bloom para detectar duplicados",
+                    desde, hasta, existentes);
+        }
+        long existentesPorParticion = existentes / lineasPorParticion.length + 1;
+        List<ContextoImportacion> contextos = new ArrayList<>(lineasPorParticion.length);
+        for (long lineas : lineasPorParticion) {
+            contextos.add(usarFiltro
+                    ? ContextoImportacion.conFiltroBloom(desde, hasta, existentesPorParticion + lineas)
+                    : ContextoImportacion.exacto(desde, hasta, existentesPorParticion + lineas));
+        }
+        return contextos;
+    }
+
+    /**
+     * Importa un lote de marcas. Las marcas ya conocidas y los contadores por día se
+     * comparten entre lotes a través del contexto de la importación.
+     *
+     * @param lote     Marcas leídas del archivo, ordenadas por RUT y fecha/hora
+     * @param contexto Estado de la importación en curso
+     * @return Estadísticas del lote
+     */
+    @Transactional
+    public ResultadoImportacionDTO procesar(List<MarcaLeida> lote, ContextoImportacion contexto) {
+        ResultadoImportacionDTO resultado = new ResultadoImportacionDTO();
+        if (lote.isEmpty()) {
+            return resultado;
+        }
+        asegurarParticiones(lote);
+
+        Map<String, Empleado> empleados = resolverEmpleados(lote, resultado);
+
+        // Marcas ya guardadas en los días del archivo, solo para los empleados que aún no se han cargado
+        List<Long> pendientes = empleados.values().stream()
+                .map(Empleado::getIdEmpleado)
+                .filter(id -> !contexto.estaCargado(id))
+                .toList();
+        if (!pendientes.isEmpty()) {
+            cargarExistentes(pendientes, contexto);
+        }
+        if (contexto.usaFiltroBloom()) {
+            contexto.iniciarLote(confirmarPosiblesDuplicados(lote, empleados, contexto));
+        }
+
+        List<Asistencia> nuevas = new ArrayList<>(lote.size());
+        Set<Long> conNuevas = new HashSet<>();
+        long primerDia = Long.MAX_VALUE;
+        long ultimoDia = Long.MIN_VALUE;
+        for (MarcaLeida marca : lote) {
+            Empleado empleado = empleados.get(marca.rut());
+            String tipo = contexto.registrarNueva(empleado.getIdEmpleado(), marca.epochSegundo());
+            if (tipo == null) {
+                resultado.setDuplicadas(resultado.getDuplicadas() + 1);
+                continue;
+            }
+            nuevas.add(new Asistencia(empleado, marca.fechaHora(), tipo));
+            conNuevas.add(empleado.getIdEmpleado());
+            long dia = Math.floorDiv(marca.epochSegundo(), 86_400L);
+            primerDia = Math.min(primerDia, dia);
+            ultimoDia = Math.max(ultimoDia, dia);
+        }
+
+        int insertadas = asistenciaBatchRepository.insertarLote(nuevas);
+        if (insertadas > 0) {
+            // La marca oficial del día se fija al escribir, para que los resúmenes solo lean
+            asistenciaBatchRepository.designarOficiales(conNuevas,
+                    LocalDate.ofEpochDay(primerDia).atStartOfDay(), LocalDate.ofEpochDay(ultimoDia + 1).atStartOfDay());
+            eventos.publishEvent(new MarcasModificadasEvent(conNuevas,
+                    LocalDate.ofEpochDay(primerDia), LocalDate.ofEpochDay(ultimoDia)));
+        }
+        resultado.setMarcasInsertadas(insertadas);
+        // Las que descartó la restricción única también son duplicadas
+        resultado.setDuplicadas(resultado.getDuplicadas() + nuevas.size() - insertadas);
+        return resultado;
+    }
+
+    /**
+     * Crea las particiones de los meses del lote antes de escribir nada en esta transacción: conectar una
+     * partición bloquea empleado (por su clave foránea), y esperaría para siempre a esta transacción si ya
+     * hubiera creado empleados. Solo los meses con marcas, no los intermedios.
+     */
+    private void asegurarParticiones(List<MarcaLeida> lote) {
+        Set<YearMonth> meses = new HashSet<>();
+        for (MarcaLeida marca : lote) {
+            meses.add(YearMonth.from(LocalDate.ofEpochDay(Math.floorDiv(marca.epochSegundo(), 86_400L))));
+        }
+        particiones.asegurarMeses(meses);
+    }
+
+    private void cargarExistentes(List<Long> idsEmpleado, ContextoImportacion contexto) {
+        if (!contexto.usaFiltroBloom()) {
+            contexto.cargarExistentes(idsEmpleado,
+                    asistenciaRepository.findMarcasRegistradas(idsEmpleado, contexto.getDesde(), contexto.getHasta()));
+            return;
+        }
+        // Para cargas grandes solo se traen los conteos por día y las claves se vuelcan al filtro sin guardarlas
+        contexto.marcarCargados(idsEmpleado);
+        asistenciaBatchRepository.recorrerConteosPorDia(idsEmpleado, contexto.getDesde(), contexto.getHasta(),
+                contexto::agregarConteoDia);
+        asistenciaBatchRepository.recorrerMarcas(idsEmpleado, contexto.getDesde(), contexto.getHasta(),
+                (idEmpleado, fechaHora) -> contexto.agregarClaveExistente(ContextoImportacion.claveMarca(idEmpleado, fechaHora)));
+    }
+
+    /**
+     * Consulta en la base, con una sola consulta, las marcas del lote que el filtro de Bloom da como posibles duplicados.
+     */
+    private LongHashSet confirmarPosiblesDuplicados(List<MarcaLeida> lote, Map<String, Empleado> empleados,
+                                                    ContextoImportacion contexto) {
+        List<Long> ids = new ArrayList<>();
+        List<LocalDateTime> fechas = new ArrayList<>();
+        for (MarcaLeida marca : lote) {
+            Long idEmpleado = empleados.get(marca.rut()).getIdEmpleado();
+            if (contexto.requiereVerificacion(idEmpleado, marca.epochSegundo())) {
+                ids.add(idEmpleado);
+                fechas.add(marca.fechaHora());
+            }
+        }
+        LongHashSet confirmadas = new LongHashSet(ids.size());
+        asistenciaBatchRepository.buscarExistentes(ids, fechas,
+                (idEmpleado, fechaHora) -> confirmadas.add(ContextoImportacion.claveMarca(idEmpleado, fechaHora)));
+        return confirmadas;
+    }
+
+    /**
+     * Busca con una sola consulta los empleados del lote y crea los que no existen. El RUT del archivo
+     * se compara tal cual con el de los empleados, sin normalizarlo.
+     */
+    private Map<String, Empleado> resolverEmpleados(List<MarcaLeida> lote, ResultadoImportacionDTO resultado) {
+        // El lote viene ordenado por RUT: basta comparar con el anterior para no repetir
+        Set<String> ruts = new LinkedHashSet<>();
+        String anterior = null;
+        for (MarcaLeida marca : lote) {
+            if (!marca.rut().equals(anterior)) {
+                ruts.add(marca.rut());
+                anterior = marca.rut();
+            }
+        }
+
+        Map<String, Empleado> empleados = new HashMap<>();
+        empleadoRepository.findAllByRutIn(ruts).forEach(e -> empleados.put(e.getRut(), e));
+
+        List<String> faltantes = ruts.stream().filter(rut -> !empleados.containsKey(rut)).toList();
+        if (!faltantes.isEmpty()) {
+            List<Empleado> creados = crearEmpleados(faltantes);
+            creados.forEach(e -> empleados.put(e.getRut(), e));
+            resultado.setEmpleadosCreados(creados.size());
+            // Las marcas se insertan con JDBC, así que los empleados nuevos deben estar ya en la base
+            empleadoRepository.flush();
+        }
+        return empleados;
+    }
+
+    /**
+     * Crea el usuario y el empleado de cada RUT que aparece en un archivo sin estar registrado.
+     * Se ejecuta dentro de la transacción de quien la llama.
+     */
+    public List<Empleado> crearEmpleados(List<String> ruts) {
+        List<Usuario> usuarios = usuarioRepository.saveAll(ruts.stream()
+                .map(rut -> new Usuario(rut, rut.substring(0, Math.min(4, rut.length())), "ROLE_USER", "ACTIVO"))
+                .toList());
+        return empleadoRepository.saveAll(usuarios.stream()
+                .map(usuario -> new Empleado(null, usuario.getRun(), usuario))
+                .toList());
+    }
+}
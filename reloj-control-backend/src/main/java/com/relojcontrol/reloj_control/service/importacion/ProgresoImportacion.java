@@ -0,0 +1,70 @@
+package com.relojcontrol.reloj_control.service.importacion;
+
+import com.relojcontrol.reloj_control.dto.ResultadoImportacionDTO;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de una importación en curso. El hilo que importa los actualiza y
+ * cualquier otro hilo puede leerlos para informar el avance.
+ */
+public class ProgresoImportacion {
+
+    private final long inicioNanos = System.nanoTime();
+    private final AtomicLong lineasLeidas = new AtomicLong();
+    private final AtomicLong marcasInsertadas = new AtomicLong();
+    private final AtomicLong duplicadas = new AtomicLong();
+    private final AtomicLong errores = new AtomicLong();
+    private final AtomicLong empleadosCreados = new AtomicLong();
+    private final AtomicLong ultimaMarca = new AtomicLong(Long.MIN_VALUE);
+
+    public void lineaLeida() {
+        lineasLeidas.incrementAndGet();
+    }
+
+    /**
+     * Una línea válida; además de contarla, recuerda la marca más reciente vista.
+     */
+    public void marcaLeida(long epochSegundo) {
+        lineasLeidas.incrementAndGet();
+        ultimaMarca.accumulateAndGet(epochSegundo, Math::max);
+    }
+
+    /**
+     * @return La fecha/hora más reciente leída, o null si no hubo marcas válidas
+     */
+    public LocalDateTime getUltimaMarca() {
+        long epochSegundo = ultimaMarca.get();
+        return epochSegundo == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(epochSegundo, 0, ZoneOffset.UTC);
+    }
+
+    public void lineaConError() {
+        errores.incrementAndGet();
+    }
+
+    /**
+     * Suma el resultado de un lote ya guardado.
+     */
+    public void loteProcesado(ResultadoImportacionDTO lote) {
+        marcasInsertadas.addAndGet(lote.getMarcasInsertadas());
+        duplicadas.addAndGet(lote.getDuplicadas());
+        errores.addAndGet(lote.getErrores());
+        empleadosCreados.addAndGet(lote.getEmpleadosCreados());
+    }
+
+    /**
+     * Fotografía de los contadores actuales.
+     */
+    public ResultadoImportacionDTO instantanea() {
+        ResultadoImportacionDTO resultado = new ResultadoImportacionDTO();
+        resultado.setLineasLeidas(lineasLeidas.get());
+        resultado.setMarcasInsertadas(marcasInsertadas.get());
+        resultado.setDuplicadas(duplicadas.get());
+        resultado.setErrores(errores.get());
+        resultado.setEmpleadosCreados(empleadosCreados.get());
+        resultado.setDuracionMs((System.nanoTime() - inicioNanos) / 1_000_000);
+        return resultado;
+    }
+}
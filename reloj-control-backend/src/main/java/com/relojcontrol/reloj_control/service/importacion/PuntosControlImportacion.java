@@ -0,0 +1,128 @@
+package com.relojcontrol.reloj_control.service.importacion;
+
+import com.relojcontrol.reloj_control.model.PuntoControlImportacion;
+import com.relojcontrol.reloj_control.repository.PuntoControlImportacionRepository;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Reimportación incremental de archivos que crecen: el reloj agrega marcas al final del mismo .dat
+ * y el archivo completo se vuelve a subir cada día.
+ * <p>
+ * Cada archivo se identifica por la huella de sus primeros bytes. Tras importarlo se guarda hasta qué
+ * byte se procesó y la huella de los bytes justo antes de ese punto; en la siguiente subida basta leer
+ * esas dos ventanas (sin recorrer el archivo) para saber si es el mismo archivo sin cambios, el mismo
+ * con líneas nuevas al final (se importa solo la cola) u otro distinto (se importa completo).
+ * <p>
+ * Un archivo más corto que la ventana no tiene punto de control: la huella de su comienzo cambiaría al
+ * crecer, así que no lo identifica, y se importa siempre completo (los duplicados se descartan).
+ */
+@Component
+public class PuntosControlImportacion {
+
+    private static final int VENTANA = 4096;
+
+    /**
+     * Desde dónde importar un archivo.
+     *
+     * @param huellaPrefijo Identidad del archivo, o null si es demasiado corto para tener punto de control
+     * @param desde         Byte desde el que hay que importar (0 si es un archivo nuevo o distinto)
+     * @param sinCambios    Si el archivo es idéntico al ya importado
+     */
+    public record Reanudacion(String huellaPrefijo, long desde, boolean sinCambios) {
+    }
+
+    private final PuntoControlImportacionRepository repository;
+
+    public PuntosControlImportacion(PuntoControlImportacionRepository repository) {
+        this.repository = repository;
+    }
+
+    public Reanudacion evaluar(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano < VENTANA) {
+                return new Reanudacion(null, 0, false);
+            }
+            String huellaPrefijo = huella(canal, 0, VENTANA);
+            Optional<PuntoControlImportacion> punto = repository.findByHuellaPrefijo(huellaPrefijo);
+            if (punto.isEmpty() || tamano < punto.get().getTamano()) {
+                return new Reanudacion(huellaPrefijo, 0, false);
+            }
+
+            PuntoControlImportacion anterior = punto.get();
+            long desplazamiento = anterior.getDesplazamiento();
+            String cola = huella(canal, Math.max(0, desplazamiento - VENTANA), desplazamiento);
+            if (!cola.equals(anterior.getHuellaCola())) {
+                // Mismo comienzo pero contenido distinto: se importa completo y los duplicados se descartan
+                return new Reanudacion(huellaPrefijo, 0, false);
+            }
+            return new Reanudacion(huellaPrefijo, desplazamiento, tamano == anterior.getTamano());
+        }
+    }
+
+    /**
+     * Guarda el punto de control tras una importación exitosa. El desplazamiento queda en el último
+     * salto de línea: una última línea sin terminar se vuelve a leer la próxima vez.
+     */
+    public void registrar(Path archivo, String huellaPrefijo, String nombreArchivo, LocalDateTime ultimaMarca) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            long desplazamiento = finUltimaLinea(canal, tamano);
+
+            repository.guardar(huellaPrefijo, nombreArchivo, desplazamiento,
+                    huella(canal, Math.max(0, desplazamiento - VENTANA), desplazamiento), tamano, ultimaMarca);
+        }
+    }
+
+    private static long finUltimaLinea(FileChannel canal, long tamano) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(VENTANA);
+        long fin = tamano;
+        while (fin > 0) {
+            long inicio = Math.max(0, fin - VENTANA);
+            buffer.clear().limit((int) (fin - inicio));
+            leerCompleto(canal, buffer, inicio);
+            for (int i = buffer.limit() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return inicio + i + 1;
+                }
+            }
+            fin = inicio;
+        }
+        return 0;
+    }
+
+    private static String huella(FileChannel canal, long desde, long hasta) throws IOException {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) (hasta - desde));
+        leerCompleto(canal, buffer, desde);
+        buffer.flip();
+        sha.update(buffer);
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    private static void leerCompleto(FileChannel canal, ByteBuffer buffer, long posicion) throws IOException {
+        while (buffer.hasRemaining()) {
+            int leidos = canal.read(buffer, posicion);
+            if (leidos < 0) {
+                throw new IOException("El archivo se acortó mientras se leía");
+            }
+            posicion += leidos;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.relojcontrol.reloj_control.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa las llamadas concurrentes con la misma clave: la primera calcula el resultado en su propio hilo
+ * y las que llegan mientras tanto esperan ese mismo resultado (o la misma excepción) en vez de repetir
+ * el cálculo. Terminado el cálculo la clave se libera; no guarda resultados.
+ */
+public class ConsultaUnica<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> enCurso = new ConcurrentHashMap<>();
+    private final LongAdder compartidas = new LongAdder();
+
+    public V obtener(K clave, Supplier<V> calcular) {
+        CompletableFuture<V> propia = new CompletableFuture<>();
+        CompletableFuture<V> existente = enCurso.putIfAbsent(clave, propia);
+        if (existente != null) {
+            compartidas.increment();
+            return esperar(existente);
+        }
+        try {
+            V resultado = calcular.get();
+            propia.complete(resultado);
+            return resultado;
+        } catch (RuntimeException | Error e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, propia);
+        }
+    }
+
+    /**
+     * Llamadas que recibieron el resultado de otra en vez de calcularlo.
+     */
+    public long compartidas() {
+        return compartidas.sum();
+    }
+
+    private static <V> V esperar(CompletableFuture<V> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.relojcontrol.reloj_control.util;
+
+/**
+ * Filtro de Bloom para claves long. Responde "seguro que no está" o "podría estar";
+ * los posibles aciertos deben confirmarse contra la fuente real (por ejemplo, la base de datos).
+ */
+public class FiltroBloom {
+
+    private final long[] bits;
+    private final long cantidadBits;
+    private final int cantidadHashes;
+
+    /**
+     * @param elementosEsperados        Cantidad de claves que se espera agregar
+     * @param probabilidadFalsoPositivo Tasa de falsos positivos aceptada (por ejemplo 0.01)
+     */
+    public FiltroBloom(long elementosEsperados, double probabilidadFalsoPositivo) {
+        long n = Math.max(1, elementosEsperados);
+        long m = (long) Math.ceil(-n * Math.log(probabilidadFalsoPositivo) / (Math.log(2) * Math.log(2)));
+        this.cantidadBits = Math.max(64, (m + 63) / 64 * 64);
+        this.bits = new long[(int) (cantidadBits / 64)];
+        this.cantidadHashes = Math.max(1, (int) Math.round((double) cantidadBits / n * Math.log(2)));
+    }
+
+    public void agregar(long clave) {
+        long h1 = mezclar(clave);
+        long h2 = mezclar(h1) | 1;
+        for (int i = 0; i < cantidadHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, cantidadBits);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    public boolean podriaContener(long clave) {
+        long h1 = mezclar(clave);
+        long h2 = mezclar(h1) | 1;
+        for (int i = 0; i < cantidadHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, cantidadBits);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long mezclar(long valor) {
+        long h = valor;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
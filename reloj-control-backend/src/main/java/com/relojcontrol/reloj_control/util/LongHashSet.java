@@ -0,0 +1,108 @@
+package com.relojcontrol.reloj_control.util;
+
+/**
+ * Conjunto de valores long con direccionamiento abierto (sondeo lineal), sin objetos por elemento.
+ * Pensado para índices grandes en memoria durante las importaciones, donde un {@code HashSet<Long>}
+ * ocupa varias veces más memoria.
+ */
+public class LongHashSet {
+
+    private static final float FACTOR_CARGA = 0.6f;
+    private static final long VACIO = 0L;
+
+    private long[] tabla;
+    private int tamano;
+    private int umbral;
+    // El 0 se usa como marca de celda vacía, así que su presencia se guarda aparte
+    private boolean contieneCero;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int capacidadEsperada) {
+        int capacidad = Integer.highestOneBit(Math.max(4, (int) (capacidadEsperada / FACTOR_CARGA)) - 1) << 1;
+        this.tabla = new long[capacidad];
+        this.umbral = (int) (capacidad * FACTOR_CARGA);
+    }
+
+    /**
+     * Agrega un valor.
+     *
+     * @return true si el valor no estaba en el conjunto
+     */
+    public boolean add(long valor) {
+        if (valor == VACIO) {
+            if (contieneCero) return false;
+            contieneCero = true;
+            tamano++;
+            return true;
+        }
+        int mascara = tabla.length - 1;
+        int i = mezclar(valor) & mascara;
+        while (tabla[i] != VACIO) {
+            if (tabla[i] == valor) return false;
+            i = (i + 1) & mascara;
+        }
+        tabla[i] = valor;
+        if (++tamano > umbral) {
+            redimensionar();
+        }
+        return true;
+    }
+
+    public boolean contains(long valor) {
+        if (valor == VACIO) {
+            return contieneCero;
+        }
+        int mascara = tabla.length - 1;
+        int i = mezclar(valor) & mascara;
+        while (tabla[i] != VACIO) {
+            if (tabla[i] == valor) return true;
+            i = (i + 1) & mascara;
+        }
+        return false;
+    }
+
+    public int size() {
+        return tamano;
+    }
+
+    public boolean isEmpty() {
+        return tamano == 0;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(tabla, VACIO);
+        contieneCero = false;
+        tamano = 0;
+    }
+
+    private void redimensionar() {
+        long[] anterior = tabla;
+        tabla = new long[anterior.length << 1];
+        umbral = (int) (tabla.length * FACTOR_CARGA);
+        int mascara = tabla.length - 1;
+        for (long valor : anterior) {
+            if (valor == VACIO) continue;
+            int i = mezclar(valor) & mascara;
+            while (tabla[i] != VACIO) {
+                i = (i + 1) & mascara;
+            }
+            tabla[i] = valor;
+        }
+    }
+
+    /**
+     * Finalizador de MurmurHash3: reparte bien claves que solo difieren en los bits bajos o altos.
+     */
+    static int mezclar(long valor) {
+        long h = valor;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,117 @@
+-- Tablas y restricciones que se agregaron después del esquema inicial (importaciones en segundo plano,
+-- puntos de control, resumen diario y horarios). A diferencia de V1, este script también se ejecuta en
+-- las bases existentes. Usa IF NOT EXISTS porque una base que ya corrió esas versiones con
+-- ddl-auto=update puede tener las tablas.
+
+CREATE SEQUENCE IF NOT EXISTS horario_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS importacion_job_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS importacion_punto_control_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS resumen_diario_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS importacion_job (
+    id_job                 bigint           NOT NULL,
+    nombre_archivo         varchar(255),
+    run_usuario            varchar(20),
+    estado                 varchar(20)      NOT NULL,
+    modo                   varchar(10),
+    huella_archivo         varchar(64),
+    desplazamiento_inicial bigint           NOT NULL,
+    lineas_leidas          bigint           NOT NULL,
+    marcas_insertadas      bigint           NOT NULL,
+    duplicadas             bigint           NOT NULL,
+    errores                bigint           NOT NULL,
+    empleados_creados      bigint           NOT NULL,
+    filas_por_segundo      double precision NOT NULL,
+    mensaje_error          varchar(1000),
+    fecha_creacion         timestamp(6)     NOT NULL,
+    fecha_inicio           timestamp(6),
+    fecha_termino          timestamp(6),
+    CONSTRAINT importacion_job_pkey PRIMARY KEY (id_job)
+);
+
+CREATE TABLE IF NOT EXISTS importacion_punto_control (
+    id_punto_control   bigint       NOT NULL,
+    huella_prefijo     varchar(64)  NOT NULL,
+    nombre_archivo     varchar(255),
+    desplazamiento     bigint       NOT NULL,
+    huella_cola        varchar(64)  NOT NULL,
+    tamano             bigint       NOT NULL,
+    ultima_marca       timestamp(6),
+    fecha_actualizacion timestamp(6) NOT NULL,
+    CONSTRAINT importacion_punto_control_pkey PRIMARY KEY (id_punto_control),
+    CONSTRAINT uk_importacion_punto_control_huella UNIQUE (huella_prefijo)
+);
+
+CREATE TABLE IF NOT EXISTS resumen_diario (
+    id_resumen        bigint        NOT NULL,
+    empleado_id       bigint        NOT NULL,
+    fecha             date          NOT NULL,
+    id_asistencia     bigint,
+    estado            varchar(255),
+    entrada           time(6),
+    salida            time(6),
+    salida_esperada   time(6),
+    minutos_extra_25  integer       NOT NULL,
+    minutos_extra_50  integer       NOT NULL,
+    es_dia_especial   boolean       NOT NULL,
+    observaciones     varchar(1000),
+    CONSTRAINT resumen_diario_pkey PRIMARY KEY (id_resumen),
+    CONSTRAINT uk_resumen_diario_empleado_fecha UNIQUE (empleado_id, fecha),
+    CONSTRAINT fk_resumen_diario_empleado FOREIGN KEY (empleado_id) REFERENCES empleado (id_empleado)
+);
+
+CREATE INDEX IF NOT EXISTS idx_resumen_diario_fecha ON resumen_diario (fecha);
+
+CREATE TABLE IF NOT EXISTS horario (
+    id_horario            bigint       NOT NULL,
+    nombre                varchar(255) NOT NULL,
+    inicio_ciclo          date         NOT NULL,
+    inicio_tramo_nocturno time(6)      NOT NULL,
+    fin_tramo_nocturno    time(6)      NOT NULL,
+    CONSTRAINT horario_pkey PRIMARY KEY (id_horario),
+    CONSTRAINT uk_horario_nombre UNIQUE (nombre)
+);
+
+CREATE TABLE IF NOT EXISTS horario_dia (
+    id_horario      bigint  NOT NULL,
+    dia_ciclo       integer NOT NULL,
+    hora_inicio     time(6),
+    minutos_jornada integer NOT NULL,
+    CONSTRAINT horario_dia_pkey PRIMARY KEY (id_horario, dia_ciclo),
+    CONSTRAINT fk_horario_dia_horario FOREIGN KEY (id_horario) REFERENCES horario (id_horario)
+);
+
+CREATE TABLE IF NOT EXISTS horario_unidad (
+    id_horario bigint       NOT NULL,
+    unidad     varchar(255) NOT NULL,
+    CONSTRAINT horario_unidad_pkey PRIMARY KEY (id_horario, unidad),
+    CONSTRAINT uk_horario_unidad UNIQUE (unidad),
+    CONSTRAINT fk_horario_unidad_horario FOREIGN KEY (id_horario) REFERENCES horario (id_horario)
+);
+
+CREATE TABLE IF NOT EXISTS horario_empleado (
+    id_horario  bigint NOT NULL,
+    id_empleado bigint NOT NULL,
+    CONSTRAINT horario_empleado_pkey PRIMARY KEY (id_horario, id_empleado),
+    CONSTRAINT uk_horario_empleado UNIQUE (id_empleado),
+    CONSTRAINT fk_horario_empleado_horario FOREIGN KEY (id_horario) REFERENCES horario (id_horario)
+);
+
+-- Una marca por empleado, instante y tipo. Las bases anteriores pueden tener marcas repetidas de cargas
+-- sucesivas del mismo archivo: de cada grupo se conserva la oficial o, si no hay, la de menor id.
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                    WHERE conrelid = CAST('asistencias' AS regclass)
+                      AND conname = 'uk_asistencias_empleado_fecha_tipo') THEN
+        DELETE FROM asistencias a
+         USING (SELECT id, row_number() OVER (PARTITION BY empleado_id, fecha_hora, tipo
+                                              ORDER BY es_oficial IS TRUE DESC, id) AS orden
+                  FROM asistencias) repetidas
+         WHERE a.id = repetidas.id
+           AND repetidas.orden > 1;
+        ALTER TABLE asistencias
+            ADD CONSTRAINT uk_asistencias_empleado_fecha_tipo UNIQUE (empleado_id, fecha_hora, tipo);
+    END IF;
+END
+$$;
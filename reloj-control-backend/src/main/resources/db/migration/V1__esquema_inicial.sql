@@ -0,0 +1,107 @@
+-- Esquema que creaba Hibernate con ddl-auto=update antes de versionar la base con Flyway. En una base
+-- existente Flyway no ejecuta este script (baseline-on-migrate la marca en la versión 1) y aplica desde
+-- V1_1; en una base nueva crea las mismas tablas. Por eso este script no debe cambiar: lo que se agregue
+-- al esquema va en una migración nueva.
+-- Los identificadores usan las secuencias <tabla>_seq de Hibernate, de a 50.
+
+CREATE SEQUENCE IF NOT EXISTS usuario_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS empleado_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS asistencias_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS feriados_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS justificacion_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS parametros_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS parametro_sistema_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS registro_actividad_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS tipo_permiso_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS usuario (
+    id_usuario      integer      NOT NULL,
+    run             varchar(255) NOT NULL,
+    contrasena_hash varchar(255) NOT NULL,
+    rol             varchar(255) NOT NULL,
+    estado_cuenta   varchar(255) NOT NULL,
+    CONSTRAINT usuario_pkey PRIMARY KEY (id_usuario),
+    CONSTRAINT uk_usuario_run UNIQUE (run)
+);
+
+CREATE TABLE IF NOT EXISTS empleado (
+    id_empleado     bigint       NOT NULL,
+    nombre_completo varchar(255),
+    rut             varchar(255) NOT NULL,
+    unidad          varchar(255),
+    cargo           varchar(255),
+    id_usuario      integer      NOT NULL,
+    CONSTRAINT empleado_pkey PRIMARY KEY (id_empleado),
+    CONSTRAINT uk_empleado_rut UNIQUE (rut),
+    CONSTRAINT uk_empleado_usuario UNIQUE (id_usuario),
+    CONSTRAINT fk_empleado_usuario FOREIGN KEY (id_usuario) REFERENCES usuario (id_usuario)
+);
+
+CREATE TABLE IF NOT EXISTS asistencias (
+    id          bigint       NOT NULL,
+    empleado_id bigint       NOT NULL,
+    fecha_hora  timestamp(6) NOT NULL,
+    tipo        varchar(255) NOT NULL,
+    estado      varchar(255),
+    es_oficial  boolean,
+    observaciones varchar(255),
+    CONSTRAINT asistencias_pkey PRIMARY KEY (id),
+    CONSTRAINT fk_asistencias_empleado FOREIGN KEY (empleado_id) REFERENCES empleado (id_empleado)
+);
+
+CREATE TABLE IF NOT EXISTS feriados (
+    id          bigint       NOT NULL,
+    fecha       date         NOT NULL,
+    descripcion varchar(100),
+    activo      boolean      NOT NULL,
+    CONSTRAINT feriados_pkey PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS tipo_permiso (
+    id_permiso        integer      NOT NULL,
+    descripcion       varchar(255) NOT NULL,
+    requiere_adjuntos boolean      NOT NULL,
+    CONSTRAINT tipo_permiso_pkey PRIMARY KEY (id_permiso)
+);
+
+CREATE TABLE IF NOT EXISTS justificacion (
+    id_justificacion bigint       NOT NULL,
+    id_empleado      bigint       NOT NULL,
+    tipo_permiso     integer      NOT NULL,
+    fecha_inicio     date         NOT NULL,
+    fecha_termino    date         NOT NULL,
+    motivo           text,
+    archivo_adjunto  bytea,
+    estado           varchar(255) NOT NULL,
+    CONSTRAINT justificacion_pkey PRIMARY KEY (id_justificacion),
+    CONSTRAINT fk_justificacion_empleado FOREIGN KEY (id_empleado) REFERENCES empleado (id_empleado),
+    CONSTRAINT fk_justificacion_tipo_permiso FOREIGN KEY (tipo_permiso) REFERENCES tipo_permiso (id_permiso)
+);
+
+CREATE TABLE IF NOT EXISTS parametros (
+    id          bigint       NOT NULL,
+    clave       varchar(255) NOT NULL,
+    valor       varchar(255) NOT NULL,
+    descripcion varchar(200),
+    CONSTRAINT parametros_pkey PRIMARY KEY (id),
+    CONSTRAINT uk_parametros_clave UNIQUE (clave)
+);
+
+CREATE TABLE IF NOT EXISTS parametro_sistema (
+    id_parametro bigint       NOT NULL,
+    clave        varchar(255) NOT NULL,
+    valor        varchar(255) NOT NULL,
+    descripcion  varchar(255),
+    CONSTRAINT parametro_sistema_pkey PRIMARY KEY (id_parametro),
+    CONSTRAINT uk_parametro_sistema_clave UNIQUE (clave)
+);
+
+CREATE TABLE IF NOT EXISTS registro_actividad (
+    id_log     bigint       NOT NULL,
+    id_usuario integer      NOT NULL,
+    accion     varchar(100) NOT NULL,
+    fecha_hora timestamp(6) NOT NULL,
+    modulo     varchar(100) NOT NULL,
+    ip_origen  varchar(45)  NOT NULL,
+    CONSTRAINT registro_actividad_pkey PRIMARY KEY (id_log)
+);
@@ -0,0 +1,19 @@
+-- Índices para las consultas de marcas por rango de fecha_hora. Se crean CONCURRENTLY para no bloquear
+-- las escrituras en una tabla grande; por eso Flyway ejecuta este script fuera de una transacción y no
+-- debe mezclarse con otras sentencias.
+-- Las consultas por empleado y rango ya usan el índice de uk_asistencias_empleado_fecha_tipo, que empieza
+-- por (empleado_id, fecha_hora).
+
+-- Rangos de todos los empleados: recálculo de resúmenes y atrasos sin filtro de empleado
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_asistencias_fecha_hora
+    ON asistencias (fecha_hora);
+
+-- Marca oficial de un empleado, día y tipo (al registrar una marca o justificar un día)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_asistencias_oficiales
+    ON asistencias (empleado_id, tipo, fecha_hora)
+    WHERE es_oficial;
+
+-- Entradas oficiales después de una hora del día (/api/asistencias/resumen/atrasos)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_asistencias_hora_entrada_oficial
+    ON asistencias ((CAST(fecha_hora AS time)), fecha_hora)
+    WHERE es_oficial AND tipo = 'ENTRADA';
@@ -0,0 +1,13 @@
+-- Antes de exigir una sola marca oficial por empleado, día y tipo, deja oficial solo la registrada al
+-- último (la de mayor id) en los días que tengan varias, igual que cuando una marca oficial nueva
+-- reemplaza a la anterior.
+UPDATE asistencias a
+   SET es_oficial = FALSE
+  FROM (
+        SELECT id,
+               ROW_NUMBER() OVER (PARTITION BY empleado_id, CAST(fecha_hora AS date), tipo ORDER BY id DESC) AS orden
+          FROM asistencias
+         WHERE es_oficial
+       ) oficiales
+ WHERE a.id = oficiales.id
+   AND oficiales.orden > 1;
@@ -0,0 +1,6 @@
+-- A lo más una marca oficial por empleado, día y tipo. Se crea CONCURRENTLY (fuera de una transacción,
+-- sin bloquear escrituras) y sin IF NOT EXISTS: si falla deja un índice inválido con ese nombre, que hay
+-- que eliminar antes de reintentar en lugar de darlo por creado.
+CREATE UNIQUE INDEX CONCURRENTLY uk_asistencias_oficial_dia
+    ON asistencias (empleado_id, (CAST(fecha_hora AS date)), tipo)
+    WHERE es_oficial;
@@ -0,0 +1,82 @@
+-- Particiona asistencias por mes de fecha_hora (requiere PostgreSQL 14 o superior, por DETACH ... CONCURRENTLY).
+-- Una tabla existente no se puede convertir en particionada: se crea la nueva, se copian las marcas y se
+-- elimina la anterior, todo en la transacción de la migración.
+-- Las restricciones únicas de una tabla particionada deben incluir fecha_hora, por eso la clave primaria
+-- pasa a ser (id, fecha_hora); los id siguen saliendo de asistencias_seq y no se repiten.
+
+ALTER TABLE asistencias RENAME TO asistencias_anterior;
+-- Los nombres de índices son únicos en el esquema; se liberan para la tabla nueva
+ALTER INDEX IF EXISTS asistencias_pkey RENAME TO asistencias_anterior_pkey;
+ALTER INDEX IF EXISTS uk_asistencias_empleado_fecha_tipo RENAME TO uk_asistencias_anterior_empleado_fecha_tipo;
+DROP INDEX IF EXISTS idx_asistencias_fecha_hora;
+DROP INDEX IF EXISTS idx_asistencias_oficiales;
+DROP INDEX IF EXISTS idx_asistencias_hora_entrada_oficial;
+DROP INDEX IF EXISTS uk_asistencias_oficial_dia;
+
+CREATE TABLE asistencias (
+    id          bigint       NOT NULL,
+    empleado_id bigint       NOT NULL,
+    fecha_hora  timestamp(6) NOT NULL,
+    tipo        varchar(255) NOT NULL,
+    estado      varchar(255),
+    es_oficial  boolean,
+    observaciones varchar(255),
+    CONSTRAINT asistencias_pkey PRIMARY KEY (id, fecha_hora),
+    CONSTRAINT uk_asistencias_empleado_fecha_tipo UNIQUE (empleado_id, fecha_hora, tipo),
+    CONSTRAINT fk_asistencias_empleado FOREIGN KEY (empleado_id) REFERENCES empleado (id_empleado)
+) PARTITION BY RANGE (fecha_hora);
+
+-- Los índices de V2 se definen en la tabla particionada y PostgreSQL los crea en cada partición
+CREATE INDEX idx_asistencias_fecha_hora
+    ON asistencias (fecha_hora);
+CREATE INDEX idx_asistencias_oficiales
+    ON asistencias (empleado_id, tipo, fecha_hora)
+    WHERE es_oficial;
+CREATE INDEX idx_asistencias_hora_entrada_oficial
+    ON asistencias ((CAST(fecha_hora AS time)), fecha_hora)
+    WHERE es_oficial AND tipo = 'ENTRADA';
+
+-- Crea la partición del mes que contiene la fecha indicada, si no existe. La usan esta migración y la
+-- tarea programada que crea los meses siguientes (ParticionAsistenciaService).
+-- La tabla se crea suelta y luego se conecta con ATTACH, que sobre asistencias solo toma un bloqueo
+-- SHARE UPDATE EXCLUSIVE; CREATE TABLE ... PARTITION OF la bloquearía por completo.
+-- El índice único de V4 (una oficial por empleado, día y tipo) usa una expresión, que PostgreSQL no
+-- admite en un índice único de la tabla particionada; se crea en cada partición, lo que basta porque un
+-- día nunca queda repartido entre dos meses.
+CREATE OR REPLACE FUNCTION crear_particion_asistencias(mes date) RETURNS boolean
+LANGUAGE plpgsql AS $$
+DECLARE
+    desde  date := CAST(date_trunc('month', mes) AS date);
+    hasta  date := CAST(date_trunc('month', mes) + interval '1 month' AS date);
+    nombre text := 'asistencias_' || to_char(mes, 'YYYY_MM');
+BEGIN
+    -- Dos llamadas simultáneas para el mismo mes no deben chocar al crear la tabla
+    PERFORM pg_advisory_xact_lock(hashtext('crear_particion_asistencias'));
+    IF to_regclass(nombre) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE asistencias INCLUDING DEFAULTS)', nombre);
+    EXECUTE format('CREATE UNIQUE INDEX %I ON %I (empleado_id, (CAST(fecha_hora AS date)), tipo) WHERE es_oficial',
+                   nombre || '_oficial_dia', nombre);
+    EXECUTE format('ALTER TABLE asistencias ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', nombre, desde, hasta);
+    RETURN TRUE;
+END
+$$;
+
+-- Un mes por cada mes con marcas, y el actual con los tres siguientes; solo los meses presentes, para
+-- que una marca suelta con la fecha mal puesta no cree las particiones de todos los meses intermedios
+SELECT crear_particion_asistencias(CAST(mes AS date))
+  FROM (SELECT DISTINCT date_trunc('month', fecha_hora) AS mes FROM asistencias_anterior
+        UNION
+        SELECT mes FROM generate_series(date_trunc('month', LOCALTIMESTAMP),
+                                        date_trunc('month', LOCALTIMESTAMP) + interval '3 months',
+                                        interval '1 month') AS mes) AS meses
+ ORDER BY mes;
+
+INSERT INTO asistencias (id, empleado_id, fecha_hora, tipo, estado, es_oficial, observaciones)
+SELECT id, empleado_id, fecha_hora, tipo, estado, es_oficial, observaciones
+  FROM asistencias_anterior;
+
+DROP TABLE asistencias_anterior;
+
+ANALYZE asistencias;
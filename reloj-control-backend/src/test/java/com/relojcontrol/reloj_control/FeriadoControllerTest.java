@@ -33,7 +33,7 @@ class FeriadoControllerTest {
         @Bean
         public FeriadoService feriadoService() {
             FeriadoRepository feriadoRepository = null;
-            return new FeriadoService(feriadoRepository) {
+            return new FeriadoService(feriadoRepository, evento -> { }) {
                 @Override
                 public List<Feriado> listarTodos() {
                     return List.of(new Feriado(1L, LocalDate.of(2025, 5, 21), "Día de las Glorias Navales", true));
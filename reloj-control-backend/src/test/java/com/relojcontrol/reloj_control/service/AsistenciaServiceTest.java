@@ -0,0 +1,188 @@
+package com.relojcontrol.reloj_control.service;
+
+import com.relojcontrol.reloj_control.dto.MarcaResumenDTO;
+import com.relojcontrol.reloj_control.model.Horario;
+import com.relojcontrol.reloj_control.model.ParametroSistema;
+import com.relojcontrol.reloj_control.model.ResumenDiario;
+import com.relojcontrol.reloj_control.model.TurnoDia;
+import com.relojcontrol.reloj_control.repository.AsistenciaBatchRepository;
+import com.relojcontrol.reloj_control.repository.AsistenciaRepository;
+import com.relojcontrol.reloj_control.repository.EmpleadoRepository;
+import com.relojcontrol.reloj_control.repository.ResumenDiarioRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Emparejamiento de marcas y días laborables en el cálculo del resumen diario, sobre el flujo de marcas y sin
+ * base de datos.
+ */
+class AsistenciaServiceTest {
+
+    private ForkJoinPool pool;
+    private AsistenciaService servicio;
+    private HorariosVigentes horarios = HorariosVigentes.VACIO;
+    private FeriadoService feriadoSvc;
+    private long siguienteId;
+
+    @BeforeEach
+    void crearServicio() {
+        ParametroSistemaService paramSvc = mock(ParametroSistemaService.class);
+        when(paramSvc.vigentes()).thenReturn(new ParametrosVigentes(List.of(
+                parametro("horas_semanales", "45"), parametro("minutos_tolerancia", "0"))));
+        IHorarioService horarioSvc = mock(IHorarioService.class);
+        when(horarioSvc.vigentes()).thenAnswer(invocacion -> horarios);
+
+        feriadoSvc = mock(FeriadoService.class);
+
+        pool = new ForkJoinPool(1);
+        servicio = new AsistenciaService(mock(AsistenciaRepository.class), mock(AsistenciaBatchRepository.class),
+                mock(IParticionAsistenciaService.class), paramSvc, horarioSvc, feriadoSvc,
+                mock(EmpleadoRepository.class), mock(ResumenDiarioRepository.class), new ResumenCache(0),
+                mock(ApplicationEventPublisher.class), mock(EntityManager.class), pool, 256);
+    }
+
+    @AfterEach
+    void cerrarPool() {
+        pool.shutdown();
+    }
+
+    private static ParametroSistema parametro(String clave, String valor) {
+        ParametroSistema parametro = new ParametroSistema();
+        parametro.setClave(clave);
+        parametro.setValor(valor);
+        return parametro;
+    }
+
+    // Marca como la deja la importación: oficial la primera de cada tipo en el día
+    private MarcaResumenDTO marca(String fechaHora, String tipo, boolean esOficial) {
+        return new MarcaResumenDTO(++siguienteId, 1L, LocalDateTime.parse(fechaHora), tipo, "AUTORIZADO", esOficial, null);
+    }
+
+    private List<ResumenDiario> resumir(MarcaResumenDTO... marcas) {
+        List<ResumenDiario> resumenes = new ArrayList<>();
+        servicio.recorrerResumenes(Stream.of(marcas), resumenes::add);
+        return resumenes;
+    }
+
+    private static void verificar(ResumenDiario resumen, String fecha, String entrada, String salida) {
+        assertEquals(LocalDate.parse(fecha), resumen.getFecha(), "fecha");
+        assertEquals(entrada == null ? null : LocalTime.parse(entrada), resumen.getEntrada(), "entrada de " + fecha);
+        assertEquals(salida == null ? null : LocalTime.parse(salida), resumen.getSalida(), "salida de " + fecha);
+    }
+
+    @Test
+    @DisplayName("Turnos nocturnos importados: la salida guardada como ENTRADA del día siguiente cierra el turno")
+    void turnosNocturnosImportados() {
+        List<ResumenDiario> resumenes = resumir(
+                marca("2024-03-04T20:00", "ENTRADA", true),
+                marca("2024-03-05T04:00", "ENTRADA", true),
+                marca("2024-03-05T20:00", "SALIDA", true),
+                marca("2024-03-06T04:00", "ENTRADA", true));
+
+        assertEquals(2, resumenes.size());
+        verificar(resumenes.get(0), "2024-03-04", "20:00", "04:00");
+        verificar(resumenes.get(1), "2024-03-05", "20:00", "04:00");
+    }
+
+    @Test
+    @DisplayName("Un turno nocturno guardado con sus tipos correctos se empareja igual")
+    void turnoNocturnoConTipos() {
+        List<ResumenDiario> resumenes = resumir(
+                marca("2024-03-04T22:00", "ENTRADA", true),
+                marca("2024-03-05T06:00", "SALIDA", true),
+                marca("2024-03-05T22:00", "ENTRADA", true));
+
+        assertEquals(2, resumenes.size());
+        verificar(resumenes.get(0), "2024-03-04", "22:00", "06:00");
+        verificar(resumenes.get(1), "2024-03-05", "22:00", null);
+    }
+
+    @Test
+    @DisplayName("Una salida olvidada no se empareja con la entrada del día siguiente")
+    void salidaOlvidada() {
+        List<ResumenDiario> resumenes = resumir(
+                marca("2024-03-04T08:00", "ENTRADA", true),
+                marca("2024-03-05T08:00", "ENTRADA", true),
+                marca("2024-03-05T17:00", "SALIDA", true));
+
+        assertEquals(2, resumenes.size());
+        verificar(resumenes.get(0), "2024-03-04", "08:00", null);
+        verificar(resumenes.get(1), "2024-03-05", "08:00", "17:00");
+    }
+
+    @Test
+    @DisplayName("Los turnos diurnos no se enlazan entre días")
+    void turnosDiurnos() {
+        List<ResumenDiario> resumenes = resumir(
+                marca("2024-03-04T08:00", "ENTRADA", true),
+                marca("2024-03-04T17:00", "SALIDA", true),
+                marca("2024-03-05T08:10", "ENTRADA", true),
+                marca("2024-03-05T17:30", "SALIDA", true));
+
+        assertEquals(2, resumenes.size());
+        verificar(resumenes.get(0), "2024-03-04", "08:00", "17:00");
+        verificar(resumenes.get(1), "2024-03-05", "08:10", "17:30");
+        assertFalse(resumenes.get(0).getObservaciones().contains("Turno nocturno"));
+    }
+
+    @Test
+    @DisplayName("Sin horario asignado el sábado es día no laborable; con un horario que lo trabaja, es laboral")
+    void sabadoSegunHorario() {
+        ResumenDiario predeterminado = resumir(
+                marca("2024-03-09T08:00", "ENTRADA", true),
+                marca("2024-03-09T18:00", "SALIDA", true)).get(0);
+        assertTrue(predeterminado.isEsDiaEspecial());
+
+        Horario todosLosDias = new Horario();
+        todosLosDias.setNombre("Todos los días");
+        todosLosDias.setInicioCiclo(LocalDate.of(2024, 1, 1));
+        todosLosDias.getDias().add(new TurnoDia(LocalTime.of(8, 0), 8 * 60));
+        todosLosDias.setInicioTramoNocturno(LocalTime.of(21, 0));
+        todosLosDias.setFinTramoNocturno(LocalTime.of(6, 0));
+        horarios = new HorariosVigentes(new HorarioCompilado[]{null, HorarioCompilado.de(todosLosDias)});
+
+        ResumenDiario conHorario = resumir(
+                marca("2024-03-09T08:00", "ENTRADA", true),
+                marca("2024-03-09T18:00", "SALIDA", true)).get(0);
+        assertFalse(conHorario.isEsDiaEspecial());
+        assertEquals(LocalTime.of(16, 0), conHorario.getSalidaEsperada());
+        assertEquals(120, conHorario.getMinutosExtra25());
+    }
+
+    @Test
+    @DisplayName("Un día que falla al calcularse se informa y no detiene a los demás")
+    void diaConError() {
+        when(feriadoSvc.esFeriado(LocalDate.of(2024, 3, 5))).thenThrow(new IllegalStateException("prueba"));
+        List<ResumenDiario> resumenes = new ArrayList<>();
+        List<LocalDate> fallidos = new ArrayList<>();
+        servicio.recorrerResumenes(Stream.of(
+                marca("2024-03-04T08:00", "ENTRADA", true),
+                marca("2024-03-04T17:00", "SALIDA", true),
+                marca("2024-03-05T08:00", "ENTRADA", true),
+                marca("2024-03-05T17:00", "SALIDA", true),
+                marca("2024-03-06T08:00", "ENTRADA", true)), resumenes::add, fallidos::add);
+
+        assertEquals(List.of(LocalDate.of(2024, 3, 5)), fallidos);
+        assertEquals(2, resumenes.size());
+        verificar(resumenes.get(0), "2024-03-04", "08:00", "17:00");
+        verificar(resumenes.get(1), "2024-03-06", "08:00", null);
+    }
+}
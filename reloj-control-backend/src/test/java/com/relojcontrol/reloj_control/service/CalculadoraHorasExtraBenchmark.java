@@ -0,0 +1,106 @@
+package com.relojcontrol.reloj_control.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la calculadora sobre minutos con el cálculo anterior (LocalTime + Duration.between dentro del día)
+ * sobre turnos sintéticos de un año, diurnos y nocturnos.
+ * <p>
+ * Ejecutar con: {@code mvn -P benchmark test-compile exec:exec
+ * -Dbenchmark=com.relojcontrol.reloj_control.service.CalculadoraHorasExtraBenchmark}
+ * o desde el IDE con el main de esta clase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalculadoraHorasExtraBenchmark {
+
+    private static final LocalTime INICIO_HORARIO_50 = LocalTime.of(21, 0);
+    private static final LocalTime FIN_HORARIO_50 = LocalTime.of(6, 0);
+
+    @Param({"100000"})
+    public int turnos;
+
+    private long[] entradas;
+    private long[] salidas;
+    private long[] esperadas;
+    private LocalDateTime[] entradasFecha;
+    private LocalDateTime[] salidasFecha;
+    private LocalDateTime[] esperadasFecha;
+
+    private final CalculadoraHorasExtra.Calendario calendario = dia -> esFinDeSemana(LocalDate.ofEpochDay(dia));
+
+    @Setup
+    public void generar() {
+        Random random = new Random(42);
+        entradas = new long[turnos];
+        salidas = new long[turnos];
+        esperadas = new long[turnos];
+        entradasFecha = new LocalDateTime[turnos];
+        salidasFecha = new LocalDateTime[turnos];
+        esperadasFecha = new LocalDateTime[turnos];
+        LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < turnos; i++) {
+            // Un cuarto de los turnos empieza de noche
+            int horaEntrada = random.nextInt(4) == 0 ? 19 + random.nextInt(3) : 7 + random.nextInt(3);
+            LocalDateTime entrada = inicio.plusDays(random.nextInt(365)).plusHours(horaEntrada).plusMinutes(random.nextInt(60));
+            LocalDateTime salida = entrada.plusMinutes(8 * 60 + random.nextInt(5 * 60));
+            LocalDateTime esperada = entrada.plusMinutes(9 * 60);
+            entradasFecha[i] = entrada;
+            salidasFecha[i] = salida;
+            esperadasFecha[i] = esperada;
+            entradas[i] = CalculadoraHorasExtra.minuto(entrada);
+            salidas[i] = CalculadoraHorasExtra.minuto(salida);
+            esperadas[i] = CalculadoraHorasExtra.minuto(esperada);
+        }
+    }
+
+    @Benchmark
+    public void calculadoraMinutos(Blackhole bh) {
+        for (int i = 0; i < turnos; i++) {
+            bh.consume(CalculadoraHorasExtra.calcular(entradas[i], salidas[i], esperadas[i], calendario));
+        }
+    }
+
+    @Benchmark
+    public void localTimeDuration(Blackhole bh) {
+        for (int i = 0; i < turnos; i++) {
+            LocalTime entrada = entradasFecha[i].toLocalTime();
+            LocalTime salida = salidasFecha[i].toLocalTime();
+            LocalTime esperada = esperadasFecha[i].toLocalTime();
+            if (esFinDeSemana(entradasFecha[i].toLocalDate())) {
+                bh.consume(Duration.between(entrada, salida).toMinutes());
+            } else if (salida.isBefore(esperada)) {
+                bh.consume(0L);
+            } else if (salida.isAfter(INICIO_HORARIO_50) || salida.isBefore(FIN_HORARIO_50)) {
+                bh.consume(Duration.between(esperada, INICIO_HORARIO_50).toMinutes());
+                bh.consume(Duration.between(INICIO_HORARIO_50, salida).toMinutes());
+            } else {
+                bh.consume(Duration.between(esperada, salida).toMinutes());
+            }
+        }
+    }
+
+    private static boolean esFinDeSemana(LocalDate fecha) {
+        return fecha.getDayOfWeek() == DayOfWeek.SATURDAY || fecha.getDayOfWeek() == DayOfWeek.SUNDAY;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CalculadoraHorasExtraBenchmark.class.getSimpleName()).build()).run();
+    }
+}
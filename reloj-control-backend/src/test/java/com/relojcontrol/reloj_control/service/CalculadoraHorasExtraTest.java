@@ -0,0 +1,166 @@
+package com.relojcontrol.reloj_control.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CalculadoraHorasExtraTest {
+
+    // 2024-03-05 es martes, 2024-03-08 viernes, 2024-03-09 sábado y 2024-03-11 lunes
+    private static final LocalDate FERIADO = LocalDate.of(2024, 3, 6);
+
+    private static final CalculadoraHorasExtra.Calendario CALENDARIO = dia -> {
+        LocalDate fecha = LocalDate.ofEpochDay(dia);
+        return fecha.getDayOfWeek() == DayOfWeek.SATURDAY || fecha.getDayOfWeek() == DayOfWeek.SUNDAY
+                || fecha.equals(FERIADO);
+    };
+
+    private static final CalculadoraHorasExtra.Calendario SIN_FERIADOS = dia -> false;
+
+    private static long minuto(String fechaHora) {
+        return CalculadoraHorasExtra.minuto(LocalDateTime.parse(fechaHora));
+    }
+
+    private static void verificar(int esperado25, int esperado50, String entrada, String salida, String salidaEsperada) {
+        long resultado = CalculadoraHorasExtra.calcular(minuto(entrada), minuto(salida), minuto(salidaEsperada), CALENDARIO);
+        assertEquals(esperado25, CalculadoraHorasExtra.minutos25(resultado), "minutos al 25%");
+        assertEquals(esperado50, CalculadoraHorasExtra.minutos50(resultado), "minutos al 50%");
+    }
+
+    @Test
+    @DisplayName("Sin extras si la salida es anterior o igual a la entrada, o a la salida esperada")
+    void sinExtras() {
+        verificar(0, 0, "2024-03-05T08:00", "2024-03-05T08:00", "2024-03-05T17:00");
+        verificar(0, 0, "2024-03-05T08:00", "2024-03-05T07:00", "2024-03-05T17:00");
+        verificar(0, 0, "2024-03-05T08:00", "2024-03-05T16:59", "2024-03-05T17:00");
+        verificar(0, 0, "2024-03-05T08:00", "2024-03-05T17:00", "2024-03-05T17:00");
+    }
+
+    @Test
+    @DisplayName("En un día laboral los extras antes de las 21:00 van al 25% y después al 50%")
+    void diaLaboral() {
+        verificar(60, 0, "2024-03-05T08:00", "2024-03-05T18:00", "2024-03-05T17:00");
+        verificar(240, 0, "2024-03-05T08:00", "2024-03-05T21:00", "2024-03-05T17:00");
+        verificar(240, 90, "2024-03-05T08:00", "2024-03-05T22:30", "2024-03-05T17:00");
+    }
+
+    @Test
+    @DisplayName("Una salida esperada después de las 21:00 deja todo al 50%")
+    void salidaEsperadaNocturna() {
+        verificar(0, 60, "2024-03-05T14:00", "2024-03-06T00:00", "2024-03-05T23:00");
+    }
+
+    @Test
+    @DisplayName("Un turno que cruza la medianoche se cuenta como un solo intervalo")
+    void turnoNocturno() {
+        // Entrada martes 20:00, salida esperada miércoles 05:00; el miércoles es feriado
+        verificar(0, 120, "2024-03-05T20:00", "2024-03-06T07:00", "2024-03-06T05:00");
+        // Entrada lunes 20:00, salida esperada martes 05:00: 05:00-06:00 nocturno, 06:00-07:00 al 25%
+        verificar(60, 60, "2024-03-04T20:00", "2024-03-05T07:00", "2024-03-05T05:00");
+        // Salida antes de la esperada: sin extras aunque cruce la medianoche
+        verificar(0, 0, "2024-03-04T20:00", "2024-03-05T04:00", "2024-03-05T05:00");
+    }
+
+    @Test
+    @DisplayName("Un turno que empieza en día especial es todo extra al 50%")
+    void diaEspecial() {
+        verificar(0, 480, "2024-03-09T09:00", "2024-03-09T17:00", "2024-03-09T09:00");
+        // La salida esperada no aplica si la entrada es en día especial
+        verificar(0, 480, "2024-03-09T09:00", "2024-03-09T17:00", "2024-03-09T18:00");
+        verificar(0, 480, "2024-03-06T09:00", "2024-03-06T17:00", "2024-03-06T18:00");
+    }
+
+    @Test
+    @DisplayName("Los minutos se reparten según el día en que caen")
+    void cambioDeDia() {
+        // Viernes 20:00 a sábado 07:00 con salida esperada sábado 05:00: todo en sábado, al 50%
+        verificar(0, 120, "2024-03-08T20:00", "2024-03-09T07:00", "2024-03-09T05:00");
+        // Domingo 22:00 a lunes 08:00: domingo 120 y lunes 00:00-06:00 al 50%, 06:00-08:00 al 25%
+        verificar(120, 480, "2024-03-10T22:00", "2024-03-11T08:00", "2024-03-10T22:00");
+        // Viernes 10:00 a sábado 02:00 con salida esperada viernes 19:00: 19:00-21:00 al 25%, el resto al 50%
+        verificar(120, 300, "2024-03-08T10:00", "2024-03-09T02:00", "2024-03-08T19:00");
+    }
+
+    @Test
+    @DisplayName("Respeta el tramo nocturno del horario, cruce o no la medianoche")
+    void tramoNocturnoDelHorario() {
+        long entrada = minuto("2024-03-05T08:00");
+        long esperada = minuto("2024-03-05T17:00");
+        // 22:00 a 07:00: de 17:00 a 23:30 son 300 al 25% y 90 al 50%
+        long resultado = CalculadoraHorasExtra.calcular(entrada, minuto("2024-03-05T23:30"), esperada, 22 * 60, 7 * 60, CALENDARIO);
+        assertEquals(300, CalculadoraHorasExtra.minutos25(resultado));
+        assertEquals(90, CalculadoraHorasExtra.minutos50(resultado));
+        // 00:00 a 05:00, sin cruzar la medianoche: hasta el miércoles (feriado) 00:00 todo al 25%
+        resultado = CalculadoraHorasExtra.calcular(entrada, minuto("2024-03-05T23:30"), esperada, 0, 5 * 60, CALENDARIO);
+        assertEquals(390, CalculadoraHorasExtra.minutos25(resultado));
+        assertEquals(0, CalculadoraHorasExtra.minutos50(resultado));
+        // 18:00 a 20:00 dentro del día
+        resultado = CalculadoraHorasExtra.calcular(entrada, minuto("2024-03-05T21:00"), esperada, 18 * 60, 20 * 60, CALENDARIO);
+        assertEquals(120, CalculadoraHorasExtra.minutos25(resultado));
+        assertEquals(120, CalculadoraHorasExtra.minutos50(resultado));
+    }
+
+    @Test
+    @DisplayName("Funciona con minutos negativos (antes de 1970)")
+    void antesDe1970() {
+        long entrada = CalculadoraHorasExtra.minuto(LocalDateTime.of(1969, 12, 31, 20, 0));
+        long salida = CalculadoraHorasExtra.minuto(LocalDateTime.of(1970, 1, 1, 7, 0));
+        long esperada = CalculadoraHorasExtra.minuto(LocalDateTime.of(1970, 1, 1, 5, 0));
+        long resultado = CalculadoraHorasExtra.calcular(entrada, salida, esperada, SIN_FERIADOS);
+        assertEquals(60, CalculadoraHorasExtra.minutos25(resultado));
+        assertEquals(60, CalculadoraHorasExtra.minutos50(resultado));
+        assertEquals(-240, entrada);
+    }
+
+    @Test
+    @DisplayName("El resultado empaquetado conserva ambos valores")
+    void empaquetado() {
+        for (int minutos25 : new int[]{0, 1, 59, 1440, 100_000}) {
+            for (int minutos50 : new int[]{0, 1, 59, 1440, 100_000}) {
+                long resultado = CalculadoraHorasExtra.empaquetar(minutos25, minutos50);
+                assertEquals(minutos25, CalculadoraHorasExtra.minutos25(resultado));
+                assertEquals(minutos50, CalculadoraHorasExtra.minutos50(resultado));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Coincide con contar minuto a minuto en todos los turnos de una semana cada 15 minutos")
+    void coincideConConteoMinutoAMinuto() {
+        long inicioSemana = minuto("2024-03-04T00:00");
+        for (long entrada = inicioSemana; entrada < inicioSemana + 7 * CalculadoraHorasExtra.MINUTOS_DIA; entrada += 15) {
+            for (int largo = 0; largo <= CalculadoraHorasExtra.DURACION_MAXIMA_TURNO; largo += 45) {
+                for (int jornada : new int[]{0, 9 * 60, 13 * 60}) {
+                    long salida = entrada + largo;
+                    long esperada = entrada + jornada;
+                    long resultado = CalculadoraHorasExtra.calcular(entrada, salida, esperada, CALENDARIO);
+                    long[] conteo = contarMinutoAMinuto(entrada, salida, esperada);
+                    String turno = entrada + "-" + salida + " esperada " + esperada;
+                    assertEquals(conteo[0], CalculadoraHorasExtra.minutos25(resultado), "25% en " + turno);
+                    assertEquals(conteo[1], CalculadoraHorasExtra.minutos50(resultado), "50% en " + turno);
+                }
+            }
+        }
+    }
+
+    private static long[] contarMinutoAMinuto(long entrada, long salida, long esperada) {
+        long[] conteo = new long[2];
+        boolean entradaEspecial = CALENDARIO.esDiaEspecial(Math.floorDiv(entrada, CalculadoraHorasExtra.MINUTOS_DIA));
+        for (long m = entrada; m < salida; m++) {
+            if (!entradaEspecial && m < esperada) {
+                continue;
+            }
+            long minutoDelDia = Math.floorMod(m, CalculadoraHorasExtra.MINUTOS_DIA);
+            boolean al50 = CALENDARIO.esDiaEspecial(Math.floorDiv(m, CalculadoraHorasExtra.MINUTOS_DIA))
+                    || minutoDelDia < CalculadoraHorasExtra.FIN_TRAMO_NOCTURNO
+                    || minutoDelDia >= CalculadoraHorasExtra.INICIO_TRAMO_NOCTURNO;
+            conteo[al50 ? 1 : 0]++;
+        }
+        return conteo;
+    }
+}
@@ -0,0 +1,59 @@
+package com.relojcontrol.reloj_control.service;
+
+import com.relojcontrol.reloj_control.model.ParametroSistema;
+import com.relojcontrol.reloj_control.repository.ParametroSistemaRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lecturas de parámetros desde la copia en memoria.
+ */
+class ParametroSistemaServiceTest {
+
+    private static ParametroSistema parametro(String clave, String valor) {
+        ParametroSistema parametro = new ParametroSistema();
+        parametro.setClave(clave);
+        parametro.setValor(valor);
+        return parametro;
+    }
+
+    @Test
+    @DisplayName("Un parámetro sin valor no impide cargar los demás")
+    void parametroSinValor() {
+        ParametrosVigentes vigentes = new ParametrosVigentes(List.of(
+                parametro("horas_semanales", "45"), parametro("minutos_tolerancia", null)));
+
+        assertEquals(45, vigentes.getEntero("horas_semanales"));
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> vigentes.getEntero("minutos_tolerancia"));
+        assertEquals("El parámetro minutos_tolerancia no tiene valor", error.getMessage());
+    }
+
+    @Test
+    @DisplayName("Una clave inexistente recarga la copia una sola vez hasta la próxima recarga")
+    void claveInexistente() {
+        ParametroSistemaRepository repo = mock(ParametroSistemaRepository.class);
+        when(repo.findAll()).thenReturn(List.of(parametro("horas_semanales", "45")));
+        ParametroSistemaService servicio = new ParametroSistemaService(repo, mock(ApplicationEventPublisher.class));
+        servicio.recargar();
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IllegalArgumentException.class, () -> servicio.getEntero("no_existe"));
+        }
+        verify(repo, times(2)).findAll();
+
+        servicio.recargar();
+        assertThrows(IllegalArgumentException.class, () -> servicio.getEntero("no_existe"));
+        verify(repo, times(4)).findAll();
+    }
+}
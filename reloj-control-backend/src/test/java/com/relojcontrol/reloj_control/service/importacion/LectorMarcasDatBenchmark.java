@@ -0,0 +1,110 @@
+package com.relojcontrol.reloj_control.service.importacion;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el lector de bytes con la lectura anterior (readLine + split + LocalDateTime.parse)
+ * sobre un archivo .dat sintético.
+ * <p>
+ * Ejecutar con: {@code mvn -P benchmark test-compile exec:exec
+ * -Dbenchmark=com.relojcontrol.reloj_control.service.importacion.LectorMarcasDatBenchmark}
+ * o desde el IDE con el main de esta clase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LectorMarcasDatBenchmark {
+
+    @Param({"200000"})
+    public int lineas;
+
+    private byte[] contenido;
+    private Path archivo;
+
+    private final DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Setup
+    public void generar() throws IOException {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(lineas * 40);
+        LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < lineas; i++) {
+            sb.append("  ").append(10_000_000 + random.nextInt(500)).append('\t')
+                    .append(inicio.plusSeconds(random.nextInt(365 * 86_400)).format(fmt))
+                    .append("\t1\t0\t1\t0\n");
+        }
+        contenido = sb.toString().getBytes(StandardCharsets.UTF_8);
+        archivo = Files.createTempFile("benchmark-", ".dat");
+        Files.write(archivo, contenido);
+    }
+
+    @TearDown
+    public void borrar() throws IOException {
+        Files.deleteIfExists(archivo);
+    }
+
+    @Benchmark
+    public void splitYDateTimeFormatter(Blackhole bh) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(contenido)));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] cols = line.trim().split("\\t");
+            if (cols.length < 2) continue;
+            try {
+                bh.consume(cols[0].trim());
+                bh.consume(LocalDateTime.parse(cols[1], fmt));
+            } catch (DateTimeParseException e) {
+                bh.consume(e);
+            }
+        }
+    }
+
+    @Benchmark
+    public void lectorBytesFlujo(Blackhole bh) throws IOException {
+        LectorMarcasDat.leer(new ByteArrayInputStream(contenido), receptor(bh));
+    }
+
+    @Benchmark
+    public void lectorBytesMapeado(Blackhole bh) throws IOException {
+        LectorMarcasDat.leer(archivo, receptor(bh));
+    }
+
+    private static LectorMarcasDat.Receptor receptor(Blackhole bh) {
+        return new LectorMarcasDat.Receptor() {
+            @Override
+            public void marca(String rut, long epochSegundo) {
+                bh.consume(rut);
+                bh.consume(epochSegundo);
+            }
+
+            @Override
+            public void lineaInvalida(String linea) {
+                bh.consume(linea);
+            }
+        };
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LectorMarcasDatBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,136 @@
+package com.relojcontrol.reloj_control.service.importacion;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LectorMarcasDatTest {
+
+    private static final String ARCHIVO =
+            "  12345678\t2024-03-15 08:01:02\t1\t0\n" +
+            "12345678\t2024-03-15 17:30:00\r\n" +
+            "\n" +
+            "sin segunda columna\n" +
+            "9876543\t2024-13-01 08:00:00\n" +
+            "98765K\t2024-03-15 08:00:00\n" +
+            "012345678\t2024-03-15 08:05:00\n" +
+            "9876543\t2024-02-30 23:59:59\n" +
+            "9876543\t1999-12-31 00:00:00";
+
+    private static class Recolector implements LectorMarcasDat.Receptor {
+        final List<MarcaLeida> marcas = new ArrayList<>();
+        final List<String> invalidas = new ArrayList<>();
+
+        @Override
+        public void marca(String rut, long epochSegundo) {
+            marcas.add(new MarcaLeida(rut, epochSegundo));
+        }
+
+        @Override
+        public void lineaInvalida(String linea) {
+            invalidas.add(linea);
+        }
+    }
+
+    private static long epoch(String fechaHora) {
+        return LocalDateTime.parse(fechaHora.replace(' ', 'T')).toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static void verificar(Recolector r) {
+        assertEquals(List.of(
+                new MarcaLeida("12345678", epoch("2024-03-15 08:01:02")),
+                new MarcaLeida("12345678", epoch("2024-03-15 17:30:00")),
+                // El RUT se conserva tal cual: con dígito verificador o con ceros a la izquierda es otro empleado
+                new MarcaLeida("98765K", epoch("2024-03-15 08:00:00")),
+                new MarcaLeida("012345678", epoch("2024-03-15 08:05:00")),
+                // Como el formateador SMART, el 30 de febrero pasa al último día del mes
+                new MarcaLeida("9876543", epoch("2024-02-29 23:59:59")),
+                new MarcaLeida("9876543", epoch("1999-12-31 00:00:00"))), r.marcas);
+        assertEquals(List.of("9876543\t2024-13-01 08:00:00"), r.invalidas);
+        // Un solo texto por RUT distinto
+        assertSame(r.marcas.get(0).rut(), r.marcas.get(1).rut());
+        assertSame(r.marcas.get(4).rut(), r.marcas.get(5).rut());
+    }
+
+    @Test
+    @DisplayName("Lee un flujo aunque las líneas queden cortadas entre lecturas")
+    void leeFlujo() throws IOException {
+        byte[] bytes = ARCHIVO.getBytes(StandardCharsets.UTF_8);
+        // Entrega de a 7 bytes para forzar líneas partidas
+        InputStream entrecortado = new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        Recolector r = new Recolector();
+        LectorMarcasDat.leer(entrecortado, r);
+        verificar(r);
+    }
+
+    @Test
+    @DisplayName("Una línea más larga que el buffer se informa y se salta hasta el siguiente salto de línea")
+    void lineaDemasiadoLarga() throws IOException {
+        String larga = "1\t".repeat(100_000);
+        String contenido = larga + "\n12345678\t2024-03-15 08:01:02\n";
+        Recolector r = new Recolector();
+        LectorMarcasDat.leer(new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8)), r);
+
+        assertEquals(List.of(new MarcaLeida("12345678", epoch("2024-03-15 08:01:02"))), r.marcas);
+        assertEquals(1, r.invalidas.size());
+        assertTrue(r.invalidas.get(0).startsWith("1\t1\t"));
+        assertTrue(r.invalidas.get(0).length() < 200);
+    }
+
+    @Test
+    @DisplayName("Reutiliza el texto de cada RUT aunque haya muchos RUT distintos")
+    void muchosRuts() throws IOException {
+        StringBuilder contenido = new StringBuilder();
+        for (int vuelta = 0; vuelta < 2; vuelta++) {
+            for (int i = 0; i < 5_000; i++) {
+                contenido.append(i).append("\t2024-03-15 08:0").append(vuelta).append(":00\n");
+            }
+        }
+        Recolector r = new Recolector();
+        LectorMarcasDat.leer(new ByteArrayInputStream(contenido.toString().getBytes(StandardCharsets.UTF_8)), r);
+
+        assertEquals(10_000, r.marcas.size());
+        for (int i = 0; i < 5_000; i++) {
+            assertEquals(Integer.toString(i), r.marcas.get(i).rut());
+            assertSame(r.marcas.get(i).rut(), r.marcas.get(5_000 + i).rut());
+        }
+    }
+
+    @Test
+    @DisplayName("Lee un archivo en disco mapeado en memoria")
+    void leeArchivoMapeado(@TempDir Path dir) throws IOException {
+        Path archivo = Files.writeString(dir.resolve("marcas.dat"), ARCHIVO);
+        Recolector r = new Recolector();
+        LectorMarcasDat.leer(archivo, r);
+        verificar(r);
+    }
+
+    @Test
+    @DisplayName("Calcula los días desde 1970 igual que LocalDate")
+    void diasDesdeEpoch() {
+        for (LocalDate d = LocalDate.of(1899, 1, 1); d.isBefore(LocalDate.of(2101, 1, 1)); d = d.plusDays(1)) {
+            assertEquals(d.toEpochDay(), LectorMarcasDat.diasDesdeEpoch(d.getYear(), d.getMonthValue(), d.getDayOfMonth()));
+        }
+    }
+}
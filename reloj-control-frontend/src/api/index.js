@@ -74,6 +74,31 @@ export const getResumen = async (fechaInicio, fechaFin, rut) => {
     }
 };
 
+// Resúmenes de varios empleados en una sola petición, agrupados por empleado
+export const getResumenLote = async (ruts, fechaInicio, fechaFin) => {
+    if (!fechaInicio) {
+        throw new Error('La fecha de inicio es requerida');
+    }
+    const token = getToken();
+    const headers = { 'Content-Type': 'application/json' };
+    if (token) headers['Authorization'] = `Bearer ${token}`;
+
+    const response = await fetch(`${API_URL}/asistencias/resumen/lote`, {
+        method: 'POST',
+        headers,
+        body: JSON.stringify({
+            ruts,
+            inicio: formatearFecha(fechaInicio),
+            fin: fechaFin ? formatearFecha(fechaFin) : undefined,
+        }),
+    });
+    if (!response.ok) {
+        const errorData = await response.text();
+        throw new Error(`Error al obtener los resúmenes: ${response.status} ${errorData || ''}`);
+    }
+    return response.json();
+};
+
 export const getResumenMensual = async (mes, año, rut) => {
     try {
         console.log('Ejecutando getResumenMensual con parámetros:', { mes, año, rut });
@@ -203,13 +228,14 @@ export const marcarAsistencia = async (empleadoId, tipo, fecha = null) => {
     return await response.json()
 }
 
-export const importarArchivo = async (file) => {
+export const importarArchivo = async (file, modo = 'LOTES') => {
     const token = getToken();
     const headers = {}; // FormData se encarga del Content-Type
     if (token) headers['Authorization'] = `Bearer ${token}`;
 
     const formData = new FormData()
     formData.append('file', file)
+    formData.append('modo', modo)
 
     const response = await fetch(`${API_URL}/importar`, {
         method: 'POST',
@@ -217,16 +243,40 @@ export const importarArchivo = async (file) => {
         body: formData
     })
 
-    const responseText = await response.text(); // Leer como texto
-
     if (!response.ok) {
-        // Usar el texto de la respuesta en el error si está disponible
+        const responseText = await response.text();
         throw new Error(responseText || `Error ${response.status}: ${response.statusText}`)
     }
 
-    return responseText; // Devolver el texto directamente
+    // La importación queda en segundo plano; se devuelve el trabajo creado para consultar su avance
+    return response.json();
 }
 
+// Envía el archivo como cuerpo de la petición, sin multipart: admite archivos grandes y .dat comprimidos (gzip o zip).
+// Igual que importarArchivo, el backend encola la importación y devuelve el trabajo para consultar su avance.
+export const importarArchivoFlujo = async (file, modo = 'LOTES') => {
+    const token = getToken();
+    const headers = { 'Content-Type': 'application/octet-stream' };
+    if (token) headers['Authorization'] = `Bearer ${token}`;
+
+    const response = await fetch(`${API_URL}/importar/stream?nombre=${encodeURIComponent(file.name)}&modo=${encodeURIComponent(modo)}`, {
+        method: 'POST',
+        headers,
+        body: file
+    })
+
+    if (!response.ok) {
+        const responseText = await response.text();
+        throw new Error(responseText || `Error ${response.status}: ${response.statusText}`)
+    }
+    return response.json();
+}
+
+// Consulta el avance de una importación en segundo plano
+export const getEstadoImportacion = async (idJob) => {
+    return hacerPeticionGet(`/importar/jobs/${idJob}`);
+};
+
 // Función para actualizar el estado de una asistencia
 export const actualizarEstadoAsistencia = async (id, estado) => {
     const token = getToken();
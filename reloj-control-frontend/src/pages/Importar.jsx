@@ -1,11 +1,21 @@
 import { useState } from 'react'
-import { importarArchivo } from '../api' // Corregir la ruta de importación
+import { importarArchivo, importarArchivoFlujo, getEstadoImportacion } from '../api' // Corregir la ruta de importación
+
+const INTERVALO_CONSULTA_MS = 2000
+// Sobre este tamaño (límite de las subidas multipart del backend) o si viene comprimido, el archivo se envía como flujo
+const LIMITE_MULTIPART = 20 * 1024 * 1024
+
+const usarFlujo = (file) => file.size > LIMITE_MULTIPART || /\.(gz|zip)$/i.test(file.name)
+
+const esperar = (ms) => new Promise(resolve => setTimeout(resolve, ms))
 
 export default function Importar() {
     const [file, setFile] = useState(null)
     const [msg, setMsg] = useState('')
     const [isLoading, setIsLoading] = useState(false)
     const [dragActive, setDragActive] = useState(false)
+    const [job, setJob] = useState(null)
+    const [modo, setModo] = useState('LOTES')
 
     const handleDrag = (e) => {
         e.preventDefault()
@@ -23,7 +33,7 @@ export default function Importar() {
         setDragActive(false)
         
         const files = e.dataTransfer.files
-        if (files?.[0]?.name.endsWith('.dat')) {
+        if (/\.(dat|gz|zip)$/i.test(files?.[0]?.name ?? '')) {
             setFile(files[0])
             setMsg('')
         } else {
@@ -46,20 +56,27 @@ export default function Importar() {
         }
 
         setIsLoading(true)
-        // No es necesario crear FormData aquí, importarArchivo se encarga si es necesario.
+        setMsg('')
 
         try {
-            // Usar la función importarArchivo de api/index.js
-            const responseText = await importarArchivo(file); 
-            // Asumimos que importarArchivo devuelve el texto de la respuesta directamente
-            // o un objeto con un mensaje.
-            // Si devuelve un objeto: setMsg(responseText.message || responseText.toString());
-            // Si devuelve texto: setMsg(responseText);
-
-            // El backend devuelve el texto directamente, no un JSON.
-            // Si la respuesta es exitosa y es texto, no JSON:
-            setMsg(responseText); // Directamente el texto de la respuesta.
+            // El backend responde de inmediato con el trabajo; luego se consulta su avance
+            let estado = usarFlujo(file)
+                ? await importarArchivoFlujo(file, modo)
+                : await importarArchivo(file, modo)
+            setJob(estado)
             setFile(null) // Reset file after successful upload
+
+            while (estado.estado === 'EN_COLA' || estado.estado === 'EN_PROCESO') {
+                await esperar(INTERVALO_CONSULTA_MS)
+                estado = await getEstadoImportacion(estado.idJob)
+                setJob(estado)
+            }
+
+            if (estado.estado === 'COMPLETADO') {
+                setMsg(`Importación exitosa: ${estado.marcasInsertadas} marcas nuevas, ${estado.duplicadas} duplicadas, ${estado.errores} líneas con error`)
+            } else {
+                setMsg('Error: ' + (estado.mensajeError || 'la importación falló'))
+            }
         } catch (e) {
             setMsg('Error: ' + e.message)
         } finally {
@@ -94,7 +111,7 @@ export default function Importar() {
                                 <div className="position-relative">
                                     <input
                                         type="file"
-                                        accept=".dat"
+                                        accept=".dat,.gz,.zip"
                                         onChange={onFileChange}
                                         className="position-absolute top-0 start-0 opacity-0 w-100 h-100"
                                         style={{ cursor: 'pointer' }}
@@ -114,6 +131,20 @@ export default function Importar() {
                                 </div>
                             )}
 
+                            <div className="mb-3">
+                                <label htmlFor="modoImportacion" className="form-label small">Modo de importación</label>
+                                <select
+                                    id="modoImportacion"
+                                    className="form-select form-select-sm"
+                                    value={modo}
+                                    onChange={e => setModo(e.target.value)}
+                                >
+                                    <option value="LOTES">Normal</option>
+                                    <option value="PARALELO">En paralelo (archivos con muchos empleados)</option>
+                                    <option value="COPY">Carga masiva (archivos históricos grandes)</option>
+                                </select>
+                            </div>
+
                             <button
                                 onClick={onSubmit}
                                 disabled={!file || isLoading}
@@ -127,6 +158,18 @@ export default function Importar() {
                                 ) : 'Importar archivo'}
                             </button>
 
+                            {job && isLoading && (
+                                <div className="alert alert-secondary mt-3 small">
+                                    <div>Estado: {job.estado === 'EN_COLA' ? 'En cola' : 'Procesando'}</div>
+                                    {job.desplazamientoInicial > 0 && (
+                                        <div>Archivo ya importado en parte: se leen solo las líneas nuevas</div>
+                                    )}
+                                    <div>Líneas leídas: {job.lineasLeidas}</div>
+                                    <div>Marcas insertadas: {job.marcasInsertadas} · Duplicadas: {job.duplicadas} · Errores: {job.errores}</div>
+                                    <div>Velocidad: {Math.round(job.filasPorSegundo)} filas/s</div>
+                                </div>
+                            )}
+
                             {msg && (
                                 <div className={`alert ${msg.startsWith('Error') ? 'alert-danger' : 'alert-success'} mt-3`}>
                                     {msg}